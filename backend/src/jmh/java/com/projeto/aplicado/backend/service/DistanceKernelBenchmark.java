@@ -0,0 +1,75 @@
+package com.projeto.aplicado.backend.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a single batch scan of {@link DistanceKernel} with the per-bank loop calling
+ * {@link DistanceKernel#distanceKm} on {@code double[]} coordinate pairs, both returning
+ * the k closest banks within the radius. No grid is involved, so this measures the distance
+ * computation alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DistanceKernelBenchmark {
+    private static final int K = 100;
+
+    @Param({"100", "10000", "100000"})
+    private int banks;
+
+    @Param({"80", "1000"})
+    private double radiusKm;
+
+    private List<double[]> coordinates;
+    private DistanceKernel<Integer> kernel;
+
+    private double queryLat;
+    private double queryLon;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        coordinates = new ArrayList<>(banks);
+        List<Integer> ids = new ArrayList<>(banks);
+
+        for (int i = 0; i < banks; i++) {
+            coordinates.add(new double[]{-33.0 + random.nextDouble() * 38.0, -74.0 + random.nextDouble() * 40.0});
+            ids.add(i);
+        }
+        kernel = DistanceKernel.of(ids, i -> coordinates.get(i)[0], i -> coordinates.get(i)[1]);
+
+        // Campinas
+        queryLat = -22.9056;
+        queryLon = -47.0608;
+    }
+
+    @Benchmark
+    public List<double[]> perElement() {
+        List<double[]> matches = new ArrayList<>();
+        for (int i = 0; i < coordinates.size(); i++) {
+            double[] point = coordinates.get(i);
+            double distance = DistanceKernel.distanceKm(queryLat, queryLon, point[0], point[1]);
+            if (distance <= radiusKm) {
+                matches.add(new double[]{i, distance});
+            }
+        }
+        matches.sort(Comparator.comparingDouble(m -> m[1]));
+        return matches.subList(0, Math.min(K, matches.size()));
+    }
+
+    @Benchmark
+    public List<double[]> kernel() {
+        DistanceKernel.TopK<Integer> topK = new DistanceKernel.TopK<>(K);
+        kernel.collect(new DistanceKernel.Query(queryLat, queryLon, radiusKm), topK);
+
+        List<double[]> matches = new ArrayList<>(topK.size());
+        topK.drainSorted((id, haversine) -> matches.add(new double[]{id, DistanceKernel.toKm(haversine)}));
+        return matches;
+    }
+}
@@ -0,0 +1,83 @@
+package com.projeto.aplicado.backend.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the nearby search done by {@link BloodBankSpatialIndex} with the previous
+ * linear scan calling {@link DistanceKernel#distanceKm} for every blood bank.
+ * Banks are spread randomly over Brazil.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NearbySearchBenchmark {
+    private static final double RADIUS_KM = 80.0;
+    private static final int K = 10;
+
+    @Param({"100", "10000", "100000"})
+    private int banks;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private BloodBankSpatialIndex index;
+
+    private double queryLat;
+    private double queryLon;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        latitudes = new double[banks];
+        longitudes = new double[banks];
+        index = new BloodBankSpatialIndex();
+
+        for (int i = 0; i < banks; i++) {
+            latitudes[i] = -33.0 + random.nextDouble() * 38.0;
+            longitudes[i] = -74.0 + random.nextDouble() * 40.0;
+            index.put(new BloodBankSpatialIndex.Entry("bank-" + i, "Bank " + i, null, null, latitudes[i], longitudes[i]));
+        }
+
+        // Campinas
+        queryLat = -22.9056;
+        queryLon = -47.0608;
+    }
+
+    @Benchmark
+    public List<double[]> linearScanWithinRadius() {
+        List<double[]> matches = new ArrayList<>();
+        for (int i = 0; i < banks; i++) {
+            double distance = DistanceKernel.distanceKm(queryLat, queryLon, latitudes[i], longitudes[i]);
+            if (distance <= RADIUS_KM) {
+                matches.add(new double[]{i, distance});
+            }
+        }
+        matches.sort(Comparator.comparingDouble(m -> m[1]));
+        return matches;
+    }
+
+    @Benchmark
+    public List<BloodBankSpatialIndex.Match> indexWithinRadius() {
+        return index.withinRadius(queryLat, queryLon, RADIUS_KM);
+    }
+
+    @Benchmark
+    public List<double[]> linearScanNearest() {
+        List<double[]> matches = new ArrayList<>(banks);
+        for (int i = 0; i < banks; i++) {
+            matches.add(new double[]{i, DistanceKernel.distanceKm(queryLat, queryLon, latitudes[i], longitudes[i])});
+        }
+        matches.sort(Comparator.comparingDouble(m -> m[1]));
+        return matches.subList(0, Math.min(K, matches.size()));
+    }
+
+    @Benchmark
+    public List<BloodBankSpatialIndex.Match> indexNearest() {
+        return index.nearest(queryLat, queryLon, K);
+    }
+}
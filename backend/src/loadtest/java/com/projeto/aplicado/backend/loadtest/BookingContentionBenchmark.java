@@ -0,0 +1,257 @@
+package com.projeto.aplicado.backend.loadtest;
+
+import com.projeto.aplicado.backend.BackendApplication;
+import com.projeto.aplicado.backend.dto.donation.CreateDonationDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+import com.projeto.aplicado.backend.model.enums.Role;
+import com.projeto.aplicado.backend.model.users.User;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.PublishedSlotRepository;
+import com.projeto.aplicado.backend.repository.UserRepository;
+import com.projeto.aplicado.backend.service.DonationService;
+import com.projeto.aplicado.backend.service.SlotInventory;
+import org.bson.types.ObjectId;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load harness for concurrent bookings of one slot.<br>
+ * Boots the application without the web layer against a throwaway Mongo (a Testcontainers
+ * {@code mongo:7} container, or the database given by {@code loadtest.mongo.uri}), publishes a slot
+ * and fires one {@link DonationService#createDonation} per donor at it, all released at once.
+ * Each round uses a fresh slot, and after each round the inventory is flushed and the slot is checked
+ * for overbooking: more bookings accepted, active donations stored, or booked spots persisted than
+ * {@code totalSpots}.
+ * <p>
+ * Run it with {@code gradlew bookingBenchmark}. Settings are system properties:
+ * <ul>
+ *     <li>{@code loadtest.donors} concurrent bookings per round (default 1000)</li>
+ *     <li>{@code loadtest.spots} total spots of the slot (default 20)</li>
+ *     <li>{@code loadtest.threads} worker threads, 0 for one virtual thread per booking (default 0)</li>
+ *     <li>{@code loadtest.rounds} measured rounds (default 5)</li>
+ *     <li>{@code loadtest.warmupRounds} rounds run before measuring (default 2)</li>
+ *     <li>{@code loadtest.mongo.uri} an existing Mongo to use instead of the container</li>
+ * </ul>
+ * The process exits with status 1 when overbooking is detected.
+ */
+public class BookingContentionBenchmark {
+    private static final String DATABASE = "loadtest";
+    private static final LocalTime SLOT_TIME = LocalTime.of(9, 0);
+    private static final List<Donation.DonationStatus> ACTIVE_STATUSES =
+            Arrays.asList(Donation.DonationStatus.PENDING, Donation.DonationStatus.CONFIRMED);
+
+    private final int donors = Integer.getInteger("loadtest.donors", 1000);
+    private final int spots = Integer.getInteger("loadtest.spots", 20);
+    private final int threads = Integer.getInteger("loadtest.threads", 0);
+    private final int rounds = Integer.getInteger("loadtest.rounds", 5);
+    private final int warmupRounds = Integer.getInteger("loadtest.warmupRounds", 2);
+
+    private final DonationService donationService;
+    private final DonationRepository donationRepository;
+    private final PublishedSlotRepository publishedSlotRepository;
+    private final SlotInventory slotInventory;
+    private final String bloodBankId = new ObjectId().toHexString();
+    private final List<String> donorIds = new ArrayList<>();
+
+    private BookingContentionBenchmark(ConfigurableApplicationContext context) {
+        this.donationService = context.getBean(DonationService.class);
+        this.donationRepository = context.getBean(DonationRepository.class);
+        this.publishedSlotRepository = context.getBean(PublishedSlotRepository.class);
+        this.slotInventory = context.getBean(SlotInventory.class);
+        seedDonors(context.getBean(UserRepository.class));
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mongoUri = System.getProperty("loadtest.mongo.uri");
+        MongoDBContainer container = null;
+        if (mongoUri == null || mongoUri.isBlank()) {
+            container = new MongoDBContainer("mongo:7");
+            container.start();
+            mongoUri = container.getReplicaSetUrl(DATABASE);
+        }
+
+        boolean overbooked;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.data.mongodb.uri=" + mongoUri,
+                        "spring.data.mongodb.database=" + DATABASE,
+                        "spring.mail.host=localhost",
+                        "jwt.secret=loadtest-secret-loadtest-secret-00")
+                .run()) {
+            overbooked = new BookingContentionBenchmark(context).run();
+        } finally {
+            if (container != null) {
+                container.stop();
+            }
+        }
+        System.exit(overbooked ? 1 : 0);
+    }
+
+    private boolean run() throws Exception {
+        System.out.printf("%d concurrent bookings of a slot with %d spots, %s, %d warmup + %d measured rounds%n",
+                donors, spots, threads > 0 ? threads + " threads" : "one virtual thread each", warmupRounds, rounds);
+
+        boolean overbooked = false;
+        LocalDate date = LocalDate.now().plusDays(1);
+        for (int round = 0; round < warmupRounds + rounds; round++, date = date.plusDays(1)) {
+            RoundResult result = runRound(date);
+            overbooked |= result.overbooked();
+
+            String label = round < warmupRounds ? "warmup " + (round + 1) : "round " + (round - warmupRounds + 1);
+            result.print(label);
+        }
+        return overbooked;
+    }
+
+    private void seedDonors(UserRepository userRepository) {
+        BloodType[] bloodTypes = BloodType.values();
+        List<User> users = new ArrayList<>(donors);
+        for (int i = 0; i < donors; i++) {
+            User user = new User();
+            user.setName("Doador " + i);
+            user.setEmail("doador" + i + "@loadtest.local");
+            user.setRole(Role.USER);
+            user.setBloodType(bloodTypes[i % bloodTypes.length]);
+            users.add(user);
+        }
+        userRepository.saveAll(users).forEach(user -> donorIds.add(user.getId()));
+    }
+
+    private RoundResult runRound(LocalDate date) throws Exception {
+        PublishedSlot slot = new PublishedSlot();
+        slot.setBloodBankId(bloodBankId);
+        slot.setDate(date);
+        slot.setTime(SLOT_TIME);
+        slot.setTotalSpots(spots);
+        publishedSlotRepository.publish(List.of(slot));
+        slotInventory.invalidate(List.of(new SlotKey(bloodBankId, date, SLOT_TIME)));
+
+        AtomicInteger succeeded = new AtomicInteger();
+        Map<String, AtomicInteger> rejected = new ConcurrentHashMap<>();
+        long[] latencies = new long[donors];
+        CountDownLatch ready = new CountDownLatch(donors);
+        CountDownLatch start = new CountDownLatch(1);
+
+        long elapsed;
+        try (ExecutorService executor = threads > 0
+                ? Executors.newFixedThreadPool(threads)
+                : Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(donors);
+            for (int i = 0; i < donors; i++) {
+                int index = i;
+                CreateDonationDTO request = bookingRequest(donorIds.get(i), date);
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    awaitQuietly(start);
+                    long begin = System.nanoTime();
+                    try {
+                        donationService.createDonation(request.getUserId(), request);
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rejected.computeIfAbsent(String.valueOf(e.getMessage()), m -> new AtomicInteger()).incrementAndGet();
+                    } finally {
+                        latencies[index] = System.nanoTime() - begin;
+                    }
+                }));
+            }
+
+            if (threads <= 0) {
+                ready.await();
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsed = System.nanoTime() - begin;
+        }
+
+        slotInventory.flush();
+        PublishedSlot stored = publishedSlotRepository.findByBloodBankIdAndDateAndTime(bloodBankId, date, SLOT_TIME)
+                .orElseThrow(() -> new IllegalStateException("Slot " + date + " " + SLOT_TIME + " was not stored"));
+        long activeDonations = donationRepository.countByBloodBankIdAndAppointmentAtAndStatusIn(
+                bloodBankId, Donation.appointmentAt(date, SLOT_TIME), ACTIVE_STATUSES);
+
+        Arrays.sort(latencies);
+        return new RoundResult(donors, elapsed, latencies, succeeded.get(), new TreeMap<>(toCounts(rejected)),
+                stored, activeDonations);
+    }
+
+    private CreateDonationDTO bookingRequest(String userId, LocalDate date) {
+        CreateDonationDTO request = new CreateDonationDTO();
+        request.setUserId(userId);
+        request.setBloodBankId(bloodBankId);
+        request.setDate(date.toString());
+        request.setHour(SLOT_TIME.toString());
+        request.setSlot(1);
+        return request;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, Integer> toCounts(Map<String, AtomicInteger> counters) {
+        Map<String, Integer> counts = new TreeMap<>();
+        counters.forEach((message, count) -> counts.put(message, count.get()));
+        return counts;
+    }
+
+    private record RoundResult(int requests, long elapsedNanos, long[] sortedLatencies, int succeeded,
+                               Map<String, Integer> rejected, PublishedSlot slot, long activeDonations) {
+
+        boolean overbooked() {
+            int totalSpots = slot.getTotalSpots();
+            return succeeded > totalSpots
+                    || activeDonations > totalSpots
+                    || slot.getBookedSpots() > totalSpots
+                    || slot.getAvailableSpots() < 0;
+        }
+
+        void print(String label) {
+            double seconds = elapsedNanos / 1e9;
+            int rejectedTotal = rejected.values().stream().mapToInt(Integer::intValue).sum();
+
+            System.out.printf("%-9s %8.0f req/s  p50 %7.2f ms  p99 %7.2f ms  succeeded %d  rejected %d%n",
+                    label, requests / seconds, percentile(0.50), percentile(0.99), succeeded, rejectedTotal);
+            rejected.forEach((message, count) -> System.out.printf("          %6d x %s%n", count, message));
+            System.out.printf("          slot: total %d, booked %d, available %d, active donations %d%n",
+                    slot.getTotalSpots(), slot.getBookedSpots(), slot.getAvailableSpots(), activeDonations);
+
+            if (overbooked()) {
+                System.out.println("          OVERBOOKING DETECTED");
+            } else if (succeeded != slot.getBookedSpots() || succeeded != activeDonations) {
+                System.out.println("          INCONSISTENT: accepted bookings, booked spots and donations differ");
+            }
+        }
+
+        private double percentile(double p) {
+            int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -6,19 +6,33 @@ import com.projeto.aplicado.backend.dto.bloodbank.*;
 import com.projeto.aplicado.backend.dto.donation.AvailableSlotsDTO;
 import com.projeto.aplicado.backend.dto.donation.DailyAvailabilityDTO;
 import com.projeto.aplicado.backend.dto.donation.SlotDTO;
-import com.projeto.aplicado.backend.model.DailyAvailability;
-import com.projeto.aplicado.backend.model.Slot;
+import com.projeto.aplicado.backend.model.enums.BloodType;
 import com.projeto.aplicado.backend.model.users.BloodBank;
+import com.projeto.aplicado.backend.security.CurrentUser;
+import com.projeto.aplicado.backend.service.AvailabilitySummaryService;
+import com.projeto.aplicado.backend.service.AvailabilityTemplateService;
 import com.projeto.aplicado.backend.service.BloodBankService;
 import com.projeto.aplicado.backend.service.CampaignService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/bloodbanks")
@@ -26,6 +40,8 @@ import java.util.Map;
 public class BloodBankController {
     private final BloodBankService bloodBankService;
     private final CampaignService campaignService;
+    private final AvailabilityTemplateService availabilityTemplateService;
+    private final AvailabilitySummaryService availabilitySummaryService;
 
     /**
      * Creates a new blood bank.
@@ -81,6 +97,37 @@ public class BloodBankController {
         return ResponseEntity.ok(bloodBankService.findStatsById(id));
     }
 
+    /**
+     * Streams the IDs of the donors near a blood bank, one per line, as they are read from the database.
+     * Only the blood bank itself may list its donors.
+     *
+     * @param id                 the blood bank ID
+     * @param radiusKm           the radius in kilometers
+     * @param bloodType          optional blood type filter (e.g. O_NEGATIVE)
+     * @param lastDonationBefore optional filter: donors that never donated or last donated on or before this date
+     * @return the donor IDs as plain text
+     */
+    @GetMapping(value = "/{id}/nearbyDonors", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> getNearbyDonorIds(
+            @PathVariable String id,
+            @RequestParam double radiusKm,
+            @RequestParam(required = false) BloodType bloodType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate lastDonationBefore) {
+        CurrentUser.requireSelf(id);
+        Stream<String> donorIds = bloodBankService.streamNearbyDonorIds(id, radiusKm, bloodType, lastDonationBefore);
+
+        StreamingResponseBody body = outputStream -> {
+            try (donorIds; Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+                Iterator<String> iterator = donorIds.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    writer.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(body);
+    }
+
     /**
      * Get the campaigns of a blood bank by ID.
      *
@@ -101,6 +148,34 @@ public class BloodBankController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Creates a weekly recurring availability template. Its slots are generated when read,
+     * so a whole year of availability is a single document.
+     *
+     * @param id the blood bank ID
+     * @param dto the period, opening hours, days of the week, slot length and spots per slot
+     * @return the created template
+     */
+    @PostMapping("/{id}/availability-templates")
+    public ResponseEntity<AvailabilityTemplateDTO> createAvailabilityTemplate(
+            @PathVariable String id,
+            @RequestBody AvailabilityTemplateDTO dto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(bloodBankService.createAvailabilityTemplate(id, dto));
+    }
+
+    @GetMapping("/{id}/availability-templates")
+    public ResponseEntity<List<AvailabilityTemplateDTO>> getAvailabilityTemplates(@PathVariable String id) {
+        return ResponseEntity.ok(availabilityTemplateService.findByBloodBank(id));
+    }
+
+    @DeleteMapping("/{id}/availability-templates/{templateId}")
+    public ResponseEntity<Void> deleteAvailabilityTemplate(
+            @PathVariable String id,
+            @PathVariable String templateId) {
+        bloodBankService.deleteAvailabilityTemplate(id, templateId);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/publish-dates")
     public ResponseEntity<Void> addAvailabilitySlots(@RequestBody BloodBankAvailabilityDTO slotsDTO) {
         bloodBankService.addAvailabilitySlots(slotsDTO);
@@ -119,6 +194,26 @@ public class BloodBankController {
         return ResponseEntity.ok(bloodBanks);
     }
 
+    /**
+     * Gets the earliest open slots across every blood bank within a radius of the user.
+     *
+     * @param userId the user ID, whose address is the search center
+     * @param radiusKm the search radius in kilometers (at most 80)
+     * @param limit the maximum number of slots (at most 100)
+     * @param order "time" for the earliest first, "score" to combine time and distance
+     * @param days how many days ahead are searched (at most 60)
+     * @return the open slots with their blood bank and distance
+     */
+    @GetMapping("/earliest-slots")
+    public ResponseEntity<List<EarliestSlotDTO>> getEarliestSlots(
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "80") double radiusKm,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "time") String order,
+            @RequestParam(defaultValue = "14") int days) {
+        return ResponseEntity.ok(bloodBankService.findEarliestSlotsNearUser(userId, radiusKm, limit, order, days));
+    }
+
     @GetMapping("/{bloodBankId}/available-slots/{date}")
     public ResponseEntity<AvailableSlotsDTO> getAvailableSlots(
             @PathVariable String bloodBankId,
@@ -128,25 +223,53 @@ public class BloodBankController {
         return ResponseEntity.ok(slots);
     }
 
+    /**
+     * Gets the available spots of each slot of a blood bank between two days.
+     *
+     * @param id the blood bank ID
+     * @param from the first day (yyyy-MM-dd), today by default
+     * @param to the last day (yyyy-MM-dd), 60 days after the first by default (at most 366);
+     *           without from nor to, every stored slot is returned
+     * @return the slots by date
+     */
     @GetMapping("/{id}/availability")
-    public ResponseEntity<Map<String, List<SlotDTO>>> getAvailability(@PathVariable String id) {
-        BloodBank bank = bloodBankService.findEntityById(id);
-        if (bank == null) return ResponseEntity.notFound().build();
-
-        Map<String, List<SlotDTO>> result = new HashMap<>();
-        for (DailyAvailability daily : bank.getAvailabilitySlots()) {
-            for (Slot s: daily.getSlots()) {
-                SlotDTO dto = new SlotDTO();
-                dto.setTime(s.getTime());
-                dto.setAvailableSpots(s.getAvailableSpots());
-
-                result.computeIfAbsent(daily.getDate().toString(), k -> new ArrayList<>())
-                        .add(dto);
-            }
-        }
+    public ResponseEntity<Map<String, List<SlotDTO>>> getAvailability(
+            @PathVariable String id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Map<String, List<SlotDTO>> result = bloodBankService.getAvailabilityByDate(id, from, to);
+        if (result == null) return ResponseEntity.notFound().build();
+
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Gets the remaining spots of each day of a month, for the booking calendar.
+     * Answers 304 Not Modified when the If-None-Match header holds the current ETag.
+     *
+     * @param id the blood bank ID
+     * @param month the month (yyyy-MM)
+     * @param request the web request, to check the ETag
+     * @return the monthly summary with its ETag
+     */
+    @GetMapping("/{id}/availability-summary")
+    public ResponseEntity<AvailabilitySummaryDTO> getAvailabilitySummary(
+            @PathVariable String id,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            WebRequest request) {
+        AvailabilitySummaryDTO summary = availabilitySummaryService.getMonth(id, month);
+        if (summary == null) return ResponseEntity.notFound().build();
+
+        String eTag = "\"" + summary.getVersion() + "\"";
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(summary);
+    }
+
     @PostMapping("/schedule")
     public ResponseEntity<Void> scheduleDonation(@RequestBody DonationScheduleDTO scheduleDTO) {
         bloodBankService.scheduleDonation(scheduleDTO);
@@ -160,9 +283,21 @@ public class BloodBankController {
         return ResponseEntity.ok(bloodBankService.update(id, dto));
     }
 
+    /**
+     * Gets the available spots of each slot of a blood bank between two days, grouped by date.
+     *
+     * @param bloodbankId the blood bank ID
+     * @param from the first day (yyyy-MM-dd), today by default
+     * @param to the last day (yyyy-MM-dd), 60 days after the first by default (at most 366);
+     *           without from nor to, every stored slot is returned
+     * @return the slots of each day
+     */
     @GetMapping("/available-dates")
-    public ResponseEntity<List<DailyAvailabilityDTO>> getAvailableDatesWithSlots(@RequestParam String bloodbankId) {
-        List<DailyAvailabilityDTO> availableDates = bloodBankService.getAvailableDonationDatesWithSpots(bloodbankId);
+    public ResponseEntity<List<DailyAvailabilityDTO>> getAvailableDatesWithSlots(
+            @RequestParam String bloodbankId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        List<DailyAvailabilityDTO> availableDates = bloodBankService.getAvailableDonationDatesWithSpots(bloodbankId, from, to);
         return ResponseEntity.ok(availableDates);
     }
 
@@ -4,6 +4,7 @@ import com.projeto.aplicado.backend.dto.CampaignDTO;
 import com.projeto.aplicado.backend.dto.LeaderboardsDTO;
 import com.projeto.aplicado.backend.dto.OfferDTO;
 import com.projeto.aplicado.backend.dto.bloodbank.BloodBankNearbyDTO;
+import com.projeto.aplicado.backend.dto.bloodbank.BloodBankNearbyPageDTO;
 import com.projeto.aplicado.backend.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +15,8 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/dashboard")
 public class DashboardContentController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final OfferService offerService;
     private final CampaignService campaignService;
     private final BloodBankService bloodBankService;
@@ -68,13 +71,28 @@ public class DashboardContentController {
     }
 
     /**
-     * Gets nearby blood banks from the user.
+     * Gets the blood banks closest to the user, sorted by distance. <br>
+     * When there are more results, the cursor of the next page is sent in the {@code X-Next-Cursor} header.
      *
-     * @return a list of campaigns
+     * @param id       the user ID
+     * @param radiusKm the search radius in kilometers
+     * @param limit    the page size, by default the 100 closest banks as before paging existed
+     * @param cursor   the {@code X-Next-Cursor} of the previous page, absent for the first page
+     * @return a page of nearby blood banks
      */
     @GetMapping("/{id}/nearbyBloodbanks")
-    public ResponseEntity<List<BloodBankNearbyDTO>> getNearbyBloodbanks(@PathVariable String id) {
-        return ResponseEntity.ok(bloodBankService.getNearbyBloodbanksFromUser(id));
+    public ResponseEntity<List<BloodBankNearbyDTO>> getNearbyBloodbanks(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "80") double radiusKm,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String cursor) {
+        BloodBankNearbyPageDTO page = bloodBankService.getNearbyBloodbanksFromUser(id, radiusKm, limit, cursor);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getBloodBanks());
     }
 
     /**
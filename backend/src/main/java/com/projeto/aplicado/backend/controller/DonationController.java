@@ -1,36 +1,108 @@
 package com.projeto.aplicado.backend.controller;
 
 import com.projeto.aplicado.backend.dto.donation.*;
+import com.projeto.aplicado.backend.security.CurrentUser;
+import com.projeto.aplicado.backend.service.DonationExportService;
 import com.projeto.aplicado.backend.service.DonationService;
+import com.projeto.aplicado.backend.service.IdempotencyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Arrays;
 import java.util.List;
 
 
 @RestController
 @RequestMapping("/api/donations")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = DonationController.NEXT_CURSOR_HEADER)
 public class DonationController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final DonationService donationService;
+    private final IdempotencyService idempotencyService;
+    private final DonationExportService donationExportService;
 
     /**
      * Create a new donation appointment.
      *
+     * A retry with the same Idempotency-Key header returns the stored response instead of booking again.
+     *
      * @param request the donation request containing bloodBankId, date, hour, and slot
+     * @param idempotencyKey optional key identifying the request across retries
      * @return the created donation response
      */
     @PostMapping
-    public ResponseEntity<DonationDTO> createDonation(@Valid @RequestBody CreateDonationDTO request) {
-        DonationDTO response = donationService.createDonation(request.getUserId(), request);
+    public ResponseEntity<DonationDTO> createDonation(
+            @Valid @RequestBody CreateDonationDTO request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+
+        return idempotencyService.execute(idempotencyKey, "donations.create:" + request.getUserId(),
+                List.of(request), DonationDTO.class, () -> {
+                    DonationDTO response = donationService.createDonation(request.getUserId(), request);
+                    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+                });
+    }
+
+    /**
+     * Hold a spot of a slot while the donor fills in the booking form.
+     * The hold expires after a few minutes unless its ID is sent when creating the donation.
+     *
+     * @param request the user, blood bank, date and hour
+     * @return the hold with its expiration instant
+     */
+    @PostMapping("/holds")
+    public ResponseEntity<SlotHoldDTO> reserveSlot(@Valid @RequestBody ReserveSlotDTO request) {
+        SlotHoldDTO response = donationService.reserveSlot(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Cancel a hold before it expires.
+     *
+     * @param id the hold ID
+     * @param userId the user ID (owner of the hold)
+     * @return no content
+     */
+    @DeleteMapping("/holds/{id}")
+    public ResponseEntity<Void> cancelHold(@PathVariable String id, @RequestParam String userId) {
+        donationService.cancelHold(id, userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Join the waitlist of a full slot. When a spot is freed, the donation is created
+     * for the first donor on the waitlist, who is notified.
+     *
+     * @param request the user, blood bank, date and hour
+     * @return the waitlist entry with its position
+     */
+    @PostMapping("/waitlist")
+    public ResponseEntity<WaitlistEntryDTO> joinWaitlist(@Valid @RequestBody JoinWaitlistDTO request) {
+        WaitlistEntryDTO response = donationService.joinWaitlist(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /**
+     * Leave a waitlist.
+     *
+     * @param id the waitlist entry ID
+     * @param userId the user ID (owner of the entry)
+     * @return no content
+     */
+    @DeleteMapping("/waitlist/{id}")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable String id, @RequestParam String userId) {
+        donationService.leaveWaitlist(id, userId);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Get all donations for a specific user.
      *
@@ -48,21 +120,36 @@ public class DonationController {
     }
 
     /**
-     * Get all donations for a specific blood bank.
+     * Get one page of the donations of a specific blood bank, earliest appointment first.
+     * When there are more donations, the X-Next-Cursor header holds the cursor of the next page.
+     * Without limit nor cursor, every donation is returned at once.
      *
      * @param bloodBankId the ID of the blood bank
      * @param date optional filter by specific date (ISO format)
-     * @param status optional filter by status
-     * @return list of blood bank donations
+     * @param from optional filter: appointments on or after this date (ISO format)
+     * @param to optional filter: appointments on or before this date (ISO format)
+     * @param status optional filter by status, comma separated
+     * @param limit the page size (100 when only a cursor is sent)
+     * @param cursor the X-Next-Cursor value of the previous page, absent for the first page
+     * @return the page of blood bank donations
      */
     @GetMapping("/blood-bank/{bloodBankId}")
     public ResponseEntity<List<DonationDTO>> getBloodBankDonations(
             @PathVariable String bloodBankId,
             @RequestParam(required = false) String date,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
 
-        List<DonationDTO> donations = donationService.getBloodBankDonations(bloodBankId, date, status);
-        return ResponseEntity.ok(donations);
+        DonationPageDTO page = donationService.getBloodBankDonations(bloodBankId, date, from, to, status, limit, cursor);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getDonations());
     }
 
     /**
@@ -83,17 +170,20 @@ public class DonationController {
      * @param id the donation ID
      * @param userId the user ID (owner of the donation)
      * @param request optional cancellation reason
+     * @param idempotencyKey optional key identifying the request across retries
      * @return the updated donation
      */
     @PatchMapping("/{id}/cancel")
     public ResponseEntity<DonationDTO> cancelDonation(
             @PathVariable String id,
             @RequestParam String userId,
-            @RequestBody(required = false) CancelDonationDTO request) {
+            @RequestBody(required = false) CancelDonationDTO request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
         String reason = request != null ? request.getReason() : null;
-        DonationDTO response = donationService.cancelDonation(id, userId, reason);
-        return ResponseEntity.ok(response);
+        return idempotencyService.execute(idempotencyKey, "donations.cancel:" + id,
+                Arrays.asList(userId, reason), DonationDTO.class,
+                () -> ResponseEntity.ok(donationService.cancelDonation(id, userId, reason)));
     }
 
     /**
@@ -101,12 +191,18 @@ public class DonationController {
      *
      * @param id the donation ID
      * @param bloodBankId the blood bank ID
+     * @param idempotencyKey optional key identifying the request across retries
      * @return the updated donation
      */
     @PatchMapping("/{id}/confirm")
-    public ResponseEntity<DonationDTO> confirmDonation(@PathVariable String id, @RequestParam String bloodBankId) {
-        DonationDTO response = donationService.confirmDonation(id, bloodBankId);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<DonationDTO> confirmDonation(
+            @PathVariable String id,
+            @RequestParam String bloodBankId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+
+        return idempotencyService.execute(idempotencyKey, "donations.confirm:" + id,
+                List.of(bloodBankId), DonationDTO.class,
+                () -> ResponseEntity.ok(donationService.confirmDonation(id, bloodBankId)));
     }
 
     /**
@@ -115,17 +211,20 @@ public class DonationController {
      * @param id the donation ID
      * @param bloodBankId the blood bank ID
      * @param request optional notes
+     * @param idempotencyKey optional key identifying the request across retries
      * @return the updated donation
      */
     @PatchMapping("/{id}/complete")
     public ResponseEntity<DonationDTO> completeDonation(
             @PathVariable String id,
             @RequestParam String bloodBankId,
-            @RequestBody(required = false) CancelDonationDTO request) {
+            @RequestBody(required = false) CancelDonationDTO request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
         String notes = request != null ? request.getReason() : null;
-        DonationDTO response = donationService.completeDonation(id, bloodBankId, notes);
-        return ResponseEntity.ok(response);
+        return idempotencyService.execute(idempotencyKey, "donations.complete:" + id,
+                Arrays.asList(bloodBankId, notes), DonationDTO.class,
+                () -> ResponseEntity.ok(donationService.completeDonation(id, bloodBankId, notes)));
     }
 
     /**
@@ -144,6 +243,46 @@ public class DonationController {
         return ResponseEntity.ok(donations);
     }
 
+    /**
+     * Export the full donation history of a blood bank, streamed from the database as it is written.
+     * The response is gzip-compressed when the client accepts it. Only the blood bank itself may export it,
+     * as it holds the contacts of its donors.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param format csv or ndjson
+     * @param from optional filter: appointments on or after this date (ISO format)
+     * @param to optional filter: appointments on or before this date (ISO format)
+     * @param acceptEncoding the Accept-Encoding request header
+     * @return the donations, one per line
+     */
+    @GetMapping("/blood-bank/{bloodBankId}/export")
+    public ResponseEntity<StreamingResponseBody> exportBloodBankDonations(
+            @PathVariable String bloodBankId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CurrentUser.requireSelf(bloodBankId);
+
+        DonationExportService.Format exportFormat = DonationExportService.Format.parse(format);
+        DonationExportService.HistoryExport export = donationExportService.prepareHistory(bloodBankId, from, to);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        // the cursor is opened by the body itself, so it is never left open when the body does not run
+        StreamingResponseBody body = outputStream -> donationExportService.writeHistory(export, exportFormat, gzip, outputStream);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("doacoes-" + bloodBankId + "." + exportFormat.getExtension())
+                        .build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     /**
      * Get donation statistics for a blood bank.
      *
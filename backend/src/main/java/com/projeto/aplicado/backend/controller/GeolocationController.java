@@ -0,0 +1,54 @@
+package com.projeto.aplicado.backend.controller;
+
+import com.projeto.aplicado.backend.dto.geolocation.GeocodeCacheStatsDTO;
+import com.projeto.aplicado.backend.dto.geolocation.GeocodingCircuitDTO;
+import com.projeto.aplicado.backend.dto.geolocation.LocationLookupLatencyDTO;
+import com.projeto.aplicado.backend.service.BloodBankLocationMetrics;
+import com.projeto.aplicado.backend.service.GeocodeCacheService;
+import com.projeto.aplicado.backend.service.GeocodingCircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/geolocation")
+@RequiredArgsConstructor
+public class GeolocationController {
+    private final GeocodeCacheService geocodeCacheService;
+    private final BloodBankLocationMetrics bloodBankLocationMetrics;
+    private final GeocodingCircuitBreaker geocodingCircuitBreaker;
+
+    /**
+     * Gets the hit, miss and eviction counters of the geocode cache.
+     *
+     * @return the geocode cache statistics
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<GeocodeCacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(geocodeCacheService.getStats());
+    }
+
+    /**
+     * Gets the per blood bank latency of the location lookups done for the map.
+     *
+     * @return the lookup latencies, slowest first
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<List<LocationLookupLatencyDTO>> getLookupLatencies() {
+        return ResponseEntity.ok(bloodBankLocationMetrics.getLatencies());
+    }
+
+    /**
+     * Gets the state of the circuit breaker around the geocoding provider.
+     *
+     * @return the circuit state
+     */
+    @GetMapping("/circuit")
+    public ResponseEntity<GeocodingCircuitDTO> getCircuitStatus() {
+        return ResponseEntity.ok(geocodingCircuitBreaker.getStatus());
+    }
+}
@@ -0,0 +1,18 @@
+package com.projeto.aplicado.backend.dto.bloodbank;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilitySummaryDTO {
+    private String bloodBankId;
+    private String month; // "2025-11"
+    private Map<LocalDate, Integer> remainingByDay; // only days with published slots
+    private long version;
+}
@@ -0,0 +1,25 @@
+package com.projeto.aplicado.backend.dto.bloodbank;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityTemplateDTO {
+    private String id;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalTime startTime; // opening hour of the first slot
+    private LocalTime endTime; // the last slot ends at or before this hour
+    private Set<DayOfWeek> daysOfWeek; // MONDAY, TUESDAY...
+    private int slotMinutes;
+    private int spotsPerSlot;
+    private Set<LocalDate> excludedDates;
+}
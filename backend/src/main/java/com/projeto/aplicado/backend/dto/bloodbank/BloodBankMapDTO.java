@@ -10,4 +10,5 @@ public class BloodBankMapDTO {
     private String phone;
     private Double latitude;
     private Double longitude;
+    private boolean locationPending; // true when the lookup missed the request deadline or failed
 }
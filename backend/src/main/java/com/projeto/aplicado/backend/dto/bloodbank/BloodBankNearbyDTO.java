@@ -5,8 +5,11 @@ import lombok.Data;
 
 @Data
 public class BloodBankNearbyDTO {
+    private String id;
     private String name;
     private Address address;
     private String phone;
-    private Double distance;
+    private Double latitude;
+    private Double longitude;
+    private Double distance; // straight-line distance in kilometers
 }
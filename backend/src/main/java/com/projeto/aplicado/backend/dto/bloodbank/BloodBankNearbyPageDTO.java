@@ -0,0 +1,15 @@
+package com.projeto.aplicado.backend.dto.bloodbank;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BloodBankNearbyPageDTO {
+    private List<BloodBankNearbyDTO> bloodBanks;
+    private String nextCursor; // null on the last page
+}
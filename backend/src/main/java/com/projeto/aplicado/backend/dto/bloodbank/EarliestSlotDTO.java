@@ -0,0 +1,22 @@
+package com.projeto.aplicado.backend.dto.bloodbank;
+
+import com.projeto.aplicado.backend.model.Address;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EarliestSlotDTO {
+    private String bloodBankId;
+    private String bloodBankName;
+    private Address address;
+    private Double distance; // straight-line distance in kilometers
+    private LocalDate date;
+    private LocalTime time;
+    private Integer availableSpots;
+}
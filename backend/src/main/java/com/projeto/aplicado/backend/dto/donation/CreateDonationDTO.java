@@ -25,5 +25,6 @@ public class CreateDonationDTO {
     @NotNull(message = "Slot é obrigatório")
     @Min(value = 1, message = "Slot deve ser maior que 0")
     private Integer slot;
-}
 
+    private String holdId; // optional: confirms a hold created by POST /api/donations/holds
+}
@@ -0,0 +1,19 @@
+package com.projeto.aplicado.backend.dto.donation;
+
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of donations of a blood bank with a status and a blood type, as counted by an aggregation over the donations.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DonationCountDTO {
+    private Donation.DonationStatus status;
+    private BloodType bloodType;
+    private int count;
+}
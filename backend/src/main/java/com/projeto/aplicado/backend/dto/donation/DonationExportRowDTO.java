@@ -0,0 +1,36 @@
+package com.projeto.aplicado.backend.dto.donation;
+
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * One donation of a blood bank history export (CSV line or NDJSON object).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DonationExportRowDTO {
+    private String id;
+    private String userId;
+    private String donorName;
+    private String donorEmail;
+    private String donorPhone;
+    private LocalDate date;
+    private LocalTime hour;
+    private Instant appointmentAt;
+    private Integer slot;
+    private BloodType bloodType;
+    private Donation.DonationStatus status;
+    private String notes;
+    private String cancellationReason;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,15 @@
+package com.projeto.aplicado.backend.dto.donation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationPageDTO {
+    private List<DonationDTO> donations;
+    private String nextCursor; // null on the last page
+}
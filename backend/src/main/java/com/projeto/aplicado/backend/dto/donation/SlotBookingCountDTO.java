@@ -0,0 +1,19 @@
+package com.projeto.aplicado.backend.dto.donation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Number of active donations booked on a slot, as counted by an aggregation over the donations.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SlotBookingCountDTO {
+    private String bloodBankId;
+    private Instant appointmentAt;
+    private int count;
+}
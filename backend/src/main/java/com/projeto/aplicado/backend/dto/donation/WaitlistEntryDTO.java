@@ -0,0 +1,19 @@
+package com.projeto.aplicado.backend.dto.donation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WaitlistEntryDTO {
+    private String id;
+    private String bloodBankId;
+    private String date; // "YYYY-MM-DD"
+    private String hour; // "14:30"
+    private long position; // 1 = next to be served
+    private Instant joinedAt;
+}
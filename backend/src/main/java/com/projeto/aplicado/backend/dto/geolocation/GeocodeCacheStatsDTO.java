@@ -0,0 +1,18 @@
+package com.projeto.aplicado.backend.dto.geolocation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeocodeCacheStatsDTO {
+    private long memoryHits;
+    private long persistentHits;
+    private long misses;
+    private long evictions;
+    private int memorySize;
+    private int maxMemoryEntries;
+    private double hitRatio;
+}
@@ -0,0 +1,16 @@
+package com.projeto.aplicado.backend.dto.geolocation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeocodingCircuitDTO {
+    private String state;
+    private int consecutiveFailures;
+    private Instant openedAt;
+}
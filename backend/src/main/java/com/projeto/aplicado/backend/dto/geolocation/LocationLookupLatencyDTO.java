@@ -0,0 +1,17 @@
+package com.projeto.aplicado.backend.dto.geolocation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationLookupLatencyDTO {
+    private String bloodBankId;
+    private long lookups;
+    private long timeouts;
+    private double averageMillis;
+    private double maxMillis;
+    private double lastMillis;
+}
@@ -0,0 +1,16 @@
+package com.projeto.aplicado.backend.dto.user;
+
+import com.projeto.aplicado.backend.model.Address;
+import lombok.Data;
+
+/**
+ * Contact fields of a user, blood bank or partner, read with a projection of the {@code users} collection.
+ */
+@Data
+public class UserContactDTO {
+    private String id;
+    private String name;
+    private String phone;
+    private String email;
+    private Address address;
+}
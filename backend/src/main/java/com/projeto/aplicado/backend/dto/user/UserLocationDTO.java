@@ -10,4 +10,5 @@ public class UserLocationDTO {
     private String phone;
     private Double latitude;
     private Double longitude;
+    private boolean locationPending; // true while the address is still being geocoded
 }
@@ -1,5 +1,6 @@
 package com.projeto.aplicado.backend.exception;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -39,6 +40,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
     }
 
+    @ExceptionHandler(ForbiddenException.class)
+    public ResponseEntity<ErrorResponse> handleForbiddenException(ForbiddenException ex) {
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.FORBIDDEN.value(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+    }
+
     @ExceptionHandler(LocationException.class)
     public ResponseEntity<ErrorResponse> handleLocationException(LocationException ex) {
         ErrorResponse error = new ErrorResponse(
@@ -49,8 +60,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(IdempotencyException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyException(IdempotencyException ex) {
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                ex.getStatus().value(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(ex.getStatus()).body(error);
+    }
+
     @ExceptionHandler(Exception.class) // fallback for unhandled exceptions
-    public ResponseEntity<ErrorResponse> handleGeneric(Exception ex) {
+    public ResponseEntity<ErrorResponse> handleGeneric(Exception ex, HttpServletResponse response) throws Exception {
+        if (response.isCommitted()) {
+            // e.g. a streamed body failing midway: rethrown so the container aborts the connection
+            throw ex;
+        }
         ErrorResponse error = new ErrorResponse(
                 "Unexpected error: " + ex.getMessage(),
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
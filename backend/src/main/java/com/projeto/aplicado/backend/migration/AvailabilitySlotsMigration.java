@@ -0,0 +1,132 @@
+package com.projeto.aplicado.backend.migration;
+
+import com.projeto.aplicado.backend.model.DailyAvailability;
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.Slot;
+import com.projeto.aplicado.backend.model.enums.Role;
+import com.projeto.aplicado.backend.model.users.BloodBank;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the availability embedded in the blood bank documents ({@code availabilitySlots})
+ * to the {@code availability_slots} collection, then removes the embedded field. <br>
+ * Runs once the beans are created, before the web server accepts requests: until then a blood bank
+ * saved through {@code BloodBankService}, which no longer maps {@code availabilitySlots}, would lose its
+ * embedded availability before it is moved. Each bank is migrated with idempotent upserts
+ * followed by the removal of its embedded field, so an interrupted run can safely be repeated.
+ * Slots published twice for the same date and time are merged.
+ */
+@Component
+@RequiredArgsConstructor
+public class AvailabilitySlotsMigration implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilitySlotsMigration.class);
+    private static final String EMBEDDED_FIELD = "availabilitySlots";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Blood bank document as stored before the migration, reading only the embedded availability.
+     */
+    @Data
+    static class LegacyAvailability {
+        @Id
+        private String id;
+        private List<DailyAvailability> availabilitySlots;
+    }
+
+    private record SlotKey(LocalDate date, LocalTime time) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Query query = Query.query(Criteria.where("role").is(Role.BLOODBANK.name()).and(EMBEDDED_FIELD).exists(true));
+        query.fields().include("id", EMBEDDED_FIELD);
+
+        String collection = mongoTemplate.getCollectionName(BloodBank.class);
+        List<LegacyAvailability> bloodBanks = mongoTemplate.find(query, LegacyAvailability.class, collection);
+        if (bloodBanks.isEmpty()) {
+            return;
+        }
+
+        int migratedSlots = 0;
+        for (LegacyAvailability bloodBank : bloodBanks) {
+            Map<SlotKey, PublishedSlot> merged = merge(bloodBank);
+
+            if (!merged.isEmpty()) {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PublishedSlot.class);
+                for (PublishedSlot slot : merged.values()) {
+                    bulk.upsert(
+                            Query.query(Criteria.where("bloodBankId").is(slot.getBloodBankId())
+                                    .and("date").is(slot.getDate())
+                                    .and("time").is(slot.getTime())),
+                            new Update()
+                                    .set("totalSpots", slot.getTotalSpots())
+                                    .set("bookedSpots", slot.getBookedSpots())
+                                    .set("availableSpots", slot.getAvailableSpots()));
+                }
+                bulk.execute();
+                migratedSlots += merged.size();
+            }
+
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("id").is(bloodBank.getId())),
+                    new Update().unset(EMBEDDED_FIELD),
+                    collection);
+        }
+
+        logger.info("Availability migration finished: {} slots from {} blood banks moved to availability_slots.",
+                migratedSlots, bloodBanks.size());
+    }
+
+    private static Map<SlotKey, PublishedSlot> merge(LegacyAvailability bloodBank) {
+        Map<SlotKey, PublishedSlot> merged = new LinkedHashMap<>();
+        if (bloodBank.getAvailabilitySlots() == null) {
+            return merged;
+        }
+
+        for (DailyAvailability daily : bloodBank.getAvailabilitySlots()) {
+            if (daily.getDate() == null || daily.getSlots() == null) {
+                continue;
+            }
+
+            for (Slot slot : daily.getSlots()) {
+                if (slot.getTime() == null) {
+                    continue;
+                }
+
+                int available = slot.getAvailableSpots() != null ? slot.getAvailableSpots() : 0;
+                int total = slot.getTotalSpots() != null ? slot.getTotalSpots() : available;
+                int booked = slot.getBookedSpots() != null ? slot.getBookedSpots() : Math.max(0, total - available);
+
+                PublishedSlot target = merged.computeIfAbsent(new SlotKey(daily.getDate(), slot.getTime()), key -> {
+                    PublishedSlot created = new PublishedSlot();
+                    created.setBloodBankId(bloodBank.getId());
+                    created.setDate(key.date());
+                    created.setTime(key.time());
+                    return created;
+                });
+                target.setTotalSpots(target.getTotalSpots() + total);
+                target.setBookedSpots(target.getBookedSpots() + booked);
+                target.setAvailableSpots(target.getAvailableSpots() + available);
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,66 @@
+package com.projeto.aplicado.backend.migration;
+
+import com.mongodb.client.result.UpdateResult;
+import com.projeto.aplicado.backend.model.users.BloodBank;
+import com.projeto.aplicado.backend.repository.BloodBankRepository;
+import com.projeto.aplicado.backend.service.BloodBankSpatialIndex;
+import com.projeto.aplicado.backend.service.GeolocationService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Geocodes, in the background, the blood banks created before the {@code location} field existed,
+ * so they show up in the nearby search.
+ */
+@Component
+@RequiredArgsConstructor
+public class BloodBankLocationBackfill implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(BloodBankLocationBackfill.class);
+
+    private final BloodBankRepository bloodBankRepository;
+    private final MongoTemplate mongoTemplate;
+    private final GeolocationService geolocationService;
+    private final BloodBankSpatialIndex bloodBankSpatialIndex;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread.ofVirtual().name("bloodbank-location-backfill").start(this::backfill);
+    }
+
+    private void backfill() {
+        try {
+            List<BloodBank> bloodBanks = bloodBankRepository.findBloodBanksWithoutLocation();
+            int located = 0;
+
+            for (BloodBank bloodBank : bloodBanks) {
+                var location = geolocationService.locate(bloodBank.getAddress());
+                if (location.isPresent()) {
+                    // targeted write: a full save of this copy would revert changes made since it was read
+                    UpdateResult result = mongoTemplate.updateFirst(
+                            Query.query(Criteria.where("id").is(bloodBank.getId()).and("location").is(null)),
+                            Update.update("location", location.get()),
+                            BloodBank.class);
+                    if (result.getModifiedCount() > 0) {
+                        bloodBank.setLocation(location.get());
+                        bloodBankSpatialIndex.put(bloodBank);
+                        located++;
+                    }
+                }
+            }
+
+            logger.info("Blood bank location backfill finished: {}/{} located.", located, bloodBanks.size());
+        } catch (Exception e) {
+            logger.error("Blood bank location backfill failed", e);
+        }
+    }
+}
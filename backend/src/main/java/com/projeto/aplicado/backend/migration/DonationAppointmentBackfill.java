@@ -0,0 +1,141 @@
+package com.projeto.aplicado.backend.migration;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.projeto.aplicado.backend.model.Donation;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fills the typed appointment fields ({@code appointmentDate}, {@code appointmentTime} and
+ * {@code appointmentAt}) of the donations created before they existed, from the {@code date} and
+ * {@code hour} strings, then drops the indexes on those strings. <br>
+ * Runs at startup, before the slot inventory counts the bookings. Donations are read in batches ordered
+ * by ID (only {@code _id}, {@code date} and {@code hour}) and each update only applies while the typed
+ * fields are still missing, so donations saved concurrently are not overwritten and an interrupted run
+ * can safely be repeated.<br>
+ * A donation that cannot be filled (invalid date or hour, or a second active donation of the user on the
+ * same day) has no {@code appointmentAt} and is left out of every range query: it is logged, counted and
+ * flagged with {@code appointmentBackfillError} for a manual fix, and skipped by later runs.
+ */
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class DonationAppointmentBackfill implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(DonationAppointmentBackfill.class);
+    private static final int BATCH_SIZE = 500;
+    private static final String ERROR_FIELD = "appointmentBackfillError";
+    private static final Set<String> LEGACY_INDEXES = Set.of("date", "bloodbank_date_hour", "user_date_status");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String lastId = null;
+        int scanned = 0;
+        int filled = 0;
+        int flagged = 0;
+
+        while (true) {
+            Criteria criteria = Criteria.where("appointmentAt").exists(false).and(ERROR_FIELD).exists(false);
+            if (lastId != null) {
+                criteria.and("id").gt(lastId);
+            }
+
+            Query query = new Query(criteria).with(Sort.by("id")).limit(BATCH_SIZE);
+            query.fields().include("id", "date", "hour");
+
+            List<Donation> donations = mongoTemplate.find(query, Donation.class);
+            if (donations.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Donation.class);
+            List<String> updatedIds = new ArrayList<>();
+            for (Donation donation : donations) {
+                try {
+                    LocalDate date = LocalDate.parse(donation.getDate().substring(0, 10));
+                    LocalTime time = LocalTime.parse(donation.getHour());
+                    bulk.updateOne(
+                            Query.query(Criteria.where("id").is(donation.getId()).and("appointmentAt").exists(false)),
+                            new Update()
+                                    .set("appointmentDate", date)
+                                    .set("appointmentTime", time)
+                                    .set("appointmentAt", Donation.appointmentAt(date, time)));
+                    updatedIds.add(donation.getId());
+                } catch (DateTimeParseException | NullPointerException | IndexOutOfBoundsException e) {
+                    logger.warn("Donation {} has an invalid date '{}' or hour '{}', not backfilled.",
+                            donation.getId(), donation.getDate(), donation.getHour());
+                    flag(donation.getId(), "invalid date or hour");
+                    flagged++;
+                }
+            }
+
+            if (!updatedIds.isEmpty()) {
+                try {
+                    filled += bulk.execute().getModifiedCount();
+                } catch (BulkOperationException e) {
+                    filled += e.getResult().getModifiedCount();
+                    for (BulkWriteError error : e.getErrors()) {
+                        // e.g. two active donations of a user on the same day, rejected by the user_day_status index
+                        String id = updatedIds.get(error.getIndex());
+                        logger.warn("Donation {} could not be backfilled: {}", id, error.getMessage());
+                        flag(id, error.getCategory() == ErrorCategory.DUPLICATE_KEY
+                                ? "another active donation of the user on the same day"
+                                : error.getMessage());
+                        flagged++;
+                    }
+                }
+            }
+
+            scanned += donations.size();
+            lastId = donations.get(donations.size() - 1).getId();
+        }
+
+        if (flagged > 0) {
+            logger.warn("Donation appointment backfill finished: {}/{} filled, {} flagged with {}.",
+                    filled, scanned, flagged, ERROR_FIELD);
+        } else if (scanned > 0) {
+            logger.info("Donation appointment backfill finished: {}/{} filled.", filled, scanned);
+        }
+        dropLegacyIndexes();
+    }
+
+    private void flag(String donationId, String error) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(donationId).and("appointmentAt").exists(false)),
+                new Update().set(ERROR_FIELD, error),
+                Donation.class);
+    }
+
+    private void dropLegacyIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Donation.class);
+        for (IndexInfo index : indexOps.getIndexInfo()) {
+            if (LEGACY_INDEXES.contains(index.getName())) {
+                indexOps.dropIndex(index.getName());
+                logger.info("Dropped the legacy donation index '{}'.", index.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.projeto.aplicado.backend.migration;
+
+import com.projeto.aplicado.backend.model.MigrationProgress;
+import com.projeto.aplicado.backend.model.enums.Role;
+import com.projeto.aplicado.backend.model.users.User;
+import com.projeto.aplicado.backend.service.GeocodingWorker;
+import com.projeto.aplicado.backend.service.GeolocationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Geocodes, in the background, the donors without a {@code location} (created before the field existed,
+ * or whose address could not be located when saved), so blood banks can reach them by distance. <br>
+ * Donors are read in batches ordered by ID (only {@code _id} and {@code address}), and only the
+ * {@code location} field is written back, so concurrent profile updates are not overwritten.
+ * The last donor processed is stored in {@code migration_progress}, so a restart resumes after it
+ * instead of looking up every donor again. <br>
+ * Lookups share the geocoding rate limit with the requests of the users, so the backfill yields to them:
+ * it waits {@code geocoding.backfill.interval-ms} between donors, and longer while other lookups are running.
+ */
+@Component
+public class DonorLocationBackfill implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(DonorLocationBackfill.class);
+    private static final String MIGRATION_ID = "donor-location-backfill";
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final GeolocationService geolocationService;
+    private final GeocodingWorker geocodingWorker;
+    private final long intervalMs;
+
+    public DonorLocationBackfill(MongoTemplate mongoTemplate,
+                                 GeolocationService geolocationService,
+                                 GeocodingWorker geocodingWorker,
+                                 @Value("${geocoding.backfill.interval-ms:5000}") long intervalMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.geolocationService = geolocationService;
+        this.geocodingWorker = geocodingWorker;
+        this.intervalMs = intervalMs;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread.ofVirtual().name("donor-location-backfill").start(this::backfill);
+    }
+
+    private void backfill() {
+        try {
+            MigrationProgress progress = mongoTemplate.findById(MIGRATION_ID, MigrationProgress.class);
+            String lastId = progress != null ? progress.getLastId() : null;
+            int scanned = 0;
+            int located = 0;
+
+            while (true) {
+                Criteria criteria = Criteria.where("role").is(Role.USER.name()).and("location").is(null);
+                if (lastId != null) {
+                    criteria.and("id").gt(lastId);
+                }
+
+                Query query = new Query(criteria).with(Sort.by("id")).limit(BATCH_SIZE);
+                query.fields().include("id", "address");
+
+                List<User> donors = mongoTemplate.find(query, User.class);
+                if (donors.isEmpty()) {
+                    break;
+                }
+
+                for (User donor : donors) {
+                    awaitTurn();
+
+                    Optional<GeoJsonPoint> location = geolocationService.locate(donor.getAddress());
+                    if (location.isPresent()) {
+                        mongoTemplate.updateFirst(
+                                Query.query(Criteria.where("id").is(donor.getId()).and("location").is(null)),
+                                Update.update("location", location.get()),
+                                User.class);
+                        located++;
+                    }
+
+                    lastId = donor.getId();
+                    saveProgress(lastId);
+                    scanned++;
+                }
+            }
+
+            if (scanned > 0) {
+                logger.info("Donor location backfill finished: {}/{} located.", located, scanned);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Donor location backfill failed", e);
+        }
+    }
+
+    /**
+     * Waits for the backfill interval, then for as long as lookups of other callers are running.
+     */
+    private void awaitTurn() throws InterruptedException {
+        do {
+            Thread.sleep(intervalMs);
+        } while (geocodingWorker.inFlightCount() > 0);
+    }
+
+    private void saveProgress(String lastId) {
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("id").is(MIGRATION_ID)),
+                new Update().set("lastId", lastId).set("updatedAt", Instant.now()),
+                MigrationProgress.class);
+    }
+}
@@ -0,0 +1,80 @@
+package com.projeto.aplicado.backend.migration;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes declared on the documents ({@code @Indexed}, {@code @CompoundIndex},
+ * {@code @GeoSpatialIndexed}) once the beans are created, before the web server accepts requests.
+ * The queries of the application rely on them (TTL, unique and partial indexes included), so they
+ * are created here instead of depending on {@code spring.data.mongodb.auto-index-creation}.
+ * Creating an index that already exists is a no-op; an index that cannot be created (e.g. a unique
+ * index over duplicated data) is logged and skipped. Indexes no longer declared are listed in
+ * {@link #OBSOLETE_INDEXES} and dropped, as no write should keep paying for them.
+ */
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    /**
+     * Indexes created by earlier versions, by collection. {@code location_2dsphere} duplicated the
+     * {@code donor_targeting} index of users: every write paid for both, and {@code $geoNear} refuses
+     * a collection with more than one 2dsphere index.
+     */
+    private static final Map<String, List<String>> OBSOLETE_INDEXES = Map.of(
+            "users", List.of("location_2dsphere"));
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            for (IndexDefinition index : resolver.resolveIndexFor(entity.getType())) {
+                try {
+                    indexOps.ensureIndex(index);
+                } catch (DataAccessException e) {
+                    logger.error("Could not create the index {} of '{}': {}",
+                            index.getIndexKeys(), entity.getCollection(), e.getMessage());
+                }
+            }
+        }
+
+        OBSOLETE_INDEXES.forEach((collection, names) -> {
+            IndexOperations indexOps = mongoTemplate.indexOps(collection);
+            for (IndexInfo index : indexOps.getIndexInfo()) {
+                if (names.contains(index.getName())) {
+                    try {
+                        indexOps.dropIndex(index.getName());
+                        logger.info("Dropped the obsolete index {} of '{}'.", index.getName(), collection);
+                    } catch (DataAccessException e) {
+                        logger.error("Could not drop the index {} of '{}': {}", index.getName(), collection, e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+}
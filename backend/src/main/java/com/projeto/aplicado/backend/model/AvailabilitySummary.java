@@ -0,0 +1,48 @@
+package com.projeto.aplicado.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remaining spots of each day of a month for a blood bank, read by the booking calendar.<br>
+ * The document ID is {@code <bloodBankId>:<yyyy-MM>} and the days are keyed by their two-digit day of month.
+ * Bookings update it with {@code $inc}; publications and templates mark it stale, and a stale summary is
+ * rebuilt on its next read. The version only grows, and is used as the ETag of the summary.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "availability_summaries")
+public class AvailabilitySummary {
+
+    @Id
+    private String id;
+
+    private String bloodBankId;
+
+    private String month; // "2025-11"
+
+    private Map<String, Integer> remainingByDay = new HashMap<>(); // "03" -> 12
+
+    private boolean stale;
+
+    private long version;
+
+    private Instant updatedAt;
+
+    public static String idOf(String bloodBankId, YearMonth month) {
+        return bloodBankId + ":" + month;
+    }
+
+    public static String dayKey(int dayOfMonth) {
+        return dayOfMonth < 10 ? "0" + dayOfMonth : String.valueOf(dayOfMonth);
+    }
+}
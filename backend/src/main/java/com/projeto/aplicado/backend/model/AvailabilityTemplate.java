@@ -0,0 +1,45 @@
+package com.projeto.aplicado.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Weekly recurring availability of a blood bank: between the dates and hours of {@code period}, on the
+ * given days of the week, one slot every {@code slotMinutes} with {@code spotsPerSlot} spots.<br>
+ * Slots are expanded from the template when read. A slot is only stored in {@link PublishedSlot} once it
+ * is booked or published by hand, and days cancelled by the blood bank are kept in {@code excludedDates}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "availability_templates")
+public class AvailabilityTemplate {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String bloodBankId;
+
+    private AvailabilitySlot period;
+
+    private Set<DayOfWeek> daysOfWeek = new HashSet<>();
+
+    private int slotMinutes;
+
+    private int spotsPerSlot;
+
+    private Set<LocalDate> excludedDates = new HashSet<>();
+
+    private Instant createdAt;
+}
@@ -10,19 +10,30 @@ import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "donations")
 @CompoundIndexes({
-        @CompoundIndex(name = "bloodbank_date_hour", def = "{'bloodBankId': 1, 'date': 1, 'hour': 1}"),
-        @CompoundIndex(name = "user_date_status", def = "{'userId': 1, 'date': 1, 'status': 1}", unique = true,
-                partialFilter = "{ 'status': { '$in': ['PENDING', 'CONFIRMED'] } }")
+        @CompoundIndex(name = "bloodbank_appointment_status", def = "{'bloodBankId': 1, 'appointmentAt': 1, 'status': 1}"),
+        @CompoundIndex(name = "bloodbank_appointment_id", def = "{'bloodBankId': 1, 'appointmentAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "user_appointment", def = "{'userId': 1, 'appointmentAt': -1}"),
+        @CompoundIndex(name = "user_day_status", def = "{'userId': 1, 'appointmentDate': 1, 'status': 1}", unique = true,
+                partialFilter = "{ 'status': { '$in': ['PENDING', 'CONFIRMED'] }, 'appointmentDate': { '$exists': true } }")
 })
 public class Donation {
 
+    /**
+     * Time zone of the appointments, used to turn a day and an hour into {@link #appointmentAt}.
+     */
+    public static final ZoneId ZONE = ZoneId.of("America/Sao_Paulo");
+
     @Id
     private String id;
 
@@ -32,10 +43,17 @@ public class Donation {
     @Indexed
     private String bloodBankId;
 
-    @Indexed
-    private String date; // ISO String format: "2025-10-30T00:00:00.000Z"
+    private String date; // as sent by the client, ISO String format: "2025-10-30T00:00:00.000Z"
+
+    private String hour; // as sent by the client, format: "14:30"
+
+    private LocalDate appointmentDate; // day of the appointment, queries use the typed fields below
 
-    private String hour; // Formato: "14:30"
+    private LocalTime appointmentTime;
+
+    private Instant appointmentAt; // appointmentDate + appointmentTime in the ZONE time zone
+
+    private String appointmentBackfillError; // why the typed appointment fields could not be filled from date and hour
 
     private Integer slot;
 
@@ -59,4 +77,31 @@ public class Donation {
         CANCELLED,
         NO_SHOW
     }
+
+    /**
+     * Sets the typed appointment fields.
+     */
+    public void setAppointment(LocalDate date, LocalTime time) {
+        this.appointmentDate = date;
+        this.appointmentTime = time;
+        this.appointmentAt = appointmentAt(date, time);
+    }
+
+    public SlotKey slotKey() {
+        return new SlotKey(bloodBankId, appointmentDate, appointmentTime);
+    }
+
+    /**
+     * @return the instant of an appointment on the given day and time
+     */
+    public static Instant appointmentAt(LocalDate date, LocalTime time) {
+        return date.atTime(time).atZone(ZONE).toInstant();
+    }
+
+    /**
+     * @return the instant the given day starts
+     */
+    public static Instant startOf(LocalDate date) {
+        return date.atStartOfDay(ZONE).toInstant();
+    }
 }
@@ -0,0 +1,37 @@
+package com.projeto.aplicado.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Donation counters of a blood bank, read by its statistics screen.<br>
+ * The document ID is the blood bank ID. Status transitions update it with {@code $inc}; a missing or stale
+ * document is rebuilt from the donations on its next read. The version grows on every change, so a rebuild
+ * only replaces the counters if no transition happened while it was counting.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "donation_stats")
+public class DonationStats {
+
+    @Id
+    private String id; // the blood bank ID
+
+    private Map<String, Integer> byStatus = new HashMap<>(); // "PENDING" -> 12
+
+    private Map<String, Integer> completedByBloodType = new HashMap<>(); // "O_NEGATIVE" -> 3
+
+    private boolean stale;
+
+    private long version;
+
+    private Instant updatedAt;
+}
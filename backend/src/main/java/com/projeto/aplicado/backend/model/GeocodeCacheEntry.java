@@ -0,0 +1,31 @@
+package com.projeto.aplicado.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "geocode_cache")
+public class GeocodeCacheEntry {
+
+    @Id
+    private String id; // normalized address, e.g. "rua sao jose 120, campinas"
+
+    private double latitude;
+
+    private double longitude;
+
+    private boolean notFound; // negative entry: the provider has no result for this address
+
+    private Instant resolvedAt;
+
+    @Indexed(name = "geocode_cache_ttl", expireAfter = "0s")
+    private Instant expireAt; // removed by mongo once reached, forcing a fresh lookup
+}
@@ -0,0 +1,43 @@
+package com.projeto.aplicado.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A request made with an {@code Idempotency-Key} header, and its response once completed.
+ * The ID is the scope of the request followed by the key. Mongo removes the record after {@code expireAt}.<br>
+ * While the request runs, the record is leased to it until {@code leaseUntil}: a retry arriving after that
+ * takes the key over with a new {@code leaseId}, and only the holder of the current lease stores the response.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    @Id
+    private String id;
+
+    private String requestHash;
+
+    private boolean completed;
+
+    private int status;
+
+    private String responseBody; // JSON
+
+    private String leaseId;
+
+    private Instant leaseUntil;
+
+    private Instant createdAt;
+
+    @Indexed(expireAfter = "0s")
+    private Instant expireAt;
+}
@@ -0,0 +1,26 @@
+package com.projeto.aplicado.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * How far a background migration went, so a restart resumes it instead of starting over.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "migration_progress")
+public class MigrationProgress {
+
+    @Id
+    private String id; // the migration name
+
+    private String lastId; // ID of the last document processed, migrations walk their collection in ID order
+
+    private Instant updatedAt;
+}
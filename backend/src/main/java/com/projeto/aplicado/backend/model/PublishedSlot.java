@@ -0,0 +1,44 @@
+package com.projeto.aplicado.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A donation time slot published by a blood bank: one document per (bloodBankId, date, time).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "availability_slots")
+@CompoundIndexes({
+        @CompoundIndex(name = "bloodbank_date_time", def = "{'bloodBankId': 1, 'date': 1, 'time': 1}", unique = true),
+        // earliest open slots of each blood bank: only slots with spots left are indexed, and the
+        // availableSpots key makes the lookup covered
+        @CompoundIndex(name = "open_slots", def = "{'bloodBankId': 1, 'date': 1, 'time': 1, 'availableSpots': 1}",
+                partialFilter = "{ 'availableSpots': { '$gt': 0 } }")
+})
+public class PublishedSlot {
+
+    @Id
+    private String id;
+
+    private String bloodBankId;
+
+    private LocalDate date;
+
+    private LocalTime time;
+
+    private int totalSpots;
+
+    private int bookedSpots;
+
+    private int availableSpots;
+}
@@ -0,0 +1,46 @@
+package com.projeto.aplicado.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A spot of a published slot held for a donor while they fill in the booking form.
+ * The spot is taken when the hold is created and given back when it expires, unless the hold is
+ * confirmed into a donation first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "slot_holds")
+@CompoundIndex(name = "user_slot", def = "{'userId': 1, 'bloodBankId': 1, 'date': 1, 'time': 1}")
+public class SlotHold {
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    private String bloodBankId;
+
+    private LocalDate date;
+
+    private LocalTime time;
+
+    private Instant createdAt;
+
+    @Indexed
+    private Instant expiresAt;
+
+    public SlotKey slotKey() {
+        return new SlotKey(bloodBankId, date, time);
+    }
+}
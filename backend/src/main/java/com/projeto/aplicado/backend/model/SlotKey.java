@@ -0,0 +1,14 @@
+package com.projeto.aplicado.backend.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Identifies a published slot: a blood bank, a day and a time.
+ */
+public record SlotKey(String bloodBankId, LocalDate date, LocalTime time) {
+
+    public static SlotKey of(PublishedSlot slot) {
+        return new SlotKey(slot.getBloodBankId(), slot.getDate(), slot.getTime());
+    }
+}
@@ -0,0 +1,48 @@
+package com.projeto.aplicado.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A donor waiting for a spot of a full slot. Entries of a slot are served in the order they joined.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "slot_waitlist")
+@CompoundIndexes({
+        @CompoundIndex(name = "slot_joined", def = "{'bloodBankId': 1, 'date': 1, 'time': 1, 'joinedAt': 1}"),
+        @CompoundIndex(name = "user_slot", def = "{'userId': 1, 'bloodBankId': 1, 'date': 1, 'time': 1}", unique = true)
+})
+public class WaitlistEntry {
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    private String bloodBankId;
+
+    private LocalDate date;
+
+    private LocalTime time;
+
+    private String donationDate; // date as sent when joining (ISO String), used for the donation
+
+    private Integer slot;
+
+    private Instant joinedAt;
+
+    public SlotKey slotKey() {
+        return new SlotKey(bloodBankId, date, time);
+    }
+}
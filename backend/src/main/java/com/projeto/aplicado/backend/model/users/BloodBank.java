@@ -18,5 +18,4 @@ public class BloodBank extends UserBase {
     private String cnpj;
     private List<Campaign> campaigns = new ArrayList<>();
     private Integer scheduledDonations;
-    private List<DailyAvailability> availabilitySlots;
 }
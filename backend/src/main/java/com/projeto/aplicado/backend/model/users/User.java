@@ -9,6 +9,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -17,6 +18,7 @@ import java.util.List;
 
 @Document(collection = "users")
 @TypeAlias("User")
+@CompoundIndex(name = "donor_targeting", def = "{ 'role': 1, 'location': '2dsphere', 'bloodType': 1, 'lastDonationDate': 1 }")
 @EqualsAndHashCode(callSuper = true)
 @Data @NoArgsConstructor @AllArgsConstructor
 public class User extends UserBase {
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -23,4 +24,8 @@ public abstract class UserBase {
     private String phone;
     private LocalDate registrationDate;
     private Role role; // "USER", "PARTNER" and "BLOODBANK"
+
+    // geocoded from the address on create/update, x = longitude, y = latitude; indexed by the
+    // donor_targeting index of User, the only 2dsphere index of the collection
+    private GeoJsonPoint location;
 }
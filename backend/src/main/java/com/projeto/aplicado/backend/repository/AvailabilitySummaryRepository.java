@@ -0,0 +1,9 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.AvailabilitySummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AvailabilitySummaryRepository extends MongoRepository<AvailabilitySummary, String>, AvailabilitySummaryRepositoryCustom {
+}
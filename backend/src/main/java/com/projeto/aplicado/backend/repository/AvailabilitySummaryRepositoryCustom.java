@@ -0,0 +1,39 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.AvailabilitySummary;
+import com.projeto.aplicado.backend.model.SlotKey;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Incremental updates of the monthly availability summaries. Summaries are never created by these updates:
+ * a missing summary is built on its first read.
+ */
+public interface AvailabilitySummaryRepositoryCustom {
+
+    /**
+     * Subtracts booking changes from the remaining spots of their days, in one bulk write.
+     *
+     * @param bookedDeltas the change of booked spots by slot (negative for releases)
+     */
+    void applyBookings(Map<SlotKey, Integer> bookedDeltas);
+
+    /**
+     * Marks the summaries of some months of a blood bank as stale.
+     */
+    void markStale(String bloodBankId, Collection<YearMonth> months);
+
+    /**
+     * Marks every summary of a blood bank as stale.
+     */
+    void markAllStale(String bloodBankId);
+
+    /**
+     * Replaces the days of a summary, creating it if needed, and clears its stale flag.
+     *
+     * @return the summary with its new version
+     */
+    AvailabilitySummary replace(String bloodBankId, YearMonth month, Map<String, Integer> remainingByDay);
+}
@@ -0,0 +1,77 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.AvailabilitySummary;
+import com.projeto.aplicado.backend.model.SlotKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class AvailabilitySummaryRepositoryCustomImpl implements AvailabilitySummaryRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void applyBookings(Map<SlotKey, Integer> bookedDeltas) {
+        Map<String, Update> updates = new HashMap<>();
+        for (Map.Entry<SlotKey, Integer> entry : bookedDeltas.entrySet()) {
+            if (entry.getValue() == 0) {
+                continue;
+            }
+            SlotKey key = entry.getKey();
+            String id = AvailabilitySummary.idOf(key.bloodBankId(), YearMonth.from(key.date()));
+            updates.computeIfAbsent(id, k -> new Update().inc("version", 1).set("updatedAt", Instant.now()))
+                    .inc("remainingByDay." + AvailabilitySummary.dayKey(key.date().getDayOfMonth()), -entry.getValue());
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AvailabilitySummary.class);
+        updates.forEach((id, update) -> bulk.updateOne(Query.query(Criteria.where("id").is(id)), update));
+        bulk.execute();
+    }
+
+    @Override
+    public void markStale(String bloodBankId, Collection<YearMonth> months) {
+        if (months.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("id").in(months.stream().map(m -> AvailabilitySummary.idOf(bloodBankId, m)).toList())),
+                new Update().set("stale", true).inc("version", 1),
+                AvailabilitySummary.class);
+    }
+
+    @Override
+    public void markAllStale(String bloodBankId) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("bloodBankId").is(bloodBankId)),
+                new Update().set("stale", true).inc("version", 1),
+                AvailabilitySummary.class);
+    }
+
+    @Override
+    public AvailabilitySummary replace(String bloodBankId, YearMonth month, Map<String, Integer> remainingByDay) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(AvailabilitySummary.idOf(bloodBankId, month))),
+                new Update()
+                        .set("bloodBankId", bloodBankId)
+                        .set("month", month.toString())
+                        .set("remainingByDay", remainingByDay)
+                        .set("stale", false)
+                        .set("updatedAt", Instant.now())
+                        .inc("version", 1),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                AvailabilitySummary.class);
+    }
+}
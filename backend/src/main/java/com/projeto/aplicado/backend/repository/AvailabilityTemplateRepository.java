@@ -0,0 +1,53 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.AvailabilityTemplate;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AvailabilityTemplateRepository extends MongoRepository<AvailabilityTemplate, String> {
+
+    /**
+     * Retrieves every template of a blood bank.
+     */
+    List<AvailabilityTemplate> findByBloodBankId(String bloodBankId);
+
+    /**
+     * Retrieves the templates of a blood bank whose period ends on or after the given date.
+     */
+    @Query("{ 'bloodBankId': ?0, 'period.endDate': { $gte: ?1 } }")
+    List<AvailabilityTemplate> findActiveByBloodBankId(String bloodBankId, LocalDate from);
+
+    /**
+     * Retrieves the templates of several blood banks whose period ends on or after the given date.
+     */
+    @Query("{ 'bloodBankId': { $in: ?0 }, 'period.endDate': { $gte: ?1 } }")
+    List<AvailabilityTemplate> findActiveByBloodBankIdIn(Collection<String> bloodBankIds, LocalDate from);
+
+    /**
+     * Retrieves the templates of every blood bank whose period ends on or after the given date.
+     */
+    @Query(value = "{ 'period.endDate': { $gte: ?0 } }", fields = "{ 'bloodBankId': 1 }")
+    List<AvailabilityTemplate> findActiveBloodBankIds(LocalDate from);
+
+    /**
+     * Adds a day to the excluded dates of a template in place, leaving the rest of it untouched.
+     *
+     * @return the number of templates changed (0 if the day was already excluded)
+     */
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$addToSet': { 'excludedDates': ?1 } }")
+    long addExcludedDate(String id, LocalDate date);
+
+    /**
+     * Retrieves a template of a blood bank.
+     */
+    Optional<AvailabilityTemplate> findByIdAndBloodBankId(String id, String bloodBankId);
+}
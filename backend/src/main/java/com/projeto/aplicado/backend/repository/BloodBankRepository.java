@@ -1,56 +1,27 @@
 package com.projeto.aplicado.backend.repository;
 
-import com.projeto.aplicado.backend.dto.donation.DailyAvailabilityDTO;
 import com.projeto.aplicado.backend.model.users.BloodBank;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
-import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BloodBankRepository extends MongoRepository<BloodBank, String> {
+public interface BloodBankRepository extends MongoRepository<BloodBank, String>, BloodBankRepositoryCustom {
     @Query("{ '_id': ?0, 'role': 'BLOODBANK' }")
     Optional<BloodBank> findBloodBankById(String id);
 
+    @Query(value = "{ '_id': ?0, 'role': 'BLOODBANK' }", exists = true)
+    boolean existsBloodBankById(String id);
+
     @Query("{ 'email': ?0, 'role': 'BLOODBANK' }")
     Optional<BloodBank> findByEmail(String email);
 
     @Query("{ 'role': 'BLOODBANK' }")
     List<BloodBank> findAllBloodBanks();
 
-    @Query("{ 'availabilitySlots': { $exists: true, $ne: []} }")
-    List<BloodBank> findBloodBanksWithAvailableSlots();
-
-    @Aggregation(pipeline = {
-            "{ '$match': { 'availabilitySlots.0': { '$exists': true } } }",
-            "{ '$project': { 'availabilitySlots.startDate': 1, 'availabilitySlots.endDate': 1 } }"
-    })
-    List<BloodBank> findAvailableDatesOnly();
-
-    @Aggregation(pipeline = {
-            "{ '$match': { 'availabilitySlots.0': { '$exists': true } } }",
-            "{ '$project': { 'availabilitySlots.startTime': 1, 'availabilitySlots.endTime': 1 } }"
-    })
-    List<BloodBank> findAvailableHoursOnly();
-
-    @Aggregation(pipeline = {
-            "{ '$match': { '_id': ?0 } }",
-            "{ '$unwind': '$availabilitySlots' }",
-            "{ '$unwind': '$availabilitySlots.slots' }",
-            "{ '$match': { 'availabilitySlots.slots.availableSpots': { '$gt': 0 } } }",
-            "{ '$group': { " +
-                    "'_id': '$availabilitySlots.date', " +
-                    "'availableSlots': { '$sum': '$availabilitySlots.slots.availableSpots' } " +
-                    "} }",
-            "{ '$project': { " +
-                    "'_id': 0, " +
-                    "'date': '$_id', " +
-                    "'availableSlots': 1 " +
-                    "} }",
-            "{ '$sort': { 'date': 1 } }"
-    })
-    List<DailyAvailabilityDTO> findAvailableDatesByBloodBankId(String id);
+    @Query("{ 'role': 'BLOODBANK', 'location': null }")
+    List<BloodBank> findBloodBanksWithoutLocation();
 }
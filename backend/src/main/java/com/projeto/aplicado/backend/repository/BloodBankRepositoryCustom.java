@@ -0,0 +1,14 @@
+package com.projeto.aplicado.backend.repository;
+
+/**
+ * Atomic updates on blood bank documents, so counters can change without rewriting the whole document.
+ */
+public interface BloodBankRepositoryCustom {
+
+    /**
+     * Increments the scheduled donations counter of a blood bank.
+     *
+     * @param bloodBankId the blood bank ID
+     */
+    void incrementScheduledDonations(String bloodBankId);
+}
@@ -0,0 +1,22 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.enums.Role;
+import com.projeto.aplicado.backend.model.users.BloodBank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@RequiredArgsConstructor
+public class BloodBankRepositoryCustomImpl implements BloodBankRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void incrementScheduledDonations(String bloodBankId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(bloodBankId).and("role").is(Role.BLOODBANK.name())),
+                new Update().inc("scheduledDonations", 1),
+                BloodBank.class);
+    }
+}
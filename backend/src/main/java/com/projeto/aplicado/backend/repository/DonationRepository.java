@@ -1,76 +1,62 @@
 package com.projeto.aplicado.backend.repository;
 
+import com.projeto.aplicado.backend.dto.donation.DonationCountDTO;
+import com.projeto.aplicado.backend.dto.donation.SlotBookingCountDTO;
 import com.projeto.aplicado.backend.model.Donation;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DonationRepository extends MongoRepository<Donation, String> {
+public interface DonationRepository extends MongoRepository<Donation, String>, DonationRepositoryCustom {
 
     /**
-     * Retrieves all donations made by a specific user, ordered by date and hour (descending).
+     * Retrieves all donations made by a specific user, latest appointment first.
      */
-    List<Donation> findByUserIdOrderByDateDescHourDesc(String userId);
+    List<Donation> findByUserIdOrderByAppointmentAtDesc(String userId);
 
     /**
      * Retrieves donations for a user filtered by specific status values,
-     * ordered by date and hour (descending).
+     * latest appointment first.
      */
-    List<Donation> findByUserIdAndStatusInOrderByDateDescHourDesc(
+    List<Donation> findByUserIdAndStatusInOrderByAppointmentAtDesc(
             String userId, List<Donation.DonationStatus> statuses);
 
     /**
-     * Retrieves donations for a specific blood bank, ordered by date and hour (ascending).
+     * Retrieves donations for a blood bank with an appointment in [from, to)
+     * filtered by given status values, earliest appointment first.
      */
-    List<Donation> findByBloodBankIdOrderByDateAscHourAsc(String bloodBankId);
+    @Query(value = "{ 'bloodBankId': ?0, 'appointmentAt': { $gte: ?1, $lt: ?2 }, 'status': { $in: ?3 } }", sort = "{ 'appointmentAt': 1 }")
+    List<Donation> findByBloodBankIdInRangeAndStatusIn(
+            String bloodBankId, Instant from, Instant to, List<Donation.DonationStatus> statuses);
 
     /**
-     * Retrieves donations for a blood bank on a specific date
-     * filtered by given status values, ordered by hour (ascending).
-     */
-    List<Donation> findByBloodBankIdAndDateAndStatusInOrderByHourAsc(
-            String bloodBankId, String date, List<Donation.DonationStatus> statuses);
-
-    /**
-     * Retrieves donations for a blood bank on a specific date and hour,
-     * filtered by given status values.
-     */
-    List<Donation> findByBloodBankIdAndDateAndHourAndStatusIn(
-            String bloodBankId, String date, String hour, List<Donation.DonationStatus> statuses);
-
-    /**
-     * Retrieves donations for a blood bank where the date starts with the given prefix.
-     * Useful for month-based queries (e.g., "2025-12").
-     */
-    @Query("{ 'bloodBankId': ?0, 'date': { $regex: ?1 }, 'status': { $in: ?2 } }")
-    List<Donation> findByBloodBankIdAndDateStartsWithAndStatusIn(
-            String bloodBankId, String datePrefix, List<Donation.DonationStatus> statuses);
-
-    /**
-     * Counts the number of occupied time slots for a specific blood bank, date and hour,
+     * Counts the donations for a blood bank with an appointment in [from, to)
      * filtered by given status values.
      */
-    long countByBloodBankIdAndDateAndHourAndStatusIn(
-            String bloodBankId, String date, String hour, List<Donation.DonationStatus> statuses);
+    @Query(value = "{ 'bloodBankId': ?0, 'appointmentAt': { $gte: ?1, $lt: ?2 }, 'status': { $in: ?3 } }", count = true)
+    long countByBloodBankIdInRangeAndStatusIn(
+            String bloodBankId, Instant from, Instant to, List<Donation.DonationStatus> statuses);
 
     /**
-     * Retrieves upcoming donations for a blood bank within a date range
+     * Counts the number of occupied spots of a slot (blood bank and appointment instant),
      * filtered by given status values.
      */
-    @Query("{ 'bloodBankId': ?0, 'date': { $gte: ?1, $lte: ?2 }, 'status': { $in: ?3 } }")
-    List<Donation> findUpcomingDonations(
-            String bloodBankId, String startDate, String endDate, List<Donation.DonationStatus> statuses);
+    long countByBloodBankIdAndAppointmentAtAndStatusIn(
+            String bloodBankId, Instant appointmentAt, List<Donation.DonationStatus> statuses);
 
     /**
-     * Checks whether a user already has a scheduled donation for a specific date
+     * Checks whether a user already has a scheduled donation on a specific day
      * with one of the given status values.
      */
-    Optional<Donation> findByUserIdAndDateAndStatusIn(
-            String userId, String date, List<Donation.DonationStatus> statuses);
+    Optional<Donation> findFirstByUserIdAndAppointmentDateAndStatusIn(
+            String userId, LocalDate appointmentDate, List<Donation.DonationStatus> statuses);
 
     /**
      * Retrieves a donation by its ID ensuring it belongs to the specified user.
@@ -83,4 +69,25 @@ public interface DonationRepository extends MongoRepository<Donation, String> {
      * Used for blood bank actions.
      */
     Optional<Donation> findByIdAndBloodBankId(String id, String bloodBankId);
-}
\ No newline at end of file
+
+    /**
+     * Counts the donations with one of the given status values on each slot (blood bank and appointment instant),
+     * from the given instant on.
+     */
+    @Aggregation(pipeline = {
+            "{ $match: { 'appointmentAt': { $gte: ?0 }, 'status': { $in: ?1 } } }",
+            "{ $group: { _id: { bloodBankId: '$bloodBankId', appointmentAt: '$appointmentAt' }, count: { $sum: 1 } } }",
+            "{ $project: { _id: 0, bloodBankId: '$_id.bloodBankId', appointmentAt: '$_id.appointmentAt', count: 1 } }"
+    })
+    List<SlotBookingCountDTO> countBySlotFrom(Instant from, List<Donation.DonationStatus> statuses);
+
+    /**
+     * Counts the donations of a blood bank by status and blood type.
+     */
+    @Aggregation(pipeline = {
+            "{ $match: { 'bloodBankId': ?0 } }",
+            "{ $group: { _id: { status: '$status', bloodType: '$bloodType' }, count: { $sum: 1 } } }",
+            "{ $project: { _id: 0, status: '$_id.status', bloodType: '$_id.bloodType', count: 1 } }"
+    })
+    List<DonationCountDTO> countByStatusAndBloodType(String bloodBankId);
+}
@@ -0,0 +1,101 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.Donation;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface DonationRepositoryCustom {
+
+    /**
+     * Reads one page of the donations of a blood bank, in (appointmentAt, id) order, with every filter
+     * applied by Mongo. The page starts right after the cursor, so reading the next page costs the same
+     * as reading the first one, however long the history of the blood bank. Paged reads (with a cursor or a
+     * limit) skip donations without {@code appointmentAt}, which have no position to resume from.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param from        only appointments at or after this instant, or null
+     * @param to          only appointments before this instant, or null
+     * @param statuses    only donations with one of these status values, or null/empty for all
+     * @param after       the last donation of the previous page, or null for the first page
+     * @param limit       the maximum number of donations returned, or 0 for all of them
+     * @return the donations of the page
+     */
+    List<Donation> findBloodBankPage(String bloodBankId, Instant from, Instant to,
+                                     Collection<Donation.DonationStatus> statuses, Cursor after, int limit);
+
+    /**
+     * Streams every donation of a blood bank in (appointmentAt, id) order, through a database cursor
+     * read in batches, so only one batch is held in memory at a time. <br>
+     * The stream holds a cursor open and must be closed.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param from        only appointments at or after this instant, or null
+     * @param to          only appointments before this instant, or null
+     * @return the donations
+     */
+    Stream<Donation> streamBloodBankHistory(String bloodBankId, Instant from, Instant to);
+
+    /**
+     * Moves a donation to another status in one conditional write: the donation is only changed while its
+     * status is still one of {@code from}, so of two concurrent transitions of the same donation only one applies.
+     *
+     * @param id      the donation ID
+     * @param from    the status values the transition may start from
+     * @param to      the new status
+     * @param changes other fields to set along with the status, or null
+     * @return the donation as it was before the change, or empty if it does not exist or its status
+     * is not one of {@code from}
+     */
+    Optional<Donation> transitionStatus(String id, Collection<Donation.DonationStatus> from,
+                                        Donation.DonationStatus to, Update changes);
+
+    /**
+     * Position of the last donation of a page: the next page starts right after it,
+     * in (appointmentAt, id) order.
+     */
+    record Cursor(Instant appointmentAt, String id) {
+
+        public static Cursor of(Donation donation) {
+            return new Cursor(donation.getAppointmentAt(), donation.getId());
+        }
+
+        /**
+         * @return an opaque, URL-safe representation of the cursor
+         */
+        public String encode() {
+            String raw = appointmentAt.toEpochMilli() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @param encoded a value returned by {@link #encode()}, may be null or blank
+         * @return the cursor, or null when none was given
+         * @throws RuntimeException if the value is not a valid cursor
+         */
+        public static Cursor decode(String encoded) {
+            if (encoded == null || encoded.isBlank()) {
+                return null;
+            }
+
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                Instant appointmentAt = Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator)));
+                String id = raw.substring(separator + 1);
+                if (id.isEmpty()) {
+                    throw new IllegalArgumentException();
+                }
+                return new Cursor(appointmentAt, id);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.Donation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class DonationRepositoryCustomImpl implements DonationRepositoryCustom {
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Donation> findBloodBankPage(String bloodBankId, Instant from, Instant to,
+                                            Collection<Donation.DonationStatus> statuses, Cursor after, int limit) {
+        List<Criteria> filters = new ArrayList<>();
+        filters.add(Criteria.where("bloodBankId").is(bloodBankId));
+
+        if (from != null) {
+            filters.add(Criteria.where("appointmentAt").gte(from));
+        }
+        if (to != null) {
+            filters.add(Criteria.where("appointmentAt").lt(to));
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            filters.add(Criteria.where("status").in(statuses));
+        }
+        if (after != null || limit > 0) {
+            filters.add(Criteria.where("appointmentAt").ne(null));
+        }
+        if (after != null) {
+            filters.add(new Criteria().orOperator(
+                    Criteria.where("appointmentAt").gt(after.appointmentAt()),
+                    Criteria.where("appointmentAt").is(after.appointmentAt()).and("id").gt(after.id())));
+        }
+
+        Query query = new Query(new Criteria().andOperator(filters))
+                .with(Sort.by("appointmentAt", "id"))
+                .limit(limit);
+        return mongoTemplate.find(query, Donation.class);
+    }
+
+    @Override
+    public Stream<Donation> streamBloodBankHistory(String bloodBankId, Instant from, Instant to) {
+        Criteria criteria = Criteria.where("bloodBankId").is(bloodBankId);
+        if (from != null || to != null) {
+            Criteria appointmentAt = criteria.and("appointmentAt");
+            if (from != null) {
+                appointmentAt.gte(from);
+            }
+            if (to != null) {
+                appointmentAt.lt(to);
+            }
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by("appointmentAt", "id"))
+                .cursorBatchSize(BATCH_SIZE);
+        return mongoTemplate.stream(query, Donation.class);
+    }
+
+    @Override
+    public Optional<Donation> transitionStatus(String id, Collection<Donation.DonationStatus> from,
+                                               Donation.DonationStatus to, Update changes) {
+        Query query = new Query(Criteria.where("id").is(id).and("status").in(from));
+        Update update = (changes != null ? changes : new Update()).set("status", to);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update, Donation.class));
+    }
+}
@@ -0,0 +1,9 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.DonationStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DonationStatsRepository extends MongoRepository<DonationStats, String>, DonationStatsRepositoryCustom {
+}
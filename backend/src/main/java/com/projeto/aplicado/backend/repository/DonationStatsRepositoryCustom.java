@@ -0,0 +1,43 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.DonationStats;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+
+import java.util.Map;
+
+/**
+ * Incremental updates of the donation counters. Counters are never created by these updates:
+ * missing counters are built on their first read.
+ */
+public interface DonationStatsRepositoryCustom {
+
+    /**
+     * Moves one donation from a status to another in the counters of its blood bank.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param from        the previous status, or null for a new donation
+     * @param to          the new status
+     * @param bloodType   the blood type of the donation, counted when it is completed
+     */
+    void applyTransition(String bloodBankId, Donation.DonationStatus from, Donation.DonationStatus to, BloodType bloodType);
+
+    /**
+     * Marks the counters of a blood bank as stale.
+     */
+    void markStale(String bloodBankId);
+
+    /**
+     * Marks every counter as stale.
+     */
+    void markAllStale();
+
+    /**
+     * Replaces the counters of a blood bank and clears their stale flag, unless they changed since they were read.
+     *
+     * @param expectedVersion the version read before counting, or null if there were no counters
+     * @return the counters with their new version, or null if they changed in the meantime
+     */
+    DonationStats replace(String bloodBankId, Map<String, Integer> byStatus, Map<String, Integer> completedByBloodType,
+                          Long expectedVersion);
+}
@@ -0,0 +1,83 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.DonationStats;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class DonationStatsRepositoryCustomImpl implements DonationStatsRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void applyTransition(String bloodBankId, Donation.DonationStatus from, Donation.DonationStatus to, BloodType bloodType) {
+        if (from == to) {
+            return;
+        }
+
+        Update update = new Update().inc("version", 1).set("updatedAt", Instant.now());
+        if (from != null) {
+            update.inc("byStatus." + from.name(), -1);
+        }
+        update.inc("byStatus." + to.name(), 1);
+
+        if (bloodType != null) {
+            if (from == Donation.DonationStatus.COMPLETED) {
+                update.inc("completedByBloodType." + bloodType.name(), -1);
+            } else if (to == Donation.DonationStatus.COMPLETED) {
+                update.inc("completedByBloodType." + bloodType.name(), 1);
+            }
+        }
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(bloodBankId)), update, DonationStats.class);
+    }
+
+    @Override
+    public void markStale(String bloodBankId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(bloodBankId)),
+                new Update().set("stale", true).inc("version", 1),
+                DonationStats.class);
+    }
+
+    @Override
+    public void markAllStale() {
+        mongoTemplate.updateMulti(new Query(), new Update().set("stale", true).inc("version", 1), DonationStats.class);
+    }
+
+    @Override
+    public DonationStats replace(String bloodBankId, Map<String, Integer> byStatus, Map<String, Integer> completedByBloodType,
+                                 Long expectedVersion) {
+        Criteria criteria = Criteria.where("id").is(bloodBankId);
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        } else {
+            criteria.and("version").exists(false);
+        }
+
+        try {
+            // when the counters changed, the upsert tries to insert a second document with the same ID and fails
+            return mongoTemplate.findAndModify(
+                    Query.query(criteria),
+                    new Update()
+                            .set("byStatus", byStatus)
+                            .set("completedByBloodType", completedByBloodType)
+                            .set("stale", false)
+                            .set("updatedAt", Instant.now())
+                            .inc("version", 1),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    DonationStats.class);
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+}
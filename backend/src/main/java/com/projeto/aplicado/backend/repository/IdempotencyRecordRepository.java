@@ -0,0 +1,38 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String> {
+
+    /**
+     * Takes over the key of a request that is still running but whose lease expired, e.g. after a crash.
+     *
+     * @return 1 if the key was taken over, 0 if it completed, its lease is still valid or the request differs
+     */
+    @Query("{ '_id': ?0, 'requestHash': ?1, 'completed': false, '$or': [ { 'leaseUntil': { $lte: ?2 } }, { 'leaseUntil': null } ] }")
+    @Update("{ '$set': { 'leaseId': ?3, 'leaseUntil': ?4 } }")
+    long takeOver(String id, String requestHash, Instant now, String leaseId, Instant leaseUntil);
+
+    /**
+     * Stores the response of a request, if the key is still leased to it.
+     *
+     * @return 1 if stored, 0 if the key was taken over meanwhile
+     */
+    @Query("{ '_id': ?0, 'leaseId': ?1 }")
+    @Update("{ '$set': { 'completed': true, 'status': ?2, 'responseBody': ?3 } }")
+    long complete(String id, String leaseId, int status, String responseBody);
+
+    /**
+     * Releases the key of a request, if it is still leased to it.
+     *
+     * @return the number of removed records
+     */
+    long deleteByIdAndLeaseId(String id, String leaseId);
+}
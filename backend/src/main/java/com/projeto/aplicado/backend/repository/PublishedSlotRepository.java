@@ -0,0 +1,62 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface PublishedSlotRepository extends MongoRepository<PublishedSlot, String>, PublishedSlotRepositoryCustom {
+
+    /**
+     * Retrieves every published slot of a blood bank.
+     */
+    List<PublishedSlot> findByBloodBankId(String bloodBankId);
+
+    /**
+     * Retrieves the published slots of a blood bank between two dates (inclusive).
+     */
+    @Query("{ 'bloodBankId': ?0, 'date': { $gte: ?1, $lte: ?2 } }")
+    List<PublishedSlot> findByBloodBankIdAndDateRange(String bloodBankId, LocalDate from, LocalDate to);
+
+    /**
+     * Retrieves the key of the full published slots of several blood banks between two dates (inclusive).
+     */
+    @Query(value = "{ 'bloodBankId': { $in: ?0 }, 'date': { $gte: ?1, $lte: ?2 }, 'availableSpots': { $lte: 0 } }",
+            fields = "{ 'bloodBankId': 1, 'date': 1, 'time': 1 }")
+    List<PublishedSlot> findFullByBloodBankIdIn(Collection<String> bloodBankIds, LocalDate from, LocalDate to);
+
+    /**
+     * Retrieves the published slots of a blood bank on a specific date, ordered by time.
+     */
+    List<PublishedSlot> findByBloodBankIdAndDateOrderByTimeAsc(String bloodBankId, LocalDate date);
+
+    /**
+     * Retrieves a single published slot.
+     */
+    Optional<PublishedSlot> findByBloodBankIdAndDateAndTime(String bloodBankId, LocalDate date, LocalTime time);
+
+    /**
+     * Streams every published slot from a date on. The stream must be closed after use.
+     */
+    Stream<PublishedSlot> findByDateGreaterThanEqual(LocalDate date);
+
+    /**
+     * Checks whether a blood bank published any slot on a specific date.
+     */
+    boolean existsByBloodBankIdAndDate(String bloodBankId, LocalDate date);
+
+    /**
+     * Removes every published slot of a blood bank on a specific date.
+     *
+     * @return the number of removed slots
+     */
+    long deleteByBloodBankIdAndDate(String bloodBankId, LocalDate date);
+}
@@ -0,0 +1,69 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.SlotKey;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk updates on published slots. Booked spots are only written by the {@code SlotInventory}, which
+ * owns them; publishing a slot keeps them.
+ */
+public interface PublishedSlotRepositoryCustom {
+
+    /**
+     * Publishes slots in one bulk write. Publishing a slot that already exists sets its total spots,
+     * keeping its bookings, so publishing the same slot twice is harmless.
+     *
+     * @param slots the slots to publish, with bloodBankId, date, time and totalSpots set
+     */
+    void publish(Collection<PublishedSlot> slots);
+
+    /**
+     * Stores slots expanded from availability templates, in one bulk write. Slots already stored are
+     * left unchanged, so materializing a slot twice is harmless.
+     *
+     * @param spots the total spots of each slot
+     */
+    void materialize(Map<SlotKey, Integer> spots);
+
+    /**
+     * Adds spots to slots already stored, in one bulk write: both {@code totalSpots} and
+     * {@code availableSpots} grow, bookings are kept. Slots that are not stored are ignored.
+     *
+     * @param spots the spots to add to each slot
+     */
+    void addTotalSpots(Map<SlotKey, Integer> spots);
+
+    /**
+     * Stores the booked spots of slots in one bulk write: each slot gets {@code bookedSpots} set to the
+     * given value and {@code availableSpots} to the rest of its total. Writing the same values twice is
+     * harmless, so a bulk write that partly failed can be retried as a whole. Slots that no longer exist
+     * are ignored.
+     *
+     * @param bookedSpots the booked spots by slot
+     */
+    void setBookedSpots(Map<SlotKey, Integer> bookedSpots);
+
+    /**
+     * Retrieves the earliest published slots with available spots of each blood bank, in one aggregation
+     * read from the {@code open_slots} partial index: slots of a blood bank are scanned in (date, time) order
+     * and the scan of that blood bank stops after {@code perBank} hits.
+     *
+     * @param bloodBankIds the blood bank IDs
+     * @param from         slots starting after this instant are returned
+     * @param to           the last date (inclusive)
+     * @param perBank      the maximum number of slots of each blood bank
+     * @return the key and available spots of the slots, in (bloodBankId, date, time) order
+     */
+    List<PublishedSlot> findEarliestOpen(Collection<String> bloodBankIds, LocalDateTime from, LocalDate to, int perBank);
+
+    /**
+     * @return the IDs of the blood banks that published at least one slot
+     */
+    List<String> findBloodBankIdsWithSlots();
+}
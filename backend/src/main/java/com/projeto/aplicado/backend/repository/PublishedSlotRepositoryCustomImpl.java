@@ -0,0 +1,138 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.SlotKey;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class PublishedSlotRepositoryCustomImpl implements PublishedSlotRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void publish(Collection<PublishedSlot> slots) {
+        if (slots.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PublishedSlot.class);
+        for (PublishedSlot slot : slots) {
+            // a single $set stage reads the stored bookedSpots, so concurrent bookings are kept
+            AggregationExpression booked = ConditionalOperators.ifNull("bookedSpots").then(0);
+            bulk.upsert(
+                    slotQuery(slot.getBloodBankId(), slot.getDate(), slot.getTime()),
+                    AggregationUpdate.update()
+                            .set("totalSpots").toValue(slot.getTotalSpots())
+                            .set("bookedSpots").toValue(booked)
+                            .set("availableSpots").toValue(ArithmeticOperators.Subtract.valueOf(slot.getTotalSpots()).subtract(booked)));
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public void materialize(Map<SlotKey, Integer> spots) {
+        if (spots.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PublishedSlot.class);
+        for (Map.Entry<SlotKey, Integer> entry : spots.entrySet()) {
+            SlotKey key = entry.getKey();
+            bulk.upsert(
+                    slotQuery(key.bloodBankId(), key.date(), key.time()),
+                    new Update()
+                            .setOnInsert("totalSpots", entry.getValue())
+                            .setOnInsert("availableSpots", entry.getValue())
+                            .setOnInsert("bookedSpots", 0));
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public void addTotalSpots(Map<SlotKey, Integer> spots) {
+        if (spots.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PublishedSlot.class);
+        for (Map.Entry<SlotKey, Integer> entry : spots.entrySet()) {
+            SlotKey key = entry.getKey();
+            bulk.updateOne(
+                    slotQuery(key.bloodBankId(), key.date(), key.time()),
+                    new Update()
+                            .inc("totalSpots", entry.getValue())
+                            .inc("availableSpots", entry.getValue()));
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public void setBookedSpots(Map<SlotKey, Integer> bookedSpots) {
+        if (bookedSpots.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PublishedSlot.class);
+        for (Map.Entry<SlotKey, Integer> entry : bookedSpots.entrySet()) {
+            SlotKey key = entry.getKey();
+            int booked = entry.getValue();
+            bulk.updateOne(
+                    slotQuery(key.bloodBankId(), key.date(), key.time()),
+                    AggregationUpdate.update()
+                            .set("bookedSpots").toValue(booked)
+                            .set("availableSpots").toValue(ArithmeticOperators.Subtract.valueOf("totalSpots").subtract(booked)));
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public List<PublishedSlot> findEarliestOpen(Collection<String> bloodBankIds, LocalDateTime from, LocalDate to, int perBank) {
+        if (bloodBankIds.isEmpty() || perBank <= 0) {
+            return List.of();
+        }
+
+        Criteria open = Criteria.where("bloodBankId").in(bloodBankIds)
+                .and("availableSpots").gt(0)
+                .orOperator(
+                        Criteria.where("date").gt(from.toLocalDate()).lte(to),
+                        Criteria.where("date").is(from.toLocalDate()).and("time").gt(from.toLocalTime()));
+
+        // sorted like the index, so $firstN keeps the earliest slots of each blood bank
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(open),
+                Aggregation.sort(Sort.by("bloodBankId", "date", "time")),
+                Aggregation.project("bloodBankId", "date", "time", "availableSpots").andExclude("_id"),
+                Aggregation.group("bloodBankId")
+                        .and("slots", context -> new Document("$firstN", new Document("n", perBank).append("input", "$$ROOT"))),
+                Aggregation.unwind("slots"),
+                Aggregation.replaceRoot("slots"));
+        return mongoTemplate.aggregate(aggregation, PublishedSlot.class, PublishedSlot.class).getMappedResults();
+    }
+
+    @Override
+    public List<String> findBloodBankIdsWithSlots() {
+        return mongoTemplate.findDistinct(new Query(), "bloodBankId", PublishedSlot.class, String.class);
+    }
+
+    private static Query slotQuery(String bloodBankId, LocalDate date, LocalTime time) {
+        return Query.query(Criteria.where("bloodBankId").is(bloodBankId).and("date").is(date).and("time").is(time));
+    }
+}
@@ -0,0 +1,25 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.SlotHold;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+@Repository
+public interface SlotHoldRepository extends MongoRepository<SlotHold, String>, SlotHoldRepositoryCustom {
+
+    /**
+     * Retrieves a hold of a user on a slot that has not expired yet.
+     */
+    Optional<SlotHold> findFirstByUserIdAndBloodBankIdAndDateAndTimeAndExpiresAtAfter(
+            String userId, String bloodBankId, LocalDate date, LocalTime time, Instant now);
+
+    /**
+     * Counts the holds of a user that have not expired yet.
+     */
+    long countByUserIdAndExpiresAtAfter(String userId, Instant now);
+}
@@ -0,0 +1,41 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.SlotHold;
+import com.projeto.aplicado.backend.model.SlotKey;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Claims on slot holds. A hold is removed by the single update that claims it, so it is either confirmed
+ * or expired, never both, even when the confirmation and the sweeper race.
+ */
+public interface SlotHoldRepositoryCustom {
+
+    /**
+     * Removes a hold of a user that has not expired yet.
+     *
+     * @param holdId the hold ID
+     * @param userId the user that owns the hold
+     * @param now    the current instant
+     * @return the removed hold, or empty if it does not exist, belongs to another user or expired
+     */
+    Optional<SlotHold> claim(String holdId, String userId, Instant now);
+
+    /**
+     * Removes up to {@code limit} expired holds, one at a time. A hold found expired is removed only if it
+     * is still there, so a hold confirmed or swept by another instance meanwhile is skipped.
+     *
+     * @param now   the current instant
+     * @param limit the maximum number of holds removed
+     * @return the removed holds
+     */
+    List<SlotHold> claimExpired(Instant now, int limit);
+
+    /**
+     * @return the number of holds (expired or not) on each slot
+     */
+    Map<SlotKey, Integer> countBySlot();
+}
@@ -0,0 +1,68 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.SlotHold;
+import com.projeto.aplicado.backend.model.SlotKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class SlotHoldRepositoryCustomImpl implements SlotHoldRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<SlotHold> claim(String holdId, String userId, Instant now) {
+        Query query = Query.query(Criteria.where("id").is(holdId)
+                .and("userId").is(userId)
+                .and("expiresAt").gt(now));
+        return Optional.ofNullable(mongoTemplate.findAndRemove(query, SlotHold.class));
+    }
+
+    @Override
+    public List<SlotHold> claimExpired(Instant now, int limit) {
+        Query expired = Query.query(Criteria.where("expiresAt").lte(now))
+                .with(Sort.by("expiresAt"))
+                .limit(limit);
+        expired.fields().include("id");
+        List<String> ids = mongoTemplate.find(expired, SlotHold.class).stream().map(SlotHold::getId).toList();
+
+        // each hold is removed by its own update, so a crash mid-batch leaves the rest for the next sweep
+        List<SlotHold> claimed = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Query query = Query.query(Criteria.where("id").is(id).and("expiresAt").lte(now));
+            SlotHold hold = mongoTemplate.findAndRemove(query, SlotHold.class);
+            if (hold != null) {
+                claimed.add(hold);
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public Map<SlotKey, Integer> countBySlot() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("bloodBankId", "date", "time").count().as("count"),
+                Aggregation.project("bloodBankId", "date", "time", "count").andExclude("_id"));
+
+        Map<SlotKey, Integer> counts = new HashMap<>();
+        for (SlotCount count : mongoTemplate.aggregate(aggregation, SlotHold.class, SlotCount.class)) {
+            counts.put(new SlotKey(count.bloodBankId(), count.date(), count.time()), count.count());
+        }
+        return counts;
+    }
+
+    private record SlotCount(String bloodBankId, LocalDate date, LocalTime time, int count) {
+    }
+}
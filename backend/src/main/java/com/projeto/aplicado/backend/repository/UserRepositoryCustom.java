@@ -0,0 +1,39 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.dto.user.UserContactDTO;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Queries on donors that need more control than derived or {@code @Query} methods give,
+ * such as projections and cursor streaming.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Streams the IDs of the donors within a radius of a point, through a database cursor.
+     * Only the {@code _id} field is read, so no {@code User} document is loaded. <br>
+     * The stream holds a cursor open and must be closed.
+     *
+     * @param center             the center point
+     * @param radiusKm           the radius in kilometers
+     * @param bloodType          only donors of this blood type, or null for any
+     * @param lastDonationBefore only donors that never donated or last donated on or before this date, or null for any
+     * @return the donor IDs, in no particular order
+     */
+    Stream<String> streamDonorIdsNear(GeoJsonPoint center, double radiusKm, BloodType bloodType, LocalDate lastDonationBefore);
+
+    /**
+     * Reads the contact fields of users of any role in a single {@code $in} query,
+     * with a projection of {@code name}, {@code phone}, {@code email} and {@code address}.
+     *
+     * @param ids the user IDs
+     * @return the contacts found, in no particular order
+     */
+    List<UserContactDTO> findContactsByIdIn(Collection<String> ids);
+}
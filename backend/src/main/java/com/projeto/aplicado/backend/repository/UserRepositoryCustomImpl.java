@@ -0,0 +1,63 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.dto.user.UserContactDTO;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+import com.projeto.aplicado.backend.model.enums.Role;
+import com.projeto.aplicado.backend.model.users.User;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    // $centerSphere takes the radius in radians, mongo uses this equatorial radius for the conversion
+    private static final double EARTH_RADIUS_KM = 6378.1;
+    private static final int BATCH_SIZE = 5000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Stream<String> streamDonorIdsNear(GeoJsonPoint center, double radiusKm, BloodType bloodType, LocalDate lastDonationBefore) {
+        Criteria criteria = Criteria.where("role").is(Role.USER.name())
+                .and("location").withinSphere(new Circle(new Point(center.getX(), center.getY()), radiusKm / EARTH_RADIUS_KM));
+
+        if (bloodType != null) {
+            criteria.and("bloodType").is(bloodType.name());
+        }
+        if (lastDonationBefore != null) {
+            criteria.orOperator(
+                    Criteria.where("lastDonationDate").lte(lastDonationBefore),
+                    Criteria.where("lastDonationDate").is(null)
+            );
+        }
+
+        Query query = new Query(criteria).cursorBatchSize(BATCH_SIZE);
+        query.fields().include("_id");
+
+        String collection = mongoTemplate.getCollectionName(User.class);
+        return mongoTemplate.stream(query, Document.class, collection)
+                .map(document -> document.get("_id").toString());
+    }
+
+    @Override
+    public List<UserContactDTO> findContactsByIdIn(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Query query = Query.query(Criteria.where("id").in(ids));
+        query.fields().include("name", "phone", "email", "address");
+
+        return mongoTemplate.find(query, UserContactDTO.class, mongoTemplate.getCollectionName(User.class));
+    }
+}
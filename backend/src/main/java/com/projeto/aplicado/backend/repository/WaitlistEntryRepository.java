@@ -0,0 +1,47 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.WaitlistEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistEntryRepository extends MongoRepository<WaitlistEntry, String>, WaitlistEntryRepositoryCustom {
+
+    /**
+     * Retrieves the entry of a user on the waitlist of a slot.
+     */
+    Optional<WaitlistEntry> findByUserIdAndBloodBankIdAndDateAndTime(
+            String userId, String bloodBankId, LocalDate date, LocalTime time);
+
+    /**
+     * Counts the entries of a slot that joined before the given instant.
+     */
+    long countByBloodBankIdAndDateAndTimeAndJoinedAtBefore(
+            String bloodBankId, LocalDate date, LocalTime time, Instant joinedAt);
+
+    /**
+     * Removes an entry of a user.
+     *
+     * @return the number of removed entries
+     */
+    long deleteByIdAndUserId(String id, String userId);
+
+    /**
+     * Removes the entries of every slot of a blood bank on a day.
+     *
+     * @return the number of removed entries
+     */
+    long deleteByBloodBankIdAndDate(String bloodBankId, LocalDate date);
+
+    /**
+     * Removes the entries of slots before a day.
+     *
+     * @return the number of removed entries
+     */
+    long deleteByDateBefore(LocalDate date);
+}
@@ -0,0 +1,18 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.model.WaitlistEntry;
+
+import java.util.Optional;
+
+public interface WaitlistEntryRepositoryCustom {
+
+    /**
+     * Removes the oldest entry of the waitlist of a slot in a single findAndRemove,
+     * so each entry is served once even when spots are freed concurrently.
+     *
+     * @param slotKey the slot
+     * @return the removed entry, or empty if nobody is waiting
+     */
+    Optional<WaitlistEntry> pollFirst(SlotKey slotKey);
+}
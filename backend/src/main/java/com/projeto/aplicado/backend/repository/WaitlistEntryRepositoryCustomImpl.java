@@ -0,0 +1,25 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.model.WaitlistEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class WaitlistEntryRepositoryCustomImpl implements WaitlistEntryRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<WaitlistEntry> pollFirst(SlotKey slotKey) {
+        Query query = Query.query(Criteria.where("bloodBankId").is(slotKey.bloodBankId())
+                        .and("date").is(slotKey.date())
+                        .and("time").is(slotKey.time()))
+                .with(Sort.by("joinedAt", "id"));
+        return Optional.ofNullable(mongoTemplate.findAndRemove(query, WaitlistEntry.class));
+    }
+}
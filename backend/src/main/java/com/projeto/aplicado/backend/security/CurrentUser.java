@@ -0,0 +1,41 @@
+package com.projeto.aplicado.backend.security;
+
+import com.projeto.aplicado.backend.exception.AuthenticationException;
+import com.projeto.aplicado.backend.exception.ForbiddenException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Access to the user authenticated by {@link JwtAuthenticationFilter} for the current request.
+ */
+public final class CurrentUser {
+
+    private CurrentUser() {
+    }
+
+    /**
+     * @return the ID of the authenticated user
+     * @throws AuthenticationException if the request has no valid token
+     */
+    public static String id() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken) || !(authentication.getPrincipal() instanceof String userId)) {
+            throw new AuthenticationException("Autenticação necessária");
+        }
+        return userId;
+    }
+
+    /**
+     * Checks that the request is made by the owner of a resource, e.g. the blood bank a route is scoped to.
+     *
+     * @param ownerId the ID of the user that owns the resource
+     * @throws AuthenticationException if the request has no valid token
+     * @throws ForbiddenException      if the authenticated user is someone else
+     */
+    public static void requireSelf(String ownerId) {
+        if (!id().equals(ownerId)) {
+            throw new ForbiddenException("Acesso negado");
+        }
+    }
+}
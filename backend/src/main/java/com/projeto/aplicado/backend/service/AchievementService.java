@@ -136,13 +136,13 @@ public class AchievementService {
                     int currentYear = LocalDate.now().getYear();
 
                     List<Donation> allUserDons = donationRepository
-                            .findByUserIdAndStatusInOrderByDateDescHourDesc(
+                            .findByUserIdAndStatusInOrderByAppointmentAtDesc(
                                     user.getId(),
                                     List.of(Donation.DonationStatus.COMPLETED)
                             );
 
                     long donationsThisYear = allUserDons.stream()
-                            .filter(d -> parseDateOnly(d.getDate()).getYear() == currentYear)
+                            .filter(d -> d.getAppointmentDate() != null && d.getAppointmentDate().getYear() == currentYear)
                             .count();
 
                     if (donationsThisYear < needed) return Pair.of(false, AchievementsNotifications.NONE);
@@ -231,20 +231,16 @@ public class AchievementService {
         int currentYear = LocalDate.now().getYear();
 
         List<Donation> allUserDons = donationRepository
-                .findByUserIdAndStatusInOrderByDateDescHourDesc(user.getId(), List.of(Donation.DonationStatus.COMPLETED));
+                .findByUserIdAndStatusInOrderByAppointmentAtDesc(user.getId(), List.of(Donation.DonationStatus.COMPLETED));
 
         for (int i = 0; i < 5; i++) {
             int year = currentYear - i;
 
-            long count = allUserDons.stream().filter(d -> parseDateOnly(d.getDate()).getYear() == year).count();
+            long count = allUserDons.stream().filter(d -> d.getAppointmentDate() != null && d.getAppointmentDate().getYear() == year).count();
 
             if (count < 4) return false;
         }
 
         return true;
     }
-
-    private LocalDate parseDateOnly(String isoDate) {
-        return LocalDate.parse(isoDate.substring(0, 10));
-    }
 }
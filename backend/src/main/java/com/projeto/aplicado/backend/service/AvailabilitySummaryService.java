@@ -0,0 +1,73 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.bloodbank.AvailabilitySummaryDTO;
+import com.projeto.aplicado.backend.model.AvailabilitySummary;
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.repository.AvailabilitySummaryRepository;
+import com.projeto.aplicado.backend.repository.BloodBankRepository;
+import com.projeto.aplicado.backend.repository.PublishedSlotRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Monthly availability summaries: the remaining spots of each day of a month, in a single document.
+ * Bookings update them through the {@link SlotInventory}; a missing or stale summary is rebuilt here
+ * from the published slots and the availability templates.
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilitySummaryService {
+    private final AvailabilitySummaryRepository availabilitySummaryRepository;
+    private final PublishedSlotRepository publishedSlotRepository;
+    private final BloodBankRepository bloodBankRepository;
+    private final AvailabilityTemplateService availabilityTemplateService;
+    private final SlotInventory slotInventory;
+
+    /**
+     * Gets the summary of a month, rebuilding it first if it is missing or stale.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param month       the month
+     * @return the summary, or null if the blood bank does not exist
+     */
+    public AvailabilitySummaryDTO getMonth(String bloodBankId, YearMonth month) {
+        AvailabilitySummary summary = availabilitySummaryRepository.findById(AvailabilitySummary.idOf(bloodBankId, month))
+                .orElse(null);
+
+        if (summary == null || summary.isStale()) {
+            if (!bloodBankRepository.existsBloodBankById(bloodBankId)) {
+                return null;
+            }
+            // exclusive with the booking writes, so no booking is counted twice or missed
+            summary = slotInventory.runExclusive(() -> rebuild(bloodBankId, month));
+        }
+        return toDTO(summary);
+    }
+
+    private AvailabilitySummary rebuild(String bloodBankId, YearMonth month) {
+        LocalDate first = month.atDay(1);
+        LocalDate last = month.atEndOfMonth();
+
+        List<PublishedSlot> stored = publishedSlotRepository.findByBloodBankIdAndDateRange(bloodBankId, first, last);
+        Map<String, Integer> remainingByDay = new TreeMap<>();
+        for (PublishedSlot slot : availabilityTemplateService.withTemplateSlots(bloodBankId, stored, first, last)) {
+            remainingByDay.merge(AvailabilitySummary.dayKey(slot.getDate().getDayOfMonth()),
+                    Math.max(0, slot.getAvailableSpots()), Integer::sum);
+        }
+        return availabilitySummaryRepository.replace(bloodBankId, month, remainingByDay);
+    }
+
+    private static AvailabilitySummaryDTO toDTO(AvailabilitySummary summary) {
+        YearMonth month = YearMonth.parse(summary.getMonth());
+        Map<LocalDate, Integer> remainingByDay = new TreeMap<>();
+        summary.getRemainingByDay().forEach((day, remaining) ->
+                remainingByDay.put(month.atDay(Integer.parseInt(day)), Math.max(0, remaining)));
+        return new AvailabilitySummaryDTO(summary.getBloodBankId(), summary.getMonth(), remainingByDay, summary.getVersion());
+    }
+}
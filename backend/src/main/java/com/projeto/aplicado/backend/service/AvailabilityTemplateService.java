@@ -0,0 +1,268 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.bloodbank.AvailabilityTemplateDTO;
+import com.projeto.aplicado.backend.model.AvailabilitySlot;
+import com.projeto.aplicado.backend.model.AvailabilityTemplate;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.repository.AvailabilitySummaryRepository;
+import com.projeto.aplicado.backend.repository.AvailabilityTemplateRepository;
+import com.projeto.aplicado.backend.repository.BloodBankRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Weekly recurring availability templates, and their lazy expansion into slots.
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilityTemplateService {
+    public static final int MAX_TEMPLATE_DAYS = 366;
+    private static final int MIN_SLOT_MINUTES = 5;
+    public static final Comparator<SlotKey> SLOT_ORDER =
+            Comparator.comparing(SlotKey::date).thenComparing(SlotKey::time).thenComparing(SlotKey::bloodBankId);
+
+    private final AvailabilityTemplateRepository availabilityTemplateRepository;
+    private final BloodBankRepository bloodBankRepository;
+    private final AvailabilitySummaryRepository availabilitySummaryRepository;
+
+    /**
+     * Creates a template for a blood bank. The availability summaries of the blood bank are left to the
+     * caller ({@link BloodBankService#createAvailabilityTemplate}).
+     *
+     * @param bloodBankId the blood bank ID
+     * @param dto         the template data
+     * @return the created template
+     * @throws RuntimeException if the blood bank is not found or the template is invalid
+     */
+    public AvailabilityTemplateDTO create(String bloodBankId, AvailabilityTemplateDTO dto) {
+        if (!bloodBankRepository.existsBloodBankById(bloodBankId)) {
+            throw new RuntimeException("Banco de sangue não encontrado");
+        }
+        validate(dto);
+
+        AvailabilityTemplate template = toTemplate(bloodBankId, dto);
+        template.setCreatedAt(Instant.now());
+
+        return toDTO(availabilityTemplateRepository.save(template));
+    }
+
+    public List<AvailabilityTemplateDTO> findByBloodBank(String bloodBankId) {
+        return availabilityTemplateRepository.findByBloodBankId(bloodBankId).stream()
+                .map(AvailabilityTemplateService::toDTO)
+                .toList();
+    }
+
+    /**
+     * Removes a template. Slots already booked or published by hand are kept. The availability summaries
+     * of the blood bank are left to the caller ({@link BloodBankService#deleteAvailabilityTemplate}).
+     *
+     * @throws RuntimeException if the template does not exist
+     */
+    public void delete(String bloodBankId, String templateId) {
+        AvailabilityTemplate template = availabilityTemplateRepository.findByIdAndBloodBankId(templateId, bloodBankId)
+                .orElseThrow(() -> new RuntimeException("Modelo de disponibilidade não encontrado"));
+        availabilityTemplateRepository.delete(template);
+    }
+
+    /**
+     * Excludes a day from every template of a blood bank that covers it.
+     *
+     * @return the number of templates changed
+     */
+    public int excludeDate(String bloodBankId, LocalDate date) {
+        int changed = 0;
+        for (AvailabilityTemplate template : availabilityTemplateRepository.findActiveByBloodBankId(bloodBankId, date)) {
+            if (!timesOn(template, date).isEmpty()) {
+                changed += (int) availabilityTemplateRepository.addExcludedDate(template.getId(), date);
+            }
+        }
+        if (changed > 0) {
+            availabilitySummaryRepository.markStale(bloodBankId, List.of(YearMonth.from(date)));
+        }
+        return changed;
+    }
+
+    /**
+     * @param slotKey the slot
+     * @return the spots the templates of the blood bank give to the slot, 0 if none covers it
+     */
+    public int spotsFor(SlotKey slotKey) {
+        int spots = 0;
+        for (AvailabilityTemplate template : availabilityTemplateRepository.findActiveByBloodBankId(slotKey.bloodBankId(), slotKey.date())) {
+            if (timesOn(template, slotKey.date()).contains(slotKey.time())) {
+                spots += template.getSpotsPerSlot();
+            }
+        }
+        return spots;
+    }
+
+    /**
+     * Expands the templates of a blood bank into slots between two days. Slots of overlapping templates
+     * add up their spots.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param from        the first day (inclusive)
+     * @param to          the last day (inclusive)
+     * @return the spots of each slot, sorted by date and time
+     */
+    public Map<SlotKey, Integer> expand(String bloodBankId, LocalDate from, LocalDate to) {
+        return expand(availabilityTemplateRepository.findActiveByBloodBankId(bloodBankId, from), from, to);
+    }
+
+    /**
+     * Expands a single template of a blood bank into slots between two days.
+     *
+     * @see #expand(String, LocalDate, LocalDate)
+     */
+    public Map<SlotKey, Integer> expand(String bloodBankId, AvailabilityTemplateDTO template, LocalDate from, LocalDate to) {
+        return expand(List.of(toTemplate(bloodBankId, template)), from, to);
+    }
+
+    /**
+     * Expands the templates of several blood banks into slots between two days, reading the templates
+     * in a single query.
+     *
+     * @see #expand(String, LocalDate, LocalDate)
+     */
+    public Map<SlotKey, Integer> expand(Collection<String> bloodBankIds, LocalDate from, LocalDate to) {
+        return expand(availabilityTemplateRepository.findActiveByBloodBankIdIn(bloodBankIds, from), from, to);
+    }
+
+    private static Map<SlotKey, Integer> expand(List<AvailabilityTemplate> templates, LocalDate from, LocalDate to) {
+        Map<SlotKey, Integer> slots = new TreeMap<>(SLOT_ORDER);
+        for (AvailabilityTemplate template : templates) {
+            LocalDate first = max(from, template.getPeriod().getStartDate());
+            LocalDate last = min(to, template.getPeriod().getEndDate());
+
+            for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                for (LocalTime time : timesOn(template, date)) {
+                    slots.merge(new SlotKey(template.getBloodBankId(), date, time), template.getSpotsPerSlot(), Integer::sum);
+                }
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Merges stored slots with the slots expanded from the templates between two days (never before today).
+     * A stored slot replaces the expanded one, as it already includes the template spots: a slot stored
+     * before a template covering it was created gets the spots of the template added when it is created
+     * ({@link BloodBankService#createAvailabilityTemplate}).
+     *
+     * @return the slots sorted by date and time
+     */
+    public List<PublishedSlot> withTemplateSlots(String bloodBankId, List<PublishedSlot> stored, LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now(Donation.ZONE);
+        Map<SlotKey, PublishedSlot> merged = new TreeMap<>(SLOT_ORDER);
+
+        if (!to.isBefore(today)) {
+            expand(bloodBankId, from.isBefore(today) ? today : from, to)
+                    .forEach((key, spots) -> merged.put(key,
+                            new PublishedSlot(null, bloodBankId, key.date(), key.time(), spots, 0, spots)));
+        }
+        for (PublishedSlot slot : stored) {
+            merged.put(SlotKey.of(slot), slot);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * @return the IDs of the blood banks with a template ending on or after the given day
+     */
+    public Set<String> findBloodBankIdsWithTemplates(LocalDate from) {
+        Set<String> ids = new HashSet<>();
+        availabilityTemplateRepository.findActiveBloodBankIds(from).forEach(t -> ids.add(t.getBloodBankId()));
+        return ids;
+    }
+
+    /**
+     * @return the start times of the slots of a template on a day, empty if the template does not cover it
+     */
+    static List<LocalTime> timesOn(AvailabilityTemplate template, LocalDate date) {
+        AvailabilitySlot period = template.getPeriod();
+        if (date.isBefore(period.getStartDate()) || date.isAfter(period.getEndDate())
+                || !template.getDaysOfWeek().contains(date.getDayOfWeek())
+                || template.getExcludedDates().contains(date)) {
+            return List.of();
+        }
+
+        List<LocalTime> times = new ArrayList<>();
+        int minutes = period.getStartTime().toSecondOfDay() / 60;
+        int end = period.getEndTime().toSecondOfDay() / 60;
+        for (; minutes + template.getSlotMinutes() <= end; minutes += template.getSlotMinutes()) {
+            times.add(LocalTime.of(minutes / 60, minutes % 60));
+        }
+        return times;
+    }
+
+    private static void validate(AvailabilityTemplateDTO dto) {
+        if (dto.getStartDate() == null || dto.getEndDate() == null || dto.getEndDate().isBefore(dto.getStartDate())) {
+            throw new RuntimeException("Período inválido");
+        }
+        if (ChronoUnit.DAYS.between(dto.getStartDate(), dto.getEndDate()) >= MAX_TEMPLATE_DAYS) {
+            throw new RuntimeException("O período não pode ser maior que " + MAX_TEMPLATE_DAYS + " dias");
+        }
+        if (dto.getStartTime() == null || dto.getEndTime() == null || !dto.getEndTime().isAfter(dto.getStartTime())) {
+            throw new RuntimeException("Horário de funcionamento inválido");
+        }
+        if (dto.getDaysOfWeek() == null || dto.getDaysOfWeek().isEmpty()) {
+            throw new RuntimeException("Informe ao menos um dia da semana");
+        }
+        if (dto.getSlotMinutes() < MIN_SLOT_MINUTES) {
+            throw new RuntimeException("A duração do horário deve ser de ao menos " + MIN_SLOT_MINUTES + " minutos");
+        }
+        if (dto.getSpotsPerSlot() <= 0) {
+            throw new RuntimeException("O número de vagas por horário deve ser maior que 0");
+        }
+    }
+
+    private static AvailabilityTemplate toTemplate(String bloodBankId, AvailabilityTemplateDTO dto) {
+        AvailabilityTemplate template = new AvailabilityTemplate();
+        template.setId(dto.getId());
+        template.setBloodBankId(bloodBankId);
+        template.setPeriod(new AvailabilitySlot(dto.getStartDate(), dto.getEndDate(), dto.getStartTime(), dto.getEndTime()));
+        template.setDaysOfWeek(new HashSet<>(dto.getDaysOfWeek()));
+        template.setSlotMinutes(dto.getSlotMinutes());
+        template.setSpotsPerSlot(dto.getSpotsPerSlot());
+        template.setExcludedDates(dto.getExcludedDates() != null ? new HashSet<>(dto.getExcludedDates()) : new HashSet<>());
+        return template;
+    }
+
+    private static AvailabilityTemplateDTO toDTO(AvailabilityTemplate template) {
+        AvailabilitySlot period = template.getPeriod();
+        return new AvailabilityTemplateDTO(
+                template.getId(),
+                period.getStartDate(),
+                period.getEndDate(),
+                period.getStartTime(),
+                period.getEndTime(),
+                template.getDaysOfWeek(),
+                template.getSlotMinutes(),
+                template.getSpotsPerSlot(),
+                template.getExcludedDates());
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,74 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.geolocation.LocationLookupLatencyDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per blood bank latency of the location lookups done for the map endpoint.
+ */
+@Component
+public class BloodBankLocationMetrics {
+    private final Map<String, Latency> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * Records a finished lookup.
+     *
+     * @param bloodBankId  the blood bank ID
+     * @param elapsedNanos the lookup duration in nanoseconds
+     */
+    public void recordLookup(String bloodBankId, long elapsedNanos) {
+        Latency latency = latencies.computeIfAbsent(bloodBankId, id -> new Latency());
+        latency.count.incrementAndGet();
+        latency.totalNanos.addAndGet(elapsedNanos);
+        latency.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        latency.lastNanos.set(elapsedNanos);
+    }
+
+    /**
+     * Records a lookup that missed the request deadline.
+     *
+     * @param bloodBankId the blood bank ID
+     */
+    public void recordTimeout(String bloodBankId) {
+        latencies.computeIfAbsent(bloodBankId, id -> new Latency()).timeouts.incrementAndGet();
+    }
+
+    /**
+     * @return the latency of every blood bank, slowest first
+     */
+    public List<LocationLookupLatencyDTO> getLatencies() {
+        return latencies.entrySet().stream()
+                .map(e -> {
+                    Latency latency = e.getValue();
+                    long count = latency.count.get();
+                    return new LocationLookupLatencyDTO(
+                            e.getKey(),
+                            count,
+                            latency.timeouts.get(),
+                            count == 0 ? 0.0 : toMillis(latency.totalNanos.get()) / count,
+                            toMillis(latency.maxNanos.get()),
+                            toMillis(latency.lastNanos.get())
+                    );
+                })
+                .sorted(Comparator.comparingDouble(LocationLookupLatencyDTO::getMaxMillis).reversed())
+                .toList();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Latency {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong lastNanos = new AtomicLong();
+    }
+}
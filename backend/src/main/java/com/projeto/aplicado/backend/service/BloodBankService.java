@@ -7,35 +7,78 @@ import com.projeto.aplicado.backend.dto.bloodbank.*;
 import com.projeto.aplicado.backend.dto.donation.AvailableSlotsDTO;
 import com.projeto.aplicado.backend.dto.donation.DailyAvailabilityDTO;
 import com.projeto.aplicado.backend.dto.donation.SlotDTO;
+import com.projeto.aplicado.backend.exception.LocationException;
 import com.projeto.aplicado.backend.exception.UserNotFoundException;
 import com.projeto.aplicado.backend.model.*;
+import com.projeto.aplicado.backend.model.enums.BloodType;
 import com.projeto.aplicado.backend.model.enums.Role;
 import com.projeto.aplicado.backend.model.users.BloodBank;
 import com.projeto.aplicado.backend.model.Donation;
 import com.projeto.aplicado.backend.model.users.User;
+import com.projeto.aplicado.backend.repository.AvailabilitySummaryRepository;
 import com.projeto.aplicado.backend.repository.BloodBankRepository;
 import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.PublishedSlotRepository;
 import com.projeto.aplicado.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.text.Normalizer;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class BloodBankService {
+    private static final Logger logger = LoggerFactory.getLogger(BloodBankService.class);
+    public static final double MAX_DISTANCE_KM = 80.0;
+    public static final int MAX_NEARBY_RESULTS = 100;
+    public static final double MAX_DONOR_DISTANCE_KM = 300.0;
+    public static final int DEFAULT_WINDOW_DAYS = 60;
+    private static final int MAX_CONCURRENT_LOOKUPS = 8;
+    private static final Duration LOCATIONS_DEADLINE = Duration.ofSeconds(2);
+
     private final BloodBankRepository bloodBankRepository;
+    private final PublishedSlotRepository publishedSlotRepository;
     private final UserRepository userRepository;
     private final GeolocationService geolocationService;
     private final PasswordEncoder passwordEncoder;
     private final DonationRepository donationRepository;
     private final AchievementService achievementService;
+    private final BloodBankSpatialIndex bloodBankSpatialIndex;
+    private final BloodBankLocationMetrics bloodBankLocationMetrics;
+    private final SlotInventory slotInventory;
+    private final WaitlistService waitlistService;
+    private final AvailabilityTemplateService availabilityTemplateService;
+    private final AvailabilitySummaryRepository availabilitySummaryRepository;
+    private final EarliestSlotService earliestSlotService;
+
+    /**
+     * Loads every blood bank with a stored location into the in-memory spatial index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSpatialIndex() {
+        bloodBankSpatialIndex.rebuild(bloodBankRepository.findAllBloodBanks());
+    }
 
     /**
      * Creates a new blood bank with default values and saves it to the database.
@@ -55,8 +98,10 @@ public class BloodBankService {
         bloodBank.setCnpj(dto.getCnpj());
         bloodBank.setCampaigns(new ArrayList<>());
         bloodBank.setScheduledDonations(0);
+        bloodBank.setLocation(geolocationService.locate(dto.getAddress()).orElse(null));
 
         bloodBank = bloodBankRepository.save(bloodBank);
+        bloodBankSpatialIndex.put(bloodBank);
         return toResponseDTO(bloodBank);
     }
 
@@ -84,6 +129,31 @@ public class BloodBankService {
                 .orElseThrow(() -> new RuntimeException(Messages.USER_NOT_FOUND));
     }
 
+    /**
+     * Streams the IDs of the donors within a radius of a blood bank, straight from a database cursor
+     * over the donor targeting index. No {@code User} document is loaded. <br>
+     * The returned stream holds the cursor open and must be closed by the caller.
+     *
+     * @param bloodBankId        the blood bank ID
+     * @param radiusKm           the radius in kilometers, at most {@value #MAX_DONOR_DISTANCE_KM}
+     * @param bloodType          only donors of this blood type, or null for any
+     * @param lastDonationBefore only donors that never donated or last donated on or before this date, or null for any
+     * @return the donor IDs
+     */
+    public Stream<String> streamNearbyDonorIds(String bloodBankId, double radiusKm, BloodType bloodType, LocalDate lastDonationBefore) {
+        if (!(radiusKm > 0 && radiusKm <= MAX_DONOR_DISTANCE_KM)) {
+            throw new LocationException("radiusKm must be greater than 0 and at most " + MAX_DONOR_DISTANCE_KM);
+        }
+
+        BloodBank bloodBank = bloodBankRepository.findBloodBankById(bloodBankId)
+                .orElseThrow(() -> new RuntimeException(Messages.USER_NOT_FOUND));
+        if (bloodBank.getLocation() == null) {
+            throw new LocationException("Blood bank has no location yet");
+        }
+
+        return userRepository.streamDonorIdsNear(bloodBank.getLocation(), radiusKm, bloodType, lastDonationBefore);
+    }
+
     /**
      * Retrieves statistical data for a specific blood bank.
      *
@@ -109,100 +179,181 @@ public class BloodBankService {
     }
 
     /**
-     * Retrieves all blood banks and attempts to enrich each one with geolocation data. <br>
-     * If the address is incomplete or an error occurs, coordinates are set to 0.
+     * Retrieves all blood banks with their geolocation data. <br>
+     * The stored location is used when present. Banks without one are geocoded in parallel on
+     * virtual threads (at most {@value #MAX_CONCURRENT_LOOKUPS} at a time) under a per-request deadline;
+     * lookups that miss it keep running in the background and the bank is returned with
+     * {@code locationPending} set, as is a bank whose lookup failed. Banks without a known location
+     * have null coordinates.
      *
      * @return a list of blood bank DTOs including location information
      */
     public List<BloodBankMapDTO> getAllWithLocation() {
-        return bloodBankRepository.findAllBloodBanks().stream().map(bloodBank -> {
-            BloodBankMapDTO dto = toMapDTO(bloodBank);
-
-            try {
-                String address = removeAccents(bloodBank.getAddress().getStreet().toLowerCase() + ", " + bloodBank.getAddress().getCity().toLowerCase());
-
-                double[] coordinates = geolocationService.getCoordinatesFromAddress(address);
-                dto.setLatitude(coordinates[0]);
-                dto.setLongitude(coordinates[1]);
-            } catch (Exception e) {
-                System.err.println("Error trying to get the coords");
-                System.err.println("Error message: " + e.getMessage());
-                dto.setLatitude(0.0);
-                dto.setLongitude(0.0);
+        List<BloodBank> bloodBanks = bloodBankRepository.findAllBloodBanks();
+        List<BloodBankMapDTO> result = new ArrayList<>(bloodBanks.size());
+        List<PendingLookup> lookups = new ArrayList<>();
+
+        Semaphore permits = new Semaphore(MAX_CONCURRENT_LOOKUPS);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        long deadline = System.nanoTime() + LOCATIONS_DEADLINE.toNanos();
+
+        try {
+            for (BloodBank bloodBank : bloodBanks) {
+                BloodBankMapDTO dto = toMapDTO(bloodBank);
+                result.add(dto);
+
+                if (bloodBank.getLocation() != null) {
+                    dto.setLatitude(bloodBank.getLocation().getY());
+                    dto.setLongitude(bloodBank.getLocation().getX());
+                    continue;
+                }
+
+                Future<Optional<GeoJsonPoint>> future = executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        long start = System.nanoTime();
+                        Optional<GeoJsonPoint> location = geolocationService.locate(bloodBank.getAddress());
+                        bloodBankLocationMetrics.recordLookup(bloodBank.getId(), System.nanoTime() - start);
+                        return location;
+                    } finally {
+                        permits.release();
+                    }
+                });
+                lookups.add(new PendingLookup(bloodBank.getId(), dto, future));
             }
 
-            return dto;
-        }).collect(Collectors.toList());
+            for (PendingLookup lookup : lookups) {
+                // coordinates stay null unless the lookup finds the bank in time, (0, 0) is a real point
+                BloodBankMapDTO dto = lookup.dto();
+
+                try {
+                    long remaining = Math.max(0L, deadline - System.nanoTime());
+                    lookup.future().get(remaining, TimeUnit.NANOSECONDS).ifPresent(location -> {
+                        dto.setLatitude(location.getY());
+                        dto.setLongitude(location.getX());
+                    });
+                } catch (TimeoutException e) {
+                    dto.setLocationPending(true);
+                    bloodBankLocationMetrics.recordTimeout(lookup.bloodBankId());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dto.setLocationPending(true);
+                } catch (ExecutionException e) {
+                    // unknown for now: the next request looks it up again
+                    logger.warn("Could not locate blood bank {}", lookup.bloodBankId(), e.getCause());
+                    dto.setLocationPending(true);
+                }
+            }
+        } finally {
+            // no interrupt: late lookups finish in the background and land in the geocode cache
+            executor.shutdown();
+        }
+
+        return result;
+    }
+
+    private record PendingLookup(String bloodBankId, BloodBankMapDTO dto, Future<Optional<GeoJsonPoint>> future) {
     }
 
     /**
-     * Retrieves the nearby blood banks based on the user geolocation.
+     * Retrieves a page of the blood banks closest to the user, sorted by distance (ties by ID). <br>
+     * Answered from the in-memory spatial index, which keeps only the requested page while scanning.
+     * If the user has no stored location yet, it is geocoded and saved first.
      *
-     * @param userId the user ID to calculate the distance of the blood banks from
-     * @return a list of blood bank DTOs including location information
+     * @param userId   the user ID to calculate the distance of the blood banks from
+     * @param radiusKm the search radius in kilometers, at most {@value #MAX_DISTANCE_KM}
+     * @param limit    the page size, at most {@value #MAX_NEARBY_RESULTS}
+     * @param cursor   the cursor returned with the previous page, or null for the first page
+     * @return the page of blood banks and the cursor of the next page (null when there is none)
      */
-    public List<BloodBankNearbyDTO> getNearbyBloodbanksFromUser(String userId) {
-        User user = userRepository.findUserById(userId)
-                .orElseThrow(() -> new RuntimeException(Messages.USER_NOT_FOUND));
-
-        String userAddress = removeAccents(user.getAddress().getStreet().toLowerCase() + ", " + user.getAddress().getCity().toLowerCase());
-        double[] userCoordinates = geolocationService.getCoordinatesFromAddress(userAddress);
-        double userLat = userCoordinates[0];
-        double userLon = userCoordinates[1];
-
-        final double MAX_DISTANCE_KM = 80.0;
-
-        return bloodBankRepository.findAllBloodBanks().stream().map(bloodBank -> {
-            BloodBankNearbyDTO dto = toNearbyDTO(bloodBank);
+    public BloodBankNearbyPageDTO getNearbyBloodbanksFromUser(String userId, double radiusKm, int limit, String cursor) {
+        if (!(radiusKm > 0 && radiusKm <= MAX_DISTANCE_KM)) {
+            throw new LocationException("radiusKm must be greater than 0 and at most " + MAX_DISTANCE_KM);
+        }
+        if (limit < 1 || limit > MAX_NEARBY_RESULTS) {
+            throw new LocationException("limit must be between 1 and " + MAX_NEARBY_RESULTS);
+        }
+        BloodBankSpatialIndex.Cursor after = BloodBankSpatialIndex.Cursor.decode(cursor);
 
-            try {
-                if (bloodBank.getAddress() != null) {
-                    String fullAddress = removeAccents(bloodBank.getAddress().getStreet().toLowerCase() + ", " + bloodBank.getAddress().getCity().toLowerCase());
+        Optional<GeoJsonPoint> location = locateUser(userId);
+        if (location.isEmpty()) {
+            return new BloodBankNearbyPageDTO(new ArrayList<>(), null);
+        }
+        GeoJsonPoint userLocation = location.get();
 
-                    double[] coordinates = geolocationService.getCoordinatesFromAddress(fullAddress);
+        // one extra match tells whether there is a next page, so the last page never comes with a cursor
+        List<BloodBankSpatialIndex.Match> matches = bloodBankSpatialIndex.withinRadius(
+                userLocation.getY(), userLocation.getX(), radiusKm, limit + 1, after);
 
-                    if (coordinates[0] != 0.0) {
-                        double bankLat = coordinates[0];
-                        double bankLon = coordinates[1];
+        String nextCursor = null;
+        if (matches.size() > limit) {
+            matches = matches.subList(0, limit);
+            nextCursor = matches.get(limit - 1).cursor().encode();
+        }
+        List<BloodBankNearbyDTO> page = matches.stream()
+                .map(this::toNearbyDTO)
+                .collect(Collectors.toList());
+        return new BloodBankNearbyPageDTO(page, nextCursor);
+    }
 
-                        double distance = calculateDistance(userLat, userLon, bankLat, bankLon);
+    /**
+     * Finds the earliest open slots among the blood banks within a radius of the user, in a single request.
+     *
+     * @param userId   the ID of the user
+     * @param radiusKm the search radius in kilometers
+     * @param limit    the maximum number of slots
+     * @param order    "time" (earliest first) or "score" (time and distance combined)
+     * @param days     how many days ahead are searched
+     * @return the slots in the requested order, or an empty list if the user could not be located
+     */
+    public List<EarliestSlotDTO> findEarliestSlotsNearUser(String userId, double radiusKm, int limit, String order, int days) {
+        if (!(radiusKm > 0 && radiusKm <= MAX_DISTANCE_KM)) {
+            throw new LocationException("radiusKm must be greater than 0 and at most " + MAX_DISTANCE_KM);
+        }
+        if (limit < 1 || limit > MAX_NEARBY_RESULTS) {
+            throw new LocationException("limit must be between 1 and " + MAX_NEARBY_RESULTS);
+        }
+        if (days < 1 || days > EarliestSlotService.MAX_DAYS) {
+            throw new LocationException("days must be between 1 and " + EarliestSlotService.MAX_DAYS);
+        }
+        EarliestSlotService.Order slotOrder = EarliestSlotService.Order.parse(order);
 
-                        if (distance <= MAX_DISTANCE_KM) {
-                            dto.setDistance(distance);
-                            return dto;
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("\n\n\n\nError trying to get the coords");
-                System.err.println("Error message: " + e.getMessage());
-            }
+        Optional<GeoJsonPoint> location = locateUser(userId);
+        if (location.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-            return null;
-        }).filter(Objects::nonNull).collect(Collectors.toList());
+        List<BloodBankSpatialIndex.Match> bloodBanks = bloodBankSpatialIndex.withinRadius(
+                location.get().getY(), location.get().getX(), radiusKm, MAX_NEARBY_RESULTS);
+        return earliestSlotService.findEarliest(bloodBanks, limit, slotOrder, days);
     }
 
     /**
-     * Calculates the distance between two geographic coordinates using the Haversine formula.
+     * Gets the stored location of a user, geocoding and storing it on first use.
+     * Also makes sure the spatial index is built.
      *
-     * @param lat1 latitude of the first point
-     * @param lon1 longitude of the first point
-     * @param lat2 latitude of the second point
-     * @param lon2 longitude of the second point
-     * @return the distance in kilometers
+     * @return the location, or empty if the address could not be geocoded
      */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int EARTH_RADIUS_KM = 6371;
+    private Optional<GeoJsonPoint> locateUser(String userId) {
+        User user = userRepository.findUserById(userId)
+                .orElseThrow(() -> new RuntimeException(Messages.USER_NOT_FOUND));
 
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
+        GeoJsonPoint userLocation = user.getLocation();
+        if (userLocation == null) {
+            Optional<GeoJsonPoint> located = geolocationService.locate(user.getAddress());
+            if (located.isEmpty()) {
+                return Optional.empty();
+            }
 
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+            userLocation = located.get();
+            user.setLocation(userLocation);
+            userRepository.save(user);
+        }
 
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return EARTH_RADIUS_KM * c;
+        if (!bloodBankSpatialIndex.isReady()) {
+            rebuildSpatialIndex();
+        }
+        return Optional.of(userLocation);
     }
 
     public String removeAccents(String input) {
@@ -280,52 +431,113 @@ public class BloodBankService {
     }
 
     /**
-     * Converts a BloodBank entity to a DTO with distance field.
+     * Converts a spatial index match to a DTO with distance field.
      *
-     * @param bloodBank the blood bank entity
+     * @param match the spatial index match
      * @return the nearby DTO
      */
-    private BloodBankNearbyDTO toNearbyDTO(BloodBank bloodBank) {
+    private BloodBankNearbyDTO toNearbyDTO(BloodBankSpatialIndex.Match match) {
         BloodBankNearbyDTO dto = new BloodBankNearbyDTO();
-        dto.setName(bloodBank.getName());
-        dto.setAddress(bloodBank.getAddress());
-        dto.setPhone(bloodBank.getPhone());
+        dto.setId(match.entry().id());
+        dto.setName(match.entry().name());
+        dto.setAddress(match.entry().address());
+        dto.setPhone(match.entry().phone());
+        dto.setLatitude(match.entry().latitude());
+        dto.setLongitude(match.entry().longitude());
+        dto.setDistance(match.distanceKm());
         return dto;
     }
 
     /**
-     * Adds an availability slot to a blood bank.
+     * Creates an availability template for a blood bank. A stored slot replaces the template slots on the
+     * same date and time, so the slots already stored on the days and hours the template covers, from today
+     * on, get its spots added.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param dto         the template data
+     * @return the created template
+     * @throws RuntimeException if the blood bank is not found or the template is invalid
+     */
+    public AvailabilityTemplateDTO createAvailabilityTemplate(String bloodBankId, AvailabilityTemplateDTO dto) {
+        AvailabilityTemplateDTO created = availabilityTemplateService.create(bloodBankId, dto);
+
+        LocalDate today = LocalDate.now(Donation.ZONE);
+        LocalDate first = created.getStartDate().isBefore(today) ? today : created.getStartDate();
+        if (created.getEndDate().isBefore(first)) {
+            markAllSummariesStale(bloodBankId);
+            return created;
+        }
+
+        Map<SlotKey, Integer> templateSpots = availabilityTemplateService.expand(bloodBankId, created, first, created.getEndDate());
+        Map<SlotKey, Integer> added = new HashMap<>();
+        for (PublishedSlot slot : publishedSlotRepository.findByBloodBankIdAndDateRange(bloodBankId, first, created.getEndDate())) {
+            Integer spots = templateSpots.get(SlotKey.of(slot));
+            if (spots != null) {
+                added.put(SlotKey.of(slot), spots);
+            }
+        }
+        if (!added.isEmpty()) {
+            publishedSlotRepository.addTotalSpots(added);
+            slotInventory.invalidate(added.keySet());
+        }
+        markAllSummariesStale(bloodBankId);
+        added.keySet().forEach(waitlistService::fillFromWaitlist);
+        return created;
+    }
+
+    /**
+     * Removes an availability template of a blood bank. Slots already booked or published by hand are kept.
+     *
+     * @throws RuntimeException if the template does not exist
+     */
+    public void deleteAvailabilityTemplate(String bloodBankId, String templateId) {
+        availabilityTemplateService.delete(bloodBankId, templateId);
+        markAllSummariesStale(bloodBankId);
+    }
+
+    /**
+     * Marks the summaries of a blood bank stale exclusively with their rebuilds: a rebuild that read the
+     * slots before a template changed finishes first, so it cannot clear the flag with the old data.
+     */
+    private void markAllSummariesStale(String bloodBankId) {
+        slotInventory.runExclusive(() -> availabilitySummaryRepository.markAllStale(bloodBankId));
+    }
+
+    /**
+     * Publishes availability slots of a blood bank. Publishing a slot again sets its total spots,
+     * it does not add to them.
      *
      * @param dto the DTO with the availability slot data
      * @throws RuntimeException if the blood bank is not found
      */
     public void addAvailabilitySlots(BloodBankAvailabilityDTO dto) {
-        BloodBank bloodBank = bloodBankRepository.findBloodBankById(dto.getId())
-                .orElseThrow(() -> new RuntimeException("Banco de sangue não encontrado"));
-
-        if (bloodBank.getAvailabilitySlots() == null) {
-            bloodBank.setAvailabilitySlots(new ArrayList<>());
+        if (!bloodBankRepository.existsBloodBankById(dto.getId())) {
+            throw new RuntimeException("Banco de sangue não encontrado");
         }
 
+        List<PublishedSlot> slots = new ArrayList<>();
         for (DailyAvailabilityDTO dailyDto: dto.getAvailability()) {
-            LocalDate date = dailyDto.getDate();
-
-            List<Slot> slots = dailyDto.getSlots().stream()
-                    .map(s -> {
-                        Slot slot = new Slot();
-                        slot.setTime(s.getTime());
-                        slot.setTotalSpots(s.getAvailableSpots());
-                        slot.setBookedSpots(0);
-                        slot.setAvailableSpots(s.getAvailableSpots());
-                        return slot;
-                    })
-                    .toList();
-            DailyAvailability daily = new DailyAvailability(date, slots);
-            bloodBank.getAvailabilitySlots().add(daily);
+            for (SlotDTO slotDto : dailyDto.getSlots()) {
+                PublishedSlot slot = new PublishedSlot();
+                slot.setBloodBankId(dto.getId());
+                slot.setDate(dailyDto.getDate());
+                slot.setTime(slotDto.getTime());
+                slot.setTotalSpots(slotDto.getAvailableSpots());
+                slots.add(slot);
+            }
+        }
+        List<SlotKey> keys = slots.stream().map(SlotKey::of).toList();
+        if (keys.isEmpty()) {
+            return;
         }
-        bloodBankRepository.save(bloodBank);
-    }
 
+        // the published total replaces the one of a template slot on the same date and time
+        publishedSlotRepository.publish(slots);
+        slotInventory.invalidate(keys);
+        availabilitySummaryRepository.markStale(dto.getId(),
+                keys.stream().map(key -> YearMonth.from(key.date())).collect(Collectors.toSet()));
+        keys.forEach(waitlistService::fillFromWaitlist);
+    }
 
     /**
      * Schedules a donation appointment for a user at a blood bank.
@@ -351,6 +563,11 @@ public class BloodBankService {
             throw new RuntimeException("Usuário já possui agendamento nesse horário.");
         }
 
+        if (!slotInventory.book(new SlotKey(bloodBank.getId(), dto.getDate(), LocalTime.parse(dto.getHour())))) {
+            throw new RuntimeException("Sem vagas disponíveis para esse horário.");
+        }
+        bloodBankRepository.incrementScheduledDonations(bloodBank.getId());
+
         ScheduledDonation scheduledDonation = new ScheduledDonation();
         scheduledDonation.setBloodBankId(bloodBank.getId());
         scheduledDonation.setDate(dto.getDate());
@@ -361,31 +578,6 @@ public class BloodBankService {
         user.setLastDonationDate(dto.getDate());
         userRepository.save(user);
 
-        int current = bloodBank.getScheduledDonations() != null ? bloodBank.getScheduledDonations() : 0;
-        bloodBank.setScheduledDonations(current + 1);
-        bloodBankRepository.save(bloodBank);
-
-        BloodBank availability = bloodBankRepository.findBloodBankById(dto.getBloodBankId())
-                .orElseThrow(() -> new RuntimeException("Disponibilidade de banco nao encontrada"));
-
-        DailyAvailability daily = availability.getAvailabilitySlots().stream()
-                .filter(d -> d.getDate().equals(dto.getDate()))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Data não encontrada na disponiblidade"));
-
-        LocalTime time = LocalTime.parse(dto.getHour());
-        Slot slot = daily.getSlots().stream()
-                .filter(s -> s.getTime().equals(time))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Sem vagas disponíveis para esse horário."));
-
-        if (slot.getAvailableSpots() <= 0) {
-            throw new RuntimeException("Sem vagas disponíveis para esse horário");
-        }
-
-        slot.setAvailableSpots(slot.getAvailableSpots() - 1);
-        bloodBankRepository.save(availability);
-
         achievementService.validateAndUnlockAchievements(user);
     }
 
@@ -400,24 +592,6 @@ public class BloodBankService {
     }
     **/
 
-    /**
-     * Finds all blood banks with available dates only.
-     *
-     * @return list of blood banks with available dates
-     */
-    public List<BloodBank> findAvailableDates() {
-        return bloodBankRepository.findAvailableDatesOnly();
-    }
-
-    /**
-     * Finds all blood banks with available hours only.
-     *
-     * @return list of blood banks with available time slots
-     */
-    public List<BloodBank> findAvailableHours() {
-        return bloodBankRepository.findAvailableHoursOnly();
-    }
-
     public BloodBank findEntityById(String id) {
         return bloodBankRepository.findById(id).orElse(null);
     }
@@ -433,96 +607,126 @@ public class BloodBankService {
         BloodBank bloodBank = bloodBankRepository.findBloodBankById(id)
                 .orElseThrow(() -> new RuntimeException(Messages.USER_NOT_FOUND));
 
+        boolean addressChanged = !Objects.equals(
+                GeolocationService.formatAddress(bloodBank.getAddress()),
+                GeolocationService.formatAddress(dto.getAddress()));
+
         bloodBank.setName(dto.getName());
         bloodBank.setEmail(dto.getEmail());
         bloodBank.setAddress(dto.getAddress());
+        if (addressChanged || bloodBank.getLocation() == null) {
+            bloodBank.setLocation(geolocationService.locate(dto.getAddress()).orElse(null));
+        }
         bloodBank.setPhone(dto.getPhone());
         bloodBank.setCnpj(dto.getCnpj());
 
         bloodBank = bloodBankRepository.save(bloodBank);
+        bloodBankSpatialIndex.put(bloodBank);
         return toResponseDTO(bloodBank);
     }
 
-    public List<DailyAvailabilityDTO> getAvailableDonationDatesWithSpots(String bloodbankId) {
-        BloodBank bloodBank = bloodBankRepository.findBloodBankById(bloodbankId)
-                .orElseThrow(() -> new RuntimeException("Banco de sangue não encontrado"));
+    /**
+     * Gets the available spots of the slots of a blood bank between two days, grouped by date.
+     *
+     * @param bloodbankId the blood bank ID
+     * @param from        the first day, or null for today (or for every stored slot, when {@code to} is null too)
+     * @param to          the last day, or null for {@value #DEFAULT_WINDOW_DAYS} days after the first
+     * @return the slots of each day, sorted by date
+     */
+    public List<DailyAvailabilityDTO> getAvailableDonationDatesWithSpots(String bloodbankId, LocalDate from, LocalDate to) {
+        if (!bloodBankRepository.existsBloodBankById(bloodbankId)) {
+            throw new RuntimeException("Banco de sangue não encontrado");
+        }
 
-        if (bloodBank.getAvailabilitySlots() == null || bloodBank.getAvailabilitySlots().isEmpty()) {
-            return new ArrayList<>();
+        Map<LocalDate, List<SlotDTO>> slotsByDate = new LinkedHashMap<>();
+        for (PublishedSlot slot : findSlots(bloodbankId, from, to)) {
+            slotsByDate.computeIfAbsent(slot.getDate(), d -> new ArrayList<>())
+                    .add(new SlotDTO(slot.getTime(), slot.getAvailableSpots()));
         }
 
-        return bloodBank.getAvailabilitySlots().stream()
-                .map(dailyAvailability -> {
-                    DailyAvailabilityDTO dto = new DailyAvailabilityDTO();
-                    dto.setDate(dailyAvailability.getDate());
+        return slotsByDate.entrySet().stream()
+                .map(entry -> new DailyAvailabilityDTO(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
 
-                    List<SlotDTO> slotDTOs = dailyAvailability.getSlots().stream()
-                            .map(slot -> {
-                                SlotDTO slotDTO = new SlotDTO();
-                                slotDTO.setTime(slot.getTime());
-                                slotDTO.setAvailableSpots(slot.getAvailableSpots());
-                                return slotDTO;
-                            })
-                            .collect(Collectors.toList());
+    /**
+     * Gets the available spots of the slots of a blood bank between two days, grouped by date.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param from        the first day, or null for today (or for every stored slot, when {@code to} is null too)
+     * @param to          the last day, or null for {@value #DEFAULT_WINDOW_DAYS} days after the first
+     * @return the slots by date (yyyy-MM-dd), or null if the blood bank does not exist
+     */
+    public Map<String, List<SlotDTO>> getAvailabilityByDate(String bloodBankId, LocalDate from, LocalDate to) {
+        if (!bloodBankRepository.existsBloodBankById(bloodBankId)) {
+            return null;
+        }
 
-                    dto.setSlots(slotDTOs);
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        Map<String, List<SlotDTO>> result = new HashMap<>();
+        for (PublishedSlot slot : findSlots(bloodBankId, from, to)) {
+            result.computeIfAbsent(slot.getDate().toString(), k -> new ArrayList<>())
+                    .add(new SlotDTO(slot.getTime(), slot.getAvailableSpots()));
+        }
+        return result;
     }
 
     public AvailableSlotsDTO getAvailableSlotsForDate(String bloodBankId, String dateStr) {
         String datePrefix = dateStr.substring(0, 10);
         LocalDate targetDate = LocalDate.parse(datePrefix);
 
-        // 1. Buscar banco de sangue
-        BloodBank bloodBank = bloodBankRepository.findById(bloodBankId)
-                .orElseThrow(() -> new RuntimeException("Banco de sangue não encontrado"));
-
-        // 2. Buscar slots publicados
-        List<DailyAvailability> availabilityList = bloodBank.getAvailabilitySlots();
-        if (availabilityList == null || availabilityList.isEmpty()) {
-            return new AvailableSlotsDTO(dateStr, Collections.emptyList());
-        }
-
-        // 3. Encontrar slots para a data específica
-        DailyAvailability daySlots = availabilityList.stream()
-                .filter(slot -> slot.getDate() != null && slot.getDate().equals(targetDate))
-                .findFirst()
-                .orElse(null);
-
-        if (daySlots == null || daySlots.getSlots() == null) {
-            return new AvailableSlotsDTO(dateStr, Collections.emptyList());
+        if (!bloodBankRepository.existsBloodBankById(bloodBankId)) {
+            throw new RuntimeException("Banco de sangue não encontrado");
         }
 
-        List<AvailableSlotsDTO.SlotInfo> slotsInfo = daySlots.getSlots().stream()
-                .map(slot -> {
-                    String slotTime = slot.getTime().toString().trim();
-
-                    // Usar valores do banco - totalSpots nunca muda
-                    int totalSpots = slot.getTotalSpots() != null ? slot.getTotalSpots() : 0;
-                    int bookedSpots = slot.getBookedSpots() != null ? slot.getBookedSpots() : 0;
-                    int availableSpots = slot.getAvailableSpots() != null ? slot.getAvailableSpots() : 0;
-
-                    return new AvailableSlotsDTO.SlotInfo(
-                            slotTime,
-                            totalSpots,
-                            bookedSpots,
-                            availableSpots
-                    );
-                })
+        List<PublishedSlot> stored = publishedSlotRepository.findByBloodBankIdAndDateOrderByTimeAsc(bloodBankId, targetDate);
+        List<AvailableSlotsDTO.SlotInfo> slotsInfo = availabilityTemplateService.withTemplateSlots(bloodBankId, stored, targetDate, targetDate).stream()
+                .map(slot -> new AvailableSlotsDTO.SlotInfo(
+                        slot.getTime().toString().trim(),
+                        slot.getTotalSpots(),
+                        slot.getBookedSpots(),
+                        slot.getAvailableSpots()
+                ))
                 .toList();
 
         return new AvailableSlotsDTO(dateStr, slotsInfo);
     }
 
     public List<BloodBankResponseDTO> findAllWithAvailableSlots() {
-        return bloodBankRepository.findBloodBanksWithAvailableSlots().stream()
-                .filter(bloodBank -> !bloodBank.getAvailabilitySlots().isEmpty())
+        Set<String> ids = new HashSet<>(publishedSlotRepository.findBloodBankIdsWithSlots());
+        ids.addAll(availabilityTemplateService.findBloodBankIdsWithTemplates(LocalDate.now(Donation.ZONE)));
+
+        return bloodBankRepository.findAllById(ids).stream()
+                .filter(bloodBank -> bloodBank.getRole() == Role.BLOODBANK)
                 .map(this::toResponseDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The stored slots of a blood bank between two days, plus the slots its templates give to those days.
+     * Only the requested days are expanded, at most {@link AvailabilityTemplateService#MAX_TEMPLATE_DAYS}.
+     * Without any day, every stored slot is returned, past ones included, so the blood bank can still list
+     * and cancel them; its templates are then expanded from today on.
+     */
+    private List<PublishedSlot> findSlots(String bloodBankId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            LocalDate today = LocalDate.now(Donation.ZONE);
+            return availabilityTemplateService.withTemplateSlots(bloodBankId,
+                    publishedSlotRepository.findByBloodBankId(bloodBankId),
+                    today, today.plusDays(AvailabilityTemplateService.MAX_TEMPLATE_DAYS));
+        }
+
+        LocalDate first = from != null ? from : LocalDate.now(Donation.ZONE);
+        LocalDate last = to != null ? to : first.plusDays(DEFAULT_WINDOW_DAYS);
+        if (last.isBefore(first)) {
+            throw new RuntimeException("Período inválido");
+        }
+        if (last.isAfter(first.plusDays(AvailabilityTemplateService.MAX_TEMPLATE_DAYS))) {
+            last = first.plusDays(AvailabilityTemplateService.MAX_TEMPLATE_DAYS);
+        }
+        return availabilityTemplateService.withTemplateSlots(bloodBankId,
+                publishedSlotRepository.findByBloodBankIdAndDateRange(bloodBankId, first, last), first, last);
+    }
+
     /**
      * Cancela uma data disponível do banco de sangue
      * Valida se não há doações ativas antes de remover
@@ -533,9 +737,10 @@ public class BloodBankService {
      */
     @Transactional
     public void cancelAvailableDate(String bloodbankId, String date) {
-        // 1. Buscar o banco de sangue
-        BloodBank bloodBank = bloodBankRepository.findBloodBankById(bloodbankId)
-                .orElseThrow(() -> new RuntimeException("Banco de sangue não encontrado"));
+        // 1. Verificar o banco de sangue
+        if (!bloodBankRepository.existsBloodBankById(bloodbankId)) {
+            throw new RuntimeException("Banco de sangue não encontrado");
+        }
 
         // 2. Verificar se há doações ativas para esta data
         List<Donation.DonationStatus> activeStatuses = Arrays.asList(
@@ -544,43 +749,36 @@ public class BloodBankService {
         );
 
         // Extrair apenas YYYY-MM-DD
-        String datePrefix = date.substring(0, 10);
-        LocalDate targetDate = LocalDate.parse(datePrefix);
+        LocalDate targetDate = LocalDate.parse(date.substring(0, 10));
 
-        List<Donation> activeDonations = donationRepository
-                .findByBloodBankIdAndDateStartsWithAndStatusIn(
+        long activeDonations = donationRepository
+                .countByBloodBankIdInRangeAndStatusIn(
                         bloodbankId,
-                        datePrefix,
+                        Donation.startOf(targetDate),
+                        Donation.startOf(targetDate.plusDays(1)),
                         activeStatuses
                 );
 
-        if (!activeDonations.isEmpty()) {
+        if (activeDonations > 0) {
             throw new RuntimeException(
                     "Não é possível cancelar esta data pois há " +
-                            activeDonations.size() +
+                            activeDonations +
                             " doação(ões) agendada(s). Cancele os agendamentos primeiro."
             );
         }
 
-        // 3. Buscar slots disponíveis
-        List<DailyAvailability> availabilitySlots = bloodBank.getAvailabilitySlots();
+        // 3. Excluir a data dos modelos de disponibilidade recorrente, antes de remover os horários,
+        // para que nenhum horário da data volte a ser gerado a partir de um modelo
+        long removed = availabilityTemplateService.excludeDate(bloodbankId, targetDate);
 
-        if (availabilitySlots == null || availabilitySlots.isEmpty()) {
-            throw new RuntimeException("Nenhuma data disponível encontrada");
-        }
-
-        // 4. Remover a data correspondente
-        List<DailyAvailability> updatedSlots = availabilitySlots.stream()
-                .filter(slot -> slot.getDate() == null || !slot.getDate().isEqual(targetDate))
-                .collect(Collectors.toList());
+        // 4. Remover os horários publicados para a data
+        removed += publishedSlotRepository.deleteByBloodBankIdAndDate(bloodbankId, targetDate);
+        slotInventory.invalidateDate(bloodbankId, targetDate);
+        waitlistService.purgeDate(bloodbankId, targetDate);
+        availabilitySummaryRepository.markStale(bloodbankId, List.of(YearMonth.from(targetDate)));
 
-        // Verificar se realmente removeu algo
-        if (updatedSlots.size() == availabilitySlots.size()) {
+        if (removed == 0) {
             throw new RuntimeException("Data não encontrada nos slots disponíveis");
         }
-
-        // 5. Atualizar e salvar
-        bloodBank.setAvailabilitySlots(updatedSlots);
-        bloodBankRepository.save(bloodBank);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,362 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.model.Address;
+import com.projeto.aplicado.backend.model.users.BloodBank;
+import com.projeto.aplicado.backend.exception.LocationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * In-memory spatial index of the blood banks that have a stored location.<br>
+ * Banks are bucketed in a fixed latitude/longitude grid, so radius and k-nearest queries only
+ * look at the cells around the query point instead of scanning every bank. Each cell is a
+ * {@link DistanceKernel}, which scans its banks in batch and keeps only the top-k results.
+ * The index is rebuilt at startup and kept up to date by {@link BloodBankService} on create/update.
+ * It replaced the {@code $geoNear} query on {@code users.location}: the nearby search is answered only
+ * here, so its distances and cursors always come from the same earth radius.
+ */
+@Component
+public class BloodBankSpatialIndex {
+    static final double CELL_SIZE_DEGREES = 0.5;
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final int MAX_RING = (int) Math.ceil(360 / CELL_SIZE_DEGREES);
+
+    private final Map<String, Entry> entriesById = new ConcurrentHashMap<>();
+    private final Map<Long, DistanceKernel<Entry>> cells = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    /**
+     * Blood bank data needed to answer a nearby query without touching the database.
+     */
+    public record Entry(String id, String name, Address address, String phone, double latitude, double longitude) {
+    }
+
+    /**
+     * A blood bank found by a query, with its distance to the query point.
+     * {@code haversine} is the exact sort key of the match, used to build the cursor of the next page.
+     */
+    public record Match(Entry entry, double distanceKm, double haversine) {
+
+        public Cursor cursor() {
+            return new Cursor(haversine, entry.id());
+        }
+    }
+
+    /**
+     * Position of the last match of a page: the next page starts right after it,
+     * in (distance, id) order.
+     */
+    public record Cursor(double haversine, String id) {
+
+        /**
+         * @return an opaque, URL-safe representation of the cursor
+         */
+        public String encode() {
+            String raw = Double.toString(haversine) + '|' + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @param encoded a value returned by {@link #encode()}, may be null or blank
+         * @return the cursor, or null when none was given
+         * @throws LocationException if the value is not a valid cursor
+         */
+        public static Cursor decode(String encoded) {
+            if (encoded == null || encoded.isBlank()) {
+                return null;
+            }
+
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                double haversine = Double.parseDouble(raw.substring(0, separator));
+                String id = raw.substring(separator + 1);
+                if (Double.isNaN(haversine) || id.isEmpty()) {
+                    throw new IllegalArgumentException();
+                }
+                return new Cursor(haversine, id);
+            } catch (RuntimeException e) {
+                throw new LocationException("Invalid cursor");
+            }
+        }
+    }
+
+    private static final Comparator<Entry> BY_ID = Comparator.comparing(Entry::id);
+
+    /**
+     * Replaces the whole content of the index.
+     *
+     * @param bloodBanks all the blood banks
+     */
+    public synchronized void rebuild(Collection<BloodBank> bloodBanks) {
+        entriesById.clear();
+        Map<Long, List<Entry>> grouped = new HashMap<>();
+        for (BloodBank bloodBank : bloodBanks) {
+            Entry entry = toEntry(bloodBank);
+            if (entry == null) {
+                continue;
+            }
+            entriesById.put(entry.id(), entry);
+            grouped.computeIfAbsent(cellKey(entry.latitude(), entry.longitude()), k -> new ArrayList<>()).add(entry);
+        }
+
+        cells.clear();
+        grouped.forEach((key, entries) -> cells.put(key, kernelOf(entries)));
+        ready = true;
+    }
+
+    /**
+     * Adds or updates a blood bank. Banks without a location are removed from the index.
+     *
+     * @param bloodBank the blood bank
+     */
+    public void put(BloodBank bloodBank) {
+        if (bloodBank.getId() == null) {
+            return;
+        }
+
+        Entry entry = toEntry(bloodBank);
+        if (entry == null) {
+            remove(bloodBank.getId());
+            return;
+        }
+        put(entry);
+    }
+
+    /**
+     * Adds or updates an entry. <br>
+     * Cells are immutable kernels, so the cell of the entry is rebuilt and swapped in:
+     * concurrent queries see either the old or the new cell, never a partial one.
+     *
+     * @param entry the entry
+     */
+    public synchronized void put(Entry entry) {
+        remove(entry.id());
+        entriesById.put(entry.id(), entry);
+
+        long key = cellKey(entry.latitude(), entry.longitude());
+        DistanceKernel<Entry> cell = cells.get(key);
+        List<Entry> entries = cell == null ? new ArrayList<>() : cell.items();
+        entries.add(entry);
+        cells.put(key, kernelOf(entries));
+    }
+
+    /**
+     * Removes a blood bank from the index.
+     *
+     * @param id the blood bank ID
+     */
+    public synchronized void remove(String id) {
+        Entry previous = entriesById.remove(id);
+        if (previous == null) {
+            return;
+        }
+
+        long key = cellKey(previous.latitude(), previous.longitude());
+        DistanceKernel<Entry> cell = cells.get(key);
+        if (cell == null) {
+            return;
+        }
+
+        List<Entry> entries = cell.items();
+        entries.remove(previous);
+        if (entries.isEmpty()) {
+            cells.remove(key);
+        } else {
+            cells.put(key, kernelOf(entries));
+        }
+    }
+
+    /**
+     * @return true once the index has been built at least once
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return the number of indexed blood banks
+     */
+    public int size() {
+        return entriesById.size();
+    }
+
+    /**
+     * Finds every blood bank within a radius, sorted by distance.
+     *
+     * @param latitude  latitude of the query point
+     * @param longitude longitude of the query point
+     * @param radiusKm  the radius in kilometers
+     * @return the matches sorted by distance (closest first)
+     */
+    public List<Match> withinRadius(double latitude, double longitude, double radiusKm) {
+        return withinRadius(latitude, longitude, radiusKm, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the closest blood banks within a radius, sorted by distance.
+     *
+     * @param latitude  latitude of the query point
+     * @param longitude longitude of the query point
+     * @param radiusKm  the radius in kilometers
+     * @param limit     the maximum number of results
+     * @return the matches sorted by distance (closest first)
+     */
+    public List<Match> withinRadius(double latitude, double longitude, double radiusKm, int limit) {
+        return withinRadius(latitude, longitude, radiusKm, limit, null);
+    }
+
+    /**
+     * Finds the closest blood banks within a radius that come after a cursor, sorted by distance. <br>
+     * Only the requested page is kept while scanning, so deep pages cost the same as the first one.
+     *
+     * @param latitude  latitude of the query point
+     * @param longitude longitude of the query point
+     * @param radiusKm  the radius in kilometers
+     * @param limit     the maximum number of results
+     * @param after     the cursor of the last match of the previous page, or null for the first page
+     * @return the matches sorted by distance (closest first), ties by ID
+     */
+    public List<Match> withinRadius(double latitude, double longitude, double radiusKm, int limit, Cursor after) {
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double lonSpan = radiusKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitude) + latSpan)))));
+
+        int minLat = latIndex(Math.max(-90.0, latitude - latSpan));
+        int maxLat = latIndex(Math.min(90.0, latitude + latSpan));
+        int lonCells = (int) Math.ceil(lonSpan / CELL_SIZE_DEGREES);
+        int centerLon = lonIndex(longitude);
+
+        DistanceKernel.Query query = after == null
+                ? new DistanceKernel.Query(latitude, longitude, radiusKm)
+                : new DistanceKernel.Query(latitude, longitude, radiusKm, after.haversine());
+        Predicate<Entry> afterTie = after == null ? null : entry -> entry.id().compareTo(after.id()) > 0;
+        DistanceKernel.TopK<Entry> topK = new DistanceKernel.TopK<>(limit, BY_ID);
+        int lonFrom = lonCells * 2 + 1 >= MAX_RING ? 0 : centerLon - lonCells;
+        int lonTo = lonCells * 2 + 1 >= MAX_RING ? MAX_RING - 1 : centerLon + lonCells;
+
+        for (int la = minLat; la <= maxLat; la++) {
+            for (int lo = lonFrom; lo <= lonTo; lo++) {
+                DistanceKernel<Entry> cell = cells.get(cellKey(la, Math.floorMod(lo, MAX_RING)));
+                if (cell != null) {
+                    cell.collect(query, topK, afterTie);
+                }
+            }
+        }
+
+        return toMatches(topK);
+    }
+
+    /**
+     * Finds the k blood banks closest to a point, scanning rings of cells outwards
+     * until no unscanned cell can hold a closer bank.
+     *
+     * @param latitude  latitude of the query point
+     * @param longitude longitude of the query point
+     * @param k         the maximum number of results
+     * @return the matches sorted by distance (closest first)
+     */
+    public List<Match> nearest(double latitude, double longitude, int k) {
+        int total = entriesById.size();
+        if (k <= 0 || total == 0) {
+            return new ArrayList<>();
+        }
+
+        int centerLat = latIndex(latitude);
+        int centerLon = lonIndex(longitude);
+        DistanceKernel.Query query = new DistanceKernel.Query(latitude, longitude, Double.POSITIVE_INFINITY);
+        DistanceKernel.TopK<Entry> topK = new DistanceKernel.TopK<>(k, BY_ID);
+        Set<Long> visited = new HashSet<>();
+        int scanned = 0;
+
+        for (int ring = 0; ring <= MAX_RING; ring++) {
+            for (int la = centerLat - ring; la <= centerLat + ring; la++) {
+                boolean fullRow = Math.abs(la - centerLat) == ring;
+                int step = fullRow || ring == 0 ? 1 : ring * 2;
+
+                for (int lo = centerLon - ring; lo <= centerLon + ring; lo += step) {
+                    long key = cellKey(la, Math.floorMod(lo, MAX_RING));
+                    if (!visited.add(key)) {
+                        continue;
+                    }
+
+                    DistanceKernel<Entry> cell = cells.get(key);
+                    if (cell != null) {
+                        cell.collect(query, topK);
+                        scanned += cell.size();
+                    }
+                }
+            }
+
+            if (scanned >= total) {
+                break;
+            }
+            if (topK.isFull() && DistanceKernel.toKm(topK.worstKey()) <= minDistanceOutsideRing(latitude, ring)) {
+                break;
+            }
+        }
+
+        return toMatches(topK);
+    }
+
+    private static List<Match> toMatches(DistanceKernel.TopK<Entry> topK) {
+        List<Match> matches = new ArrayList<>(topK.size());
+        topK.drainSorted((entry, haversine) -> matches.add(new Match(entry, DistanceKernel.toKm(haversine), haversine)));
+        return matches;
+    }
+
+    private static DistanceKernel<Entry> kernelOf(List<Entry> entries) {
+        return DistanceKernel.of(entries, Entry::latitude, Entry::longitude);
+    }
+
+    private static Entry toEntry(BloodBank bloodBank) {
+        if (bloodBank.getId() == null || bloodBank.getLocation() == null) {
+            return null;
+        }
+
+        return new Entry(
+                bloodBank.getId(),
+                bloodBank.getName(),
+                bloodBank.getAddress(),
+                bloodBank.getPhone(),
+                bloodBank.getLocation().getY(),
+                bloodBank.getLocation().getX()
+        );
+    }
+
+    /**
+     * Lower bound of the distance from the query point to any cell outside the scanned rings.
+     */
+    private static double minDistanceOutsideRing(double latitude, int ring) {
+        double degrees = ring * CELL_SIZE_DEGREES;
+        double cosLat = Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitude) + degrees + CELL_SIZE_DEGREES)));
+        return degrees * KM_PER_DEGREE * Math.max(0.0, cosLat);
+    }
+
+    private static int latIndex(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / CELL_SIZE_DEGREES);
+    }
+
+    private static int lonIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / CELL_SIZE_DEGREES), MAX_RING);
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return cellKey(latIndex(latitude), lonIndex(longitude));
+    }
+
+    private static long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xffffffffL);
+    }
+}
@@ -0,0 +1,238 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.model.Address;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Offline geocoder that maps the first five digits of a CEP (zip code) to the centroid of that region.<br>
+ * The dataset is a CSV with {@code cep_prefix,latitude,longitude} lines. At startup it is compiled into a
+ * sorted binary file of fixed-size records, which is memory-mapped and searched with binary search,
+ * so a lookup needs no network and no allocation besides the returned point.
+ * When no dataset is configured the geocoder is disabled and never finds anything.
+ */
+@Component
+public class CepCentroidGeocoder implements Geocoder {
+    private static final Logger logger = LoggerFactory.getLogger(CepCentroidGeocoder.class);
+
+    private static final int MAGIC = 0x43455030; // "CEP0"
+    private static final int HEADER_BYTES = 8; // magic + record count
+    private static final int RECORD_BYTES = 12; // int prefix + float latitude + float longitude
+    private static final int PREFIX_DIGITS = 5;
+
+    private final String datasetPath;
+    private final String indexPath;
+
+    private MappedByteBuffer table;
+    private int count;
+
+    public CepCentroidGeocoder(@Value("${geocoding.cep.dataset:}") String datasetPath,
+                               @Value("${geocoding.cep.index-file:${java.io.tmpdir}/cep-centroids.bin}") String indexPath) {
+        this.datasetPath = datasetPath;
+        this.indexPath = indexPath;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (datasetPath == null || datasetPath.isBlank()) {
+            logger.info("No CEP centroid dataset configured, offline geocoding disabled.");
+            return;
+        }
+
+        try {
+            Path dataset = Path.of(datasetPath);
+            Path index = Path.of(indexPath);
+
+            if (!Files.exists(index) || Files.getLastModifiedTime(index).compareTo(Files.getLastModifiedTime(dataset)) < 0) {
+                compile(dataset, index);
+            }
+
+            try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                mapped.order(ByteOrder.BIG_ENDIAN);
+
+                if (mapped.getInt(0) != MAGIC) {
+                    logger.error("Invalid CEP centroid index file '{}', offline geocoding disabled.", index);
+                    return;
+                }
+
+                count = mapped.getInt(4);
+                table = mapped;
+            }
+
+            logger.info("Loaded {} CEP centroids from '{}'.", count, index);
+        } catch (IOException e) {
+            logger.error("Could not load the CEP centroid dataset '{}', offline geocoding disabled.", datasetPath, e);
+        }
+    }
+
+    /**
+     * @return true when a dataset is loaded
+     */
+    public boolean isEnabled() {
+        return table != null;
+    }
+
+    /**
+     * Finds the centroid of the address zip code. <br>
+     * Uses the exact five-digit prefix when known, otherwise the closest lower prefix
+     * in the same three-digit region.
+     *
+     * @param address the address to geocode
+     * @return the approximate point, or empty if the zip code is missing or unknown
+     */
+    @Override
+    public Optional<GeoJsonPoint> locate(Address address) {
+        if (table == null || address == null) {
+            return Optional.empty();
+        }
+
+        int prefix = parsePrefix(address.getZipCode());
+        if (prefix < 0) {
+            return Optional.empty();
+        }
+
+        int position = floor(prefix);
+        if (position < 0) {
+            return Optional.empty();
+        }
+
+        int offset = HEADER_BYTES + position * RECORD_BYTES;
+        int found = table.getInt(offset);
+        if (found != prefix && found / 100 != prefix / 100) {
+            return Optional.empty();
+        }
+
+        double latitude = table.getFloat(offset + 4);
+        double longitude = table.getFloat(offset + 8);
+        return Optional.of(new GeoJsonPoint(longitude, latitude));
+    }
+
+    /**
+     * Binary search for the last record whose prefix is lower than or equal to the given one.
+     */
+    private int floor(int prefix) {
+        int low = 0;
+        int high = count - 1;
+        int result = -1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int key = table.getInt(HEADER_BYTES + mid * RECORD_BYTES);
+            if (key <= prefix) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Extracts the five-digit prefix of a zip code such as "13010-111".
+     *
+     * @return the prefix, or -1 if the zip code has less than five digits
+     */
+    static int parsePrefix(String zipCode) {
+        if (zipCode == null) {
+            return -1;
+        }
+
+        int prefix = 0;
+        int digits = 0;
+        for (int i = 0; i < zipCode.length() && digits < PREFIX_DIGITS; i++) {
+            char c = zipCode.charAt(i);
+            if (c >= '0' && c <= '9') {
+                prefix = prefix * 10 + (c - '0');
+                digits++;
+            }
+        }
+        return digits == PREFIX_DIGITS ? prefix : -1;
+    }
+
+    /**
+     * Compiles the CSV dataset into the sorted binary table. Duplicated prefixes keep the first line.
+     */
+    private static void compile(Path dataset, Path index) throws IOException {
+        List<Centroid> records = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(dataset, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("[,;]");
+                if (parts.length < 3) {
+                    continue;
+                }
+
+                int prefix = parsePrefix(parts[0].trim());
+                if (prefix < 0) {
+                    continue; // header or invalid line
+                }
+
+                try {
+                    float latitude = Float.parseFloat(parts[1].trim());
+                    float longitude = Float.parseFloat(parts[2].trim());
+                    records.add(new Centroid(prefix, latitude, longitude));
+                } catch (NumberFormatException e) {
+                    // skip invalid coordinates
+                }
+            }
+        }
+
+        records.sort(Comparator.comparingInt(Centroid::prefix));
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + records.size() * RECORD_BYTES).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(0); // record count, written once duplicates are skipped
+
+        int written = 0;
+        int previous = -1;
+        for (Centroid record : records) {
+            if (record.prefix() == previous) {
+                continue;
+            }
+            buffer.putInt(record.prefix());
+            buffer.putFloat(record.latitude());
+            buffer.putFloat(record.longitude());
+            previous = record.prefix();
+            written++;
+        }
+        buffer.putInt(4, written);
+        buffer.limit(HEADER_BYTES + written * RECORD_BYTES);
+        buffer.position(0);
+
+        Path temp = Files.createTempFile(index.toAbsolutePath().getParent(), "cep-centroids", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        logger.info("Compiled {} CEP centroids from '{}' into '{}'.", written, dataset, index);
+    }
+
+    private record Centroid(int prefix, float latitude, float longitude) {
+    }
+}
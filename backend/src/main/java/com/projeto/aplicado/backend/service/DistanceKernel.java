@@ -0,0 +1,371 @@
+package com.projeto.aplicado.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Batch haversine distance over a fixed set of points.<br>
+ * Coordinates are kept as structure-of-arrays primitive {@code double[]}, with the radians and the
+ * latitude cosines computed once when the kernel is built. A query first rejects points outside the
+ * latitude/longitude bounding box of the radius, and only then computes the haversine term, without
+ * the final {@code atan2}: points are compared by the haversine term itself, which grows with the
+ * distance, and only the returned results are converted to kilometers.
+ *
+ * @param <T> the payload attached to each point
+ */
+public final class DistanceKernel<T> {
+    static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final Object[] items;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] latRadians;
+    private final double[] lonRadians;
+    private final double[] cosLatitudes;
+
+    private DistanceKernel(Object[] items, double[] latitudes, double[] longitudes) {
+        int size = items.length;
+        this.items = items;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.latRadians = new double[size];
+        this.lonRadians = new double[size];
+        this.cosLatitudes = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            latRadians[i] = Math.toRadians(latitudes[i]);
+            lonRadians[i] = Math.toRadians(longitudes[i]);
+            cosLatitudes[i] = Math.cos(latRadians[i]);
+        }
+    }
+
+    /**
+     * Builds a kernel over the given items.
+     *
+     * @param items     the payloads
+     * @param latitude  extracts the latitude (degrees) of an item
+     * @param longitude extracts the longitude (degrees) of an item
+     * @return the kernel
+     */
+    public static <T> DistanceKernel<T> of(List<T> items, ToDoubleFunction<T> latitude, ToDoubleFunction<T> longitude) {
+        int size = items.size();
+        Object[] payloads = new Object[size];
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            T item = items.get(i);
+            payloads[i] = item;
+            latitudes[i] = latitude.applyAsDouble(item);
+            longitudes[i] = longitude.applyAsDouble(item);
+        }
+        return new DistanceKernel<>(payloads, latitudes, longitudes);
+    }
+
+    /**
+     * @return the number of points
+     */
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * @return the payload of the i-th point
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int i) {
+        return (T) items[i];
+    }
+
+    /**
+     * @return a new list with every payload
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> items() {
+        List<T> list = new ArrayList<>(items.length);
+        for (Object item : items) {
+            list.add((T) item);
+        }
+        return list;
+    }
+
+    /**
+     * Offers every point within the query radius to the top-k collector.
+     *
+     * @param query the query point and radius
+     * @param topK  the collector of the closest points
+     */
+    public void collect(Query query, TopK<? super T> topK) {
+        collect(query, topK, null);
+    }
+
+    /**
+     * Offers every point within the query radius, and after the query lower bound, to the top-k collector.
+     *
+     * @param query    the query point, radius and lower bound
+     * @param topK     the collector of the closest points
+     * @param afterTie decides whether a point exactly at the lower bound comes after it; null rejects them all
+     */
+    @SuppressWarnings("unchecked")
+    public void collect(Query query, TopK<? super T> topK, Predicate<? super T> afterTie) {
+        for (int i = 0; i < items.length; i++) {
+            if (Math.abs(latitudes[i] - query.latitude) > query.latSpan) {
+                continue;
+            }
+            if (query.lonSpan < 180.0) {
+                double dLonDegrees = Math.abs(longitudes[i] - query.longitude);
+                if (dLonDegrees > 180.0) {
+                    dLonDegrees = 360.0 - dLonDegrees;
+                }
+                if (dLonDegrees > query.lonSpan) {
+                    continue;
+                }
+            }
+
+            double h = haversine(latRadians[i] - query.latRadians, lonRadians[i] - query.lonRadians,
+                    query.cosLatitude, cosLatitudes[i]);
+
+            if (h > query.maxHaversine || h > topK.worstKey() || h < query.minHaversine) {
+                continue;
+            }
+            if (h == query.minHaversine && (afterTie == null || !afterTie.test((T) items[i]))) {
+                continue;
+            }
+            topK.offer((T) items[i], h);
+        }
+    }
+
+    /**
+     * Calculates the distance between two geographic coordinates, one pair at a time.
+     *
+     * @return the distance in kilometers
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double h = haversine(Math.toRadians(lat2 - lat1), Math.toRadians(lon2 - lon1),
+                Math.cos(Math.toRadians(lat1)), Math.cos(Math.toRadians(lat2)));
+        return toKm(h);
+    }
+
+    /**
+     * Haversine term of two points, from their latitude and longitude differences (radians) and latitude cosines.
+     */
+    private static double haversine(double dLatRadians, double dLonRadians, double cosLat1, double cosLat2) {
+        double sinLat = Math.sin(dLatRadians * 0.5);
+        double sinLon = Math.sin(dLonRadians * 0.5);
+        return sinLat * sinLat + cosLat1 * cosLat2 * sinLon * sinLon;
+    }
+
+    /**
+     * Converts a haversine term into a distance in kilometers.
+     */
+    public static double toKm(double haversine) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, haversine)));
+    }
+
+    /**
+     * A query point with its radius, and the values derived from them that are shared by every kernel scanned.
+     * A query may also have a lower bound on the haversine term, to resume a previous query (keyset pagination).
+     */
+    public static final class Query {
+        private final double latitude;
+        private final double longitude;
+        private final double latRadians;
+        private final double lonRadians;
+        private final double cosLatitude;
+        private final double latSpan;
+        private final double lonSpan;
+        private final double maxHaversine;
+        private final double minHaversine;
+
+        /**
+         * @param latitude  latitude of the query point (degrees)
+         * @param longitude longitude of the query point (degrees)
+         * @param radiusKm  the radius in kilometers, or {@link Double#POSITIVE_INFINITY} for no limit
+         */
+        public Query(double latitude, double longitude, double radiusKm) {
+            this(latitude, longitude, radiusKm, Double.NEGATIVE_INFINITY);
+        }
+
+        /**
+         * @param latitude     latitude of the query point (degrees)
+         * @param longitude    longitude of the query point (degrees)
+         * @param radiusKm     the radius in kilometers, or {@link Double#POSITIVE_INFINITY} for no limit
+         * @param minHaversine only points with a haversine term greater than or equal to this one are collected
+         */
+        public Query(double latitude, double longitude, double radiusKm, double minHaversine) {
+            this.minHaversine = minHaversine;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.latRadians = Math.toRadians(latitude);
+            this.lonRadians = Math.toRadians(longitude);
+            this.cosLatitude = Math.cos(latRadians);
+
+            double halfAngle = radiusKm / (2 * EARTH_RADIUS_KM);
+            this.maxHaversine = halfAngle >= Math.PI / 2 ? 1.0 : Math.pow(Math.sin(halfAngle), 2);
+
+            // bounding box, slightly widened since KM_PER_DEGREE is the value at the equator
+            this.latSpan = radiusKm / KM_PER_DEGREE * 1.01;
+            double maxLatitude = Math.abs(latitude) + latSpan;
+            this.lonSpan = maxLatitude >= 89.0 ? 180.0 : Math.min(180.0, latSpan / Math.cos(Math.toRadians(maxLatitude)));
+        }
+    }
+
+    /**
+     * Bounded collector of the k entries with the smallest keys, backed by a max-heap on primitive arrays.
+     * Entries with equal keys are ordered by an optional tie comparator, so the order is total and stable across calls.
+     *
+     * @param <T> the payload type
+     */
+    public static final class TopK<T> {
+        private final int capacity;
+        private final Comparator<? super T> tieOrder;
+        private Object[] items;
+        private double[] keys;
+        private int size;
+
+        /**
+         * @param capacity the maximum number of entries kept
+         */
+        public TopK(int capacity) {
+            this(capacity, null);
+        }
+
+        /**
+         * @param capacity the maximum number of entries kept
+         * @param tieOrder orders entries with equal keys, or null to keep any of them
+         */
+        public TopK(int capacity, Comparator<? super T> tieOrder) {
+            this.capacity = capacity;
+            this.tieOrder = tieOrder;
+            int initial = Math.max(1, Math.min(capacity, 16));
+            this.items = new Object[initial];
+            this.keys = new double[initial];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isFull() {
+            return size >= capacity;
+        }
+
+        /**
+         * @return the largest key kept when full, otherwise positive infinity
+         */
+        public double worstKey() {
+            return isFull() ? keys[0] : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Adds an entry, replacing the one with the largest key when full.
+         */
+        public void offer(T item, double key) {
+            if (capacity <= 0) {
+                return;
+            }
+            if (size < capacity) {
+                if (size == keys.length) {
+                    int grown = (int) Math.min(capacity, keys.length * 2L);
+                    items = Arrays.copyOf(items, grown);
+                    keys = Arrays.copyOf(keys, grown);
+                }
+                items[size] = item;
+                keys[size] = key;
+                siftUp(size++);
+            } else if (compare(key, item, 0) < 0) {
+                items[0] = item;
+                keys[0] = key;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * Empties the collector.
+         *
+         * @param consumer receives the entries sorted by key (smallest first)
+         */
+        @SuppressWarnings("unchecked")
+        public void drainSorted(EntryConsumer<? super T> consumer) {
+            int count = size;
+            Object[] sortedItems = new Object[count];
+            double[] sortedKeys = new double[count];
+
+            for (int i = count - 1; i >= 0; i--) {
+                sortedItems[i] = items[0];
+                sortedKeys[i] = keys[0];
+                size--;
+                items[0] = items[size];
+                keys[0] = keys[size];
+                items[size] = null;
+                siftDown(0);
+            }
+
+            for (int i = 0; i < count; i++) {
+                consumer.accept((T) sortedItems[i], sortedKeys[i]);
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (compare(parent, i) >= 0) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    break;
+                }
+                int largest = left + 1 < size && compare(left + 1, left) > 0 ? left + 1 : left;
+                if (compare(i, largest) >= 0) {
+                    break;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(double key, T item, int j) {
+            int byKey = Double.compare(key, keys[j]);
+            if (byKey != 0 || tieOrder == null) {
+                return byKey;
+            }
+            return tieOrder.compare(item, (T) items[j]);
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(int i, int j) {
+            return compare(keys[i], (T) items[i], j);
+        }
+
+        private void swap(int a, int b) {
+            Object item = items[a];
+            items[a] = items[b];
+            items[b] = item;
+            double key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+        }
+    }
+
+    /**
+     * Receives an entry of a {@link TopK} and its key.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<T> {
+        void accept(T item, double key);
+    }
+}
@@ -0,0 +1,298 @@
+package com.projeto.aplicado.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.projeto.aplicado.backend.dto.donation.DonationExportRowDTO;
+import com.projeto.aplicado.backend.dto.user.UserContactDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.repository.BloodBankRepository;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the donation history of a blood bank as CSV or NDJSON.<br>
+ * Donations are read from a database cursor and written as they arrive: only one batch of donations,
+ * with the contacts of its donors, and the write buffer are held in memory. Writes block while the client
+ * is slow to read, which in turn stops reading from the cursor, so a slow client never makes rows pile up.
+ */
+@Service
+@RequiredArgsConstructor
+public class DonationExportService {
+    private static final Logger logger = LoggerFactory.getLogger(DonationExportService.class);
+    private static final int BATCH_SIZE = 500;
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+    private static final String FORMULA_STARTS = "=+-@\t\r";
+    private static final String CSV_HEADER = "id,userId,donorName,donorEmail,donorPhone,date,hour,appointmentAt,"
+            + "slot,bloodType,status,notes,cancellationReason,createdAt,updatedAt";
+
+    private final DonationRepository donationRepository;
+    private final UserRepository userRepository;
+    private final BloodBankRepository bloodBankRepository;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new RuntimeException("Formato inválido, use 'csv' ou 'ndjson'");
+        }
+    }
+
+    /**
+     * An export checked and ready to be opened.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param from        only appointments at or after this instant, or null
+     * @param to          only appointments before this instant, or null
+     */
+    public record HistoryExport(String bloodBankId, Instant from, Instant to) {
+    }
+
+    /**
+     * Checks an export of the donations of a blood bank without opening it, so an invalid request is
+     * answered before the response starts.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param from        optional first day (ISO format), inclusive
+     * @param to          optional last day (ISO format), inclusive
+     * @return the export, to open with {@link #writeHistory}
+     * @throws RuntimeException if the blood bank does not exist or a day is invalid
+     */
+    public HistoryExport prepareHistory(String bloodBankId, String from, String to) {
+        if (!bloodBankRepository.existsBloodBankById(bloodBankId)) {
+            throw new RuntimeException("Banco de sangue não encontrado");
+        }
+
+        Instant fromInstant = from != null && !from.isBlank() ? Donation.startOf(DonationService.parseDay(from)) : null;
+        Instant toInstant = to != null && !to.isBlank() ? Donation.startOf(DonationService.parseDay(to).plusDays(1)) : null;
+        return new HistoryExport(bloodBankId, fromInstant, toInstant);
+    }
+
+    /**
+     * Opens the export of the donations of a blood bank, in appointment order.
+     * The stream holds a cursor open and must be closed.
+     *
+     * @return the rows, read lazily from the database
+     */
+    public Stream<DonationExportRowDTO> streamHistory(HistoryExport export) {
+        Stream<Donation> donations = donationRepository.streamBloodBankHistory(export.bloodBankId(), export.from(), export.to());
+        Iterator<DonationExportRowDTO> rows = new BatchedRows(donations.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(donations::close);
+    }
+
+    /**
+     * Opens an export and writes it to the output stream, closing its cursor when done. Meant to run in the
+     * response body, so the cursor is only opened once the response is being written. <br>
+     * A failure after the first bytes were sent is rethrown rather than ending the body: the container then
+     * aborts the connection, and a gzip body is left without its trailer, so the client sees an incomplete
+     * download instead of a truncated file that looks complete.
+     *
+     * @param export       the export, from {@link #prepareHistory}
+     * @param format       the output format
+     * @param gzip         whether to compress the output
+     * @param outputStream the response body, left open
+     */
+    public void writeHistory(HistoryExport export, Format format, boolean gzip, OutputStream outputStream) throws IOException {
+        try (Stream<DonationExportRowDTO> rows = streamHistory(export)) {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(outputStream, 8192);
+                write(rows, format, compressed);
+                compressed.finish();
+            } else {
+                write(rows, format, outputStream);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Export of the donations of blood bank {} failed, aborting the response.", export.bloodBankId(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the rows to the output stream, which is left open.
+     */
+    public void write(Stream<DonationExportRowDTO> rows, Format format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+        Iterator<DonationExportRowDTO> iterator = rows.iterator();
+
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            while (iterator.hasNext()) {
+                writeCsv(writer, iterator.next());
+            }
+        } else {
+            ObjectWriter rowWriter = objectMapper.writerFor(DonationExportRowDTO.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            while (iterator.hasNext()) {
+                rowWriter.writeValue(writer, iterator.next());
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private static void writeCsv(Writer writer, DonationExportRowDTO row) throws IOException {
+        Object[] values = {
+                row.getId(), row.getUserId(), row.getDonorName(), row.getDonorEmail(), row.getDonorPhone(),
+                row.getDate(), row.getHour(), row.getAppointmentAt(), row.getSlot(), row.getBloodType(), row.getStatus(),
+                row.getNotes(), row.getCancellationReason(), row.getCreatedAt(), row.getUpdatedAt()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvField(writer, values[i].toString());
+            }
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Writes a field, quoted when it holds a separator, a quote or a line break (RFC 4180). <br>
+     * A field a spreadsheet would read as a formula (starting with {@code =}, {@code +}, {@code -}, {@code @},
+     * a tab or a carriage return) is prefixed with {@code '}, as names and notes are written by the donors.
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (!value.isEmpty() && FORMULA_STARTS.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Turns donations into rows one batch at a time, reading the contacts of the donors of each batch
+     * in a single query.
+     */
+    private class BatchedRows implements Iterator<DonationExportRowDTO> {
+        private final Iterator<Donation> donations;
+        private final Deque<DonationExportRowDTO> batch = new ArrayDeque<>(BATCH_SIZE);
+
+        BatchedRows(Iterator<Donation> donations) {
+            this.donations = donations;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (batch.isEmpty()) {
+                fill();
+            }
+            return !batch.isEmpty();
+        }
+
+        @Override
+        public DonationExportRowDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.poll();
+        }
+
+        private void fill() {
+            List<Donation> read = new ArrayList<>(BATCH_SIZE);
+            Set<String> userIds = new HashSet<>();
+            while (read.size() < BATCH_SIZE && donations.hasNext()) {
+                Donation donation = donations.next();
+                read.add(donation);
+                if (donation.getUserId() != null) {
+                    userIds.add(donation.getUserId());
+                }
+            }
+            if (read.isEmpty()) {
+                return;
+            }
+
+            Map<String, UserContactDTO> contacts = new HashMap<>();
+            for (UserContactDTO contact : userRepository.findContactsByIdIn(userIds)) {
+                contacts.put(contact.getId(), contact);
+            }
+
+            for (Donation donation : read) {
+                UserContactDTO donor = contacts.get(donation.getUserId());
+                batch.add(new DonationExportRowDTO(
+                        donation.getId(),
+                        donation.getUserId(),
+                        donor != null ? donor.getName() : null,
+                        donor != null ? donor.getEmail() : null,
+                        donor != null ? donor.getPhone() : null,
+                        donation.getAppointmentDate(),
+                        donation.getAppointmentTime(),
+                        donation.getAppointmentAt(),
+                        donation.getSlot(),
+                        donation.getBloodType(),
+                        donation.getStatus(),
+                        donation.getNotes(),
+                        donation.getCancellationReason(),
+                        donation.getCreatedAt(),
+                        donation.getUpdatedAt()
+                ));
+            }
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package com.projeto.aplicado.backend.service;
 
 import com.projeto.aplicado.backend.dto.donation.*;
-import com.projeto.aplicado.backend.model.DailyAvailability;
+import com.projeto.aplicado.backend.dto.user.UserContactDTO;
 import com.projeto.aplicado.backend.model.Donation;
-import com.projeto.aplicado.backend.model.Slot;
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.SlotKey;
 import com.projeto.aplicado.backend.model.UserNotification;
-import com.projeto.aplicado.backend.model.users.BloodBank;
 import com.projeto.aplicado.backend.model.users.User;
 import com.projeto.aplicado.backend.repository.BloodBankRepository;
 import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.DonationRepositoryCustom;
+import com.projeto.aplicado.backend.repository.PublishedSlotRepository;
 import com.projeto.aplicado.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,21 +21,33 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class DonationService {
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    private static final List<Donation.DonationStatus> ACTIVE_STATUSES =
+            List.of(Donation.DonationStatus.PENDING, Donation.DonationStatus.CONFIRMED);
 
     private final DonationRepository donationRepository;
     private final UserRepository userRepository;
     private final BloodBankRepository bloodBankRepository;
+    private final PublishedSlotRepository publishedSlotRepository;
+    private final SlotInventory slotInventory;
+    private final SlotHoldService slotHoldService;
+    private final WaitlistService waitlistService;
     private final AchievementService achievementService;
+    private final DonationStatsService donationStatsService;
 
     @Transactional
     public DonationDTO createDonation(String userId, CreateDonationDTO request) {
@@ -48,31 +63,84 @@ public class DonationService {
                 Donation.DonationStatus.CONFIRMED
         );
 
-        donationRepository.findByUserIdAndDateAndStatusIn(userId, request.getDate(), activeStatuses)
+        SlotKey slotKey = slotKeyOf(request.getBloodBankId(), request.getDate(), request.getHour());
+
+        donationRepository.findFirstByUserIdAndAppointmentDateAndStatusIn(userId, slotKey.date(), activeStatuses)
                 .ifPresent(d -> {
                     throw new RuntimeException("Você já possui um agendamento para este dia");
                 });
 
-        LocalDate date = LocalDate.parse(request.getDate().substring(0, 10));
-        LocalTime time = LocalTime.parse(request.getHour());
-        bookSlot(request.getBloodBankId(), date, time);
+        if (request.getHoldId() != null && !request.getHoldId().isBlank()) {
+            slotHoldService.confirm(request.getHoldId(), userId, slotKey);
+        } else if (!slotInventory.book(slotKey)) {
+            throw slotUnavailable(slotKey);
+        }
 
         Donation donation = new Donation();
         donation.setUserId(userId);
         donation.setBloodBankId(request.getBloodBankId());
         donation.setDate(request.getDate());
         donation.setHour(request.getHour());
+        donation.setAppointment(slotKey.date(), slotKey.time());
         donation.setSlot(request.getSlot());
         donation.setBloodType(user.getBloodType());
         donation.setStatus(Donation.DonationStatus.PENDING);
         donation.setCreatedAt(LocalDateTime.now());
         donation.setUpdatedAt(LocalDateTime.now());
 
-        donation = donationRepository.save(donation);
+        try {
+            donation = donationRepository.save(donation);
+        } catch (RuntimeException e) {
+            slotInventory.release(slotKey);
+            throw e;
+        }
+        donationStatsService.recordTransition(donation, null);
 
         return mapToResponse(donation);
     }
 
+    /**
+     * Holds a spot of a slot for the user while they fill in the booking form.
+     * The hold is confirmed by passing its ID to {@link #createDonation}.
+     *
+     * @param request the user and the slot
+     * @return the hold, with its expiration instant
+     */
+    public SlotHoldDTO reserveSlot(ReserveSlotDTO request) {
+        SlotKey slotKey = slotKeyOf(request.getBloodBankId(), request.getDate(), request.getHour());
+
+        if (!bloodBankRepository.existsBloodBankById(slotKey.bloodBankId())) {
+            throw new RuntimeException("Banco de sangue não encontrado");
+        }
+        return slotHoldService.reserve(request.getUserId(), slotKey);
+    }
+
+    /**
+     * Cancels a hold before it expires, giving its spot back.
+     */
+    public void cancelHold(String holdId, String userId) {
+        slotHoldService.cancel(holdId, userId);
+    }
+
+    /**
+     * Adds the user to the waitlist of a full slot. When a spot of the slot is freed, a donation is
+     * created for the first donor on the waitlist and they are notified.
+     *
+     * @param request the user and the slot
+     * @return the waitlist entry, with its position
+     */
+    public WaitlistEntryDTO joinWaitlist(JoinWaitlistDTO request) {
+        SlotKey slotKey = slotKeyOf(request.getBloodBankId(), request.getDate(), request.getHour());
+        return waitlistService.join(request.getUserId(), slotKey, request.getDate(), request.getSlot());
+    }
+
+    /**
+     * Removes the user from a waitlist.
+     */
+    public void leaveWaitlist(String entryId, String userId) {
+        waitlistService.leave(entryId, userId);
+    }
+
     public List<DonationDTO> getUserDonations(String userId, boolean activeOnly) {
         List<Donation> donations;
 
@@ -81,34 +149,64 @@ public class DonationService {
                     Donation.DonationStatus.PENDING,
                     Donation.DonationStatus.CONFIRMED
             );
-            donations = donationRepository.findByUserIdAndStatusInOrderByDateDescHourDesc(
+            donations = donationRepository.findByUserIdAndStatusInOrderByAppointmentAtDesc(
                     userId, activeStatuses);
         } else {
-            donations = donationRepository.findByUserIdOrderByDateDescHourDesc(userId);
+            donations = donationRepository.findByUserIdOrderByAppointmentAtDesc(userId);
         }
 
-        return donations.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapAllToResponse(donations);
     }
 
-    public List<DonationDTO> getBloodBankDonations(String bloodBankId, String date, String status) {
-        List<Donation> donations;
+    /**
+     * Reads one page of the donations of a blood bank, earliest appointment first. Every filter is
+     * applied by Mongo on the (bloodBankId, appointmentAt) index, and the page starts right after the cursor.
+     * Without limit nor cursor, every matching donation is returned in a single page, as before paging existed.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param date        optional day (ISO format), same as from = to = date
+     * @param from        optional first day (ISO format), inclusive
+     * @param to          optional last day (ISO format), inclusive
+     * @param status      optional status values, comma separated (e.g. "PENDING,CONFIRMED")
+     * @param limit       the page size, at most {@value #MAX_PAGE_SIZE}; null for {@value #DEFAULT_PAGE_SIZE}
+     *                    when a cursor is given, or for everything otherwise
+     * @param cursor      the cursor returned with the previous page, or null for the first page
+     * @return the page of donations and the cursor of the next page (null when there is none)
+     */
+    public DonationPageDTO getBloodBankDonations(String bloodBankId, String date, String from, String to,
+                                                 String status, Integer limit, String cursor) {
+        boolean paged = limit != null || (cursor != null && !cursor.isBlank());
+        if (limit == null) {
+            limit = DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new RuntimeException("O limite deve estar entre 1 e " + MAX_PAGE_SIZE);
+        }
+
+        if (date != null && !date.isBlank()) {
+            from = date;
+            to = date;
+        }
+        Instant fromInstant = from != null && !from.isBlank() ? Donation.startOf(parseDay(from)) : null;
+        Instant toInstant = to != null && !to.isBlank() ? Donation.startOf(parseDay(to).plusDays(1)) : null;
+
+        if (!paged) {
+            List<Donation> donations = donationRepository.findBloodBankPage(bloodBankId, fromInstant, toInstant,
+                    parseStatuses(status), null, 0);
+            return new DonationPageDTO(mapAllToResponse(donations), null);
+        }
 
-        if (date != null && !date.isEmpty()) {
-            String datePrefix = date.substring(0, 10); // "YYYY-MM-DD"
+        // one more than the page size, to know whether there is a next page
+        List<Donation> donations = donationRepository.findBloodBankPage(bloodBankId, fromInstant, toInstant,
+                parseStatuses(status), DonationRepositoryCustom.Cursor.decode(cursor), limit + 1);
 
-            donations = donationRepository.findByBloodBankIdOrderByDateAscHourAsc(bloodBankId)
-                    .stream()
-                    .filter(d -> d.getDate().startsWith(datePrefix))
-                    .collect(Collectors.toList());
-        } else {
-            donations = donationRepository.findByBloodBankIdOrderByDateAscHourAsc(bloodBankId);
+        String nextCursor = null;
+        if (donations.size() > limit) {
+            donations = donations.subList(0, limit);
+            nextCursor = DonationRepositoryCustom.Cursor.of(donations.get(limit - 1)).encode();
         }
 
-        return donations.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return new DonationPageDTO(mapAllToResponse(donations), nextCursor);
     }
 
     public SlotAvailabilityDTO checkSlotAvailability(
@@ -119,8 +217,9 @@ public class DonationService {
                 Donation.DonationStatus.CONFIRMED
         );
 
-        long slotsUsed = donationRepository.countByBloodBankIdAndDateAndHourAndStatusIn(
-                bloodBankId, date, hour, activeStatuses);
+        SlotKey slotKey = slotKeyOf(bloodBankId, date, hour);
+        long slotsUsed = donationRepository.countByBloodBankIdAndAppointmentAtAndStatusIn(
+                bloodBankId, Donation.appointmentAt(slotKey.date(), slotKey.time()), activeStatuses);
 
         int slotsRemaining = totalSlotsPublished - (int) slotsUsed;
         boolean available = slotsRemaining > 0;
@@ -137,15 +236,21 @@ public class DonationService {
             throw new RuntimeException("Não é possível cancelar um agendamento já completado");
         }
 
-        LocalDate date = LocalDate.parse(donation.getDate().substring(0, 10));
-        LocalTime time = LocalTime.parse(donation.getHour());
-        releaseSlot(donation.getBloodBankId(), date, time);
+        if (donation.getStatus() == Donation.DonationStatus.CANCELLED) {
+            throw new RuntimeException("Este agendamento já foi cancelado");
+        }
 
+        // conditional write: of two concurrent cancels only one frees the spot
+        LocalDateTime updatedAt = LocalDateTime.now();
+        Donation.DonationStatus previous = transition(donationId, Donation.DonationStatus.CANCELLED,
+                new Update().set("cancellationReason", reason).set("updatedAt", updatedAt));
         donation.setStatus(Donation.DonationStatus.CANCELLED);
         donation.setCancellationReason(reason);
-        donation.setUpdatedAt(LocalDateTime.now());
+        donation.setUpdatedAt(updatedAt);
+        donationStatsService.recordTransition(donation, previous);
 
-        donation = donationRepository.save(donation);
+        // only once the cancellation is stored: the freed spot goes to the first donor on the waitlist, if any
+        waitlistService.releaseOrPromote(donation.slotKey());
 
         User user = userRepository.findUserById(donation.getUserId()).orElseThrow();
         Instant now = Instant.now();
@@ -161,10 +266,21 @@ public class DonationService {
         Donation donation = donationRepository.findByIdAndBloodBankId(donationId, bloodBankId)
                 .orElseThrow(() -> new RuntimeException("Agendamento não encontrado"));
 
-        donation.setStatus(Donation.DonationStatus.CONFIRMED);
-        donation.setUpdatedAt(LocalDateTime.now());
+        if (donation.getStatus() == Donation.DonationStatus.CANCELLED) {
+            throw new RuntimeException("Não é possível confirmar um agendamento cancelado");
+        }
+
+        if (donation.getStatus() == Donation.DonationStatus.COMPLETED) {
+            throw new RuntimeException("Não é possível confirmar um agendamento já completado");
+        }
 
-        donation = donationRepository.save(donation);
+        // a cancelled donation already released its spot, so it must not become active again
+        LocalDateTime updatedAt = LocalDateTime.now();
+        Donation.DonationStatus previous = transition(donationId, Donation.DonationStatus.CONFIRMED,
+                new Update().set("updatedAt", updatedAt));
+        donation.setStatus(Donation.DonationStatus.CONFIRMED);
+        donation.setUpdatedAt(updatedAt);
+        donationStatsService.recordTransition(donation, previous);
 
         User user = userRepository.findUserById(donation.getUserId()).orElseThrow();
         Instant now = Instant.now();
@@ -180,13 +296,24 @@ public class DonationService {
         Donation donation = donationRepository.findByIdAndBloodBankId(donationId, bloodBankId)
                 .orElseThrow(() -> new RuntimeException("Agendamento não encontrado"));
 
-        donation.setStatus(Donation.DonationStatus.COMPLETED);
+        if (donation.getStatus() == Donation.DonationStatus.CANCELLED) {
+            throw new RuntimeException("Não é possível completar um agendamento cancelado");
+        }
+
+        if (donation.getStatus() == Donation.DonationStatus.COMPLETED) {
+            throw new RuntimeException("Este agendamento já foi completado");
+        }
+
+        LocalDateTime updatedAt = LocalDateTime.now();
+        Update changes = new Update().set("updatedAt", updatedAt);
         if (notes != null && !notes.isEmpty()) {
+            changes.set("notes", notes);
             donation.setNotes(notes);
         }
-        donation.setUpdatedAt(LocalDateTime.now());
-
-        donation = donationRepository.save(donation);
+        Donation.DonationStatus previous = transition(donationId, Donation.DonationStatus.COMPLETED, changes);
+        donation.setStatus(Donation.DonationStatus.COMPLETED);
+        donation.setUpdatedAt(updatedAt);
+        donationStatsService.recordTransition(donation, previous);
 
         User user = userRepository.findUserById(donation.getUserId()).orElseThrow();
         user.setTimesDonated(user.getTimesDonated() + 1);
@@ -200,21 +327,30 @@ public class DonationService {
         return mapToResponse(donation);
     }
 
+    /**
+     * Moves an active (pending or confirmed) donation to another status in one conditional write.
+     *
+     * @return the status of the donation before the change
+     * @throws RuntimeException if the donation is no longer active, e.g. a concurrent request changed it first
+     */
+    private Donation.DonationStatus transition(String donationId, Donation.DonationStatus to, Update changes) {
+        return donationRepository.transitionStatus(donationId, ACTIVE_STATUSES, to, changes)
+                .map(Donation::getStatus)
+                .orElseThrow(() -> new RuntimeException("O agendamento foi alterado por outra operação, tente novamente"));
+    }
+
     public List<DonationDTO> getUpcomingDonations(String bloodBankId, int days) {
-        String today = LocalDateTime.now().toLocalDate().toString() + "T00:00:00.000Z";
-        String futureDate = LocalDateTime.now().plusDays(days).toLocalDate().toString() + "T00:00:00.000Z";
+        LocalDate today = LocalDate.now(Donation.ZONE);
 
         List<Donation.DonationStatus> activeStatuses = Arrays.asList(
                 Donation.DonationStatus.PENDING,
                 Donation.DonationStatus.CONFIRMED
         );
 
-        List<Donation> donations = donationRepository.findUpcomingDonations(
-                bloodBankId, today, futureDate, activeStatuses);
+        List<Donation> donations = donationRepository.findByBloodBankIdInRangeAndStatusIn(
+                bloodBankId, Donation.startOf(today), Donation.startOf(today.plusDays(days + 1L)), activeStatuses);
 
-        return donations.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapAllToResponse(donations);
     }
 
     public DonationDTO getDonationById(String id) {
@@ -225,133 +361,107 @@ public class DonationService {
     }
 
     public DonationStatsDTO getStats(String bloodBankId) {
-        List<Donation> donations = donationRepository.findAll().stream()
-                .filter(d -> d.getBloodBankId().equals(bloodBankId))
-                .toList();
-
-        Map<String, Integer> byStatus = donations.stream()
-                .collect(Collectors.groupingBy(
-                        d -> d.getStatus().toString(),
-                        Collectors.summingInt(e -> 1)
-                ));
-
-        Map<String, Integer> byBloodType = donations.stream()
-                .filter(d -> d.getStatus() == Donation.DonationStatus.COMPLETED)
-                .filter(d -> d.getBloodType() != null)
-                .collect(Collectors.groupingBy(
-                        d -> d.getBloodType().getLabel(),
-                        Collectors.summingInt(e -> 1)
-                ));
-
-        int total = donations.size();
-        int completed = byStatus.getOrDefault("COMPLETED", 0);
-        int pending = byStatus.getOrDefault("PENDING", 0);
-        int cancelled = byStatus.getOrDefault("CANCELLED", 0);
-
-        return new DonationStatsDTO(byStatus, byBloodType, total, completed, pending, cancelled);
+        return donationStatsService.getStats(bloodBankId);
     }
 
-    @Transactional
-    protected void bookSlot(String bloodBankId, LocalDate date, LocalTime time) {
-        BloodBank bloodBank = bloodBankRepository.findBloodBankById(bloodBankId)
-                .orElseThrow(() -> new RuntimeException("Banco de sangue não encontrado"));
-
-        Optional<DailyAvailability> dailyAvailability = bloodBank.getAvailabilitySlots().stream()
-                .filter(da -> da.getDate().equals(date))
-                .findFirst();
-
-        if (dailyAvailability.isEmpty()) {
-            throw new RuntimeException("Data não disponível para agendamento");
+    static LocalDate parseDay(String date) {
+        try {
+            return LocalDate.parse(date.substring(0, Math.min(10, date.length()))); // "YYYY-MM-DD"
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Data inválida: " + date);
         }
+    }
 
-        Optional<Slot> slot = dailyAvailability.get().getSlots().stream()
-                .filter(s -> s.getTime().equals(time))
-                .findFirst();
+    private static List<Donation.DonationStatus> parseStatuses(String status) {
+        if (status == null || status.isBlank()) {
+            return List.of();
+        }
 
-        if (slot.isEmpty()) {
-            throw new RuntimeException("Horário não disponível");
+        try {
+            return Arrays.stream(status.split(","))
+                    .map(String::trim)
+                    .filter(value -> !value.isEmpty())
+                    .map(value -> Donation.DonationStatus.valueOf(value.toUpperCase()))
+                    .toList();
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Status inválido: " + status);
         }
+    }
 
-        Slot targetSlot = slot.get();
+    /**
+     * Parses the slot of a request: the day of an ISO date ("YYYY-MM-DD...") and an hour ("14:30").
+     */
+    private static SlotKey slotKeyOf(String bloodBankId, String date, String hour) {
+        return new SlotKey(bloodBankId, LocalDate.parse(date.substring(0, 10)), LocalTime.parse(hour));
+    }
 
-        if (targetSlot.getTotalSpots() == null) {
-            targetSlot.setTotalSpots(targetSlot.getAvailableSpots());
-        }
-        if (targetSlot.getBookedSpots() == null) {
-            targetSlot.setBookedSpots(0);
+    /**
+     * Explains why a slot could not be booked: unknown blood bank, date or time, or no spots left.
+     */
+    private RuntimeException slotUnavailable(SlotKey slotKey) {
+        if (!bloodBankRepository.existsBloodBankById(slotKey.bloodBankId())) {
+            return new RuntimeException("Banco de sangue não encontrado");
         }
 
-        if (targetSlot.getAvailableSpots() <= 0) {
-            throw new RuntimeException("Não há vagas disponíveis para este horário");
+        List<PublishedSlot> daySlots = publishedSlotRepository.findByBloodBankIdAndDateOrderByTimeAsc(slotKey.bloodBankId(), slotKey.date());
+        if (daySlots.isEmpty()) {
+            return new RuntimeException("Data não disponível para agendamento");
         }
 
-        targetSlot.setBookedSpots(targetSlot.getBookedSpots() + 1);
-        targetSlot.setAvailableSpots(targetSlot.getAvailableSpots() - 1);
+        boolean slotExists = daySlots.stream().anyMatch(s -> s.getTime().equals(slotKey.time()));
+        if (!slotExists) {
+            return new RuntimeException("Horário não disponível");
+        }
 
-        bloodBankRepository.save(bloodBank);
+        return new RuntimeException("Não há vagas disponíveis para este horário");
     }
 
-    @Transactional
-    protected void releaseSlot(String bloodBankId, LocalDate date, LocalTime time) {
-        BloodBank bloodBank = bloodBankRepository.findBloodBankById(bloodBankId)
-                .orElseThrow(() -> new RuntimeException("Banco de sangue não encontrado"));
-
-        Optional<DailyAvailability> dailyAvailability = bloodBank.getAvailabilitySlots().stream()
-                .filter(da -> da.getDate().equals(date))
-                .findFirst();
+    private DonationDTO mapToResponse(Donation donation) {
+        return mapAllToResponse(List.of(donation)).get(0);
+    }
 
-        if (dailyAvailability.isEmpty()) {
-            return;
+    /**
+     * Maps donations to responses, reading the donors and blood banks they reference in a single query.
+     * Each user or blood bank is read once, however many donations reference it.
+     */
+    private List<DonationDTO> mapAllToResponse(List<Donation> donations) {
+        Set<String> userIds = new HashSet<>();
+        for (Donation donation : donations) {
+            userIds.add(donation.getUserId());
+            userIds.add(donation.getBloodBankId());
         }
+        userIds.remove(null);
 
-        Optional<Slot> slot = dailyAvailability.get().getSlots().stream()
-                .filter(s -> s.getTime().equals(time))
-                .findFirst();
-
-        if (slot.isEmpty()) {
-            return;
+        Map<String, UserContactDTO> contacts = new HashMap<>();
+        for (UserContactDTO contact : userRepository.findContactsByIdIn(userIds)) {
+            contacts.put(contact.getId(), contact);
         }
 
-        Slot targetSlot = slot.get();
-
-        if (targetSlot.getTotalSpots() == null) {
-            targetSlot.setTotalSpots(targetSlot.getAvailableSpots());
-        }
-        if (targetSlot.getBookedSpots() == null) {
-            targetSlot.setBookedSpots(0);
+        List<DonationDTO> responses = new ArrayList<>(donations.size());
+        for (Donation donation : donations) {
+            UserContactDTO user = contacts.get(donation.getUserId());
+            UserContactDTO bloodBank = contacts.get(donation.getBloodBankId());
+
+            responses.add(new DonationDTO(
+                    donation.getId(),
+                    donation.getUserId(),
+                    user != null ? user.getName() : null,
+                    user != null ? user.getPhone() : null,
+                    user != null ? user.getEmail() : null,
+                    donation.getBloodBankId(),
+                    bloodBank != null ? bloodBank.getName() : null,
+                    bloodBank != null ? String.valueOf(bloodBank.getAddress()) : null,
+                    donation.getDate(),
+                    donation.getHour(),
+                    donation.getSlot(),
+                    donation.getBloodType(),
+                    donation.getStatus(),
+                    donation.getNotes(),
+                    donation.getCancellationReason(),
+                    donation.getCreatedAt(),
+                    donation.getUpdatedAt()
+            ));
         }
-
-        if (targetSlot.getBookedSpots() > 0) {
-            targetSlot.setBookedSpots(targetSlot.getBookedSpots() - 1);
-        }
-        if (targetSlot.getAvailableSpots() < targetSlot.getTotalSpots()) {
-            targetSlot.setAvailableSpots(targetSlot.getAvailableSpots() + 1);
-        }
-
-        bloodBankRepository.save(bloodBank);
-    }
-    private DonationDTO mapToResponse(Donation donation) {
-        User user = userRepository.findById(donation.getUserId()).orElse(null);
-        User bloodBank = userRepository.findById(donation.getBloodBankId()).orElse(null);
-
-        return new DonationDTO(
-                donation.getId(),
-                donation.getUserId(),
-                user != null ? user.getName() : null,
-                user != null ? user.getPhone() : null,
-                user != null ? user.getEmail() : null,
-                donation.getBloodBankId(),
-                bloodBank != null ? bloodBank.getName() : null,
-                bloodBank != null ? String.valueOf(bloodBank.getAddress()) : null,
-                donation.getDate(),
-                donation.getHour(),
-                donation.getSlot(),
-                donation.getBloodType(),
-                donation.getStatus(),
-                donation.getNotes(),
-                donation.getCancellationReason(),
-                donation.getCreatedAt(),
-                donation.getUpdatedAt()
-        );
+        return responses;
     }
-}
\ No newline at end of file
+}
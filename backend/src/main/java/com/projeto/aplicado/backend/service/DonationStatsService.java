@@ -0,0 +1,134 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.donation.DonationCountDTO;
+import com.projeto.aplicado.backend.dto.donation.DonationStatsDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.DonationStats;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.DonationStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Donation statistics of the blood banks, read from one counters document per bank.
+ * Every status transition updates the counters with {@code $inc}; missing or stale counters are rebuilt
+ * here with an aggregation over the donations of the bank. A counter update that fails marks the counters
+ * stale, and every counter is marked stale once a day, so any drift is eventually corrected.
+ */
+@Service
+@RequiredArgsConstructor
+public class DonationStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(DonationStatsService.class);
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    private final DonationStatsRepository donationStatsRepository;
+    private final DonationRepository donationRepository;
+
+    /**
+     * Counts the status change of a saved donation.
+     *
+     * @param donation the donation, with its new status
+     * @param from     its previous status, or null for a new donation
+     */
+    public void recordTransition(Donation donation, Donation.DonationStatus from) {
+        try {
+            donationStatsRepository.applyTransition(donation.getBloodBankId(), from, donation.getStatus(), donation.getBloodType());
+        } catch (RuntimeException e) {
+            logger.warn("Could not update the donation counters of blood bank {}, marking them stale.", donation.getBloodBankId(), e);
+            try {
+                donationStatsRepository.markStale(donation.getBloodBankId());
+            } catch (RuntimeException ignored) {
+                // the daily reconciliation rebuilds them
+            }
+        }
+    }
+
+    /**
+     * Gets the statistics of a blood bank, rebuilding its counters first if they are missing or stale.
+     */
+    public DonationStatsDTO getStats(String bloodBankId) {
+        DonationStats stats = donationStatsRepository.findById(bloodBankId).orElse(null);
+        if (stats == null || stats.isStale()) {
+            stats = rebuild(bloodBankId, stats);
+        }
+        return toDTO(stats);
+    }
+
+    /**
+     * Marks every counter as stale, so each one is rebuilt from the donations on its next read.
+     */
+    @Scheduled(cron = "${donations.stats.reconcile-cron:0 0 4 * * *}")
+    public void reconcile() {
+        donationStatsRepository.markAllStale();
+    }
+
+    /**
+     * Counts the donations of a blood bank and stores the counters, unless a transition changed them while
+     * counting: then it counts again, and after a few attempts returns the last count without storing it.
+     */
+    private DonationStats rebuild(String bloodBankId, DonationStats current) {
+        DonationStats counted = null;
+        for (int attempt = 0; attempt < REBUILD_ATTEMPTS; attempt++) {
+            Long expectedVersion = current != null ? current.getVersion() : null;
+            counted = count(bloodBankId);
+
+            DonationStats stored = donationStatsRepository.replace(
+                    bloodBankId, counted.getByStatus(), counted.getCompletedByBloodType(), expectedVersion);
+            if (stored != null) {
+                return stored;
+            }
+            current = donationStatsRepository.findById(bloodBankId).orElse(null);
+        }
+        return counted;
+    }
+
+    private DonationStats count(String bloodBankId) {
+        Map<String, Integer> byStatus = new HashMap<>();
+        Map<String, Integer> completedByBloodType = new HashMap<>();
+        for (DonationCountDTO count : donationRepository.countByStatusAndBloodType(bloodBankId)) {
+            if (count.getStatus() == null) {
+                continue;
+            }
+            byStatus.merge(count.getStatus().name(), count.getCount(), Integer::sum);
+            if (count.getStatus() == Donation.DonationStatus.COMPLETED && count.getBloodType() != null) {
+                completedByBloodType.merge(count.getBloodType().name(), count.getCount(), Integer::sum);
+            }
+        }
+
+        DonationStats stats = new DonationStats();
+        stats.setId(bloodBankId);
+        stats.setByStatus(byStatus);
+        stats.setCompletedByBloodType(completedByBloodType);
+        return stats;
+    }
+
+    private static DonationStatsDTO toDTO(DonationStats stats) {
+        Map<String, Integer> byStatus = new HashMap<>();
+        stats.getByStatus().forEach((status, count) -> {
+            if (count > 0) {
+                byStatus.put(status, count);
+            }
+        });
+
+        Map<String, Integer> byBloodType = new HashMap<>();
+        stats.getCompletedByBloodType().forEach((bloodType, count) -> {
+            if (count > 0) {
+                byBloodType.put(BloodType.valueOf(bloodType).getLabel(), count);
+            }
+        });
+
+        int total = byStatus.values().stream().mapToInt(Integer::intValue).sum();
+        int completed = byStatus.getOrDefault("COMPLETED", 0);
+        int pending = byStatus.getOrDefault("PENDING", 0);
+        int cancelled = byStatus.getOrDefault("CANCELLED", 0);
+
+        return new DonationStatsDTO(byStatus, byBloodType, total, completed, pending, cancelled);
+    }
+}
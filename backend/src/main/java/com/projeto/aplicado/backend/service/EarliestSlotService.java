@@ -0,0 +1,125 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.bloodbank.EarliestSlotDTO;
+import com.projeto.aplicado.backend.exception.LocationException;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.repository.PublishedSlotRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Finds the earliest open slots among a set of nearby blood banks, in one pass over their stored slots
+ * and their availability templates, keeping only the best ones in a bounded {@link DistanceKernel.TopK}.
+ */
+@Service
+@RequiredArgsConstructor
+public class EarliestSlotService {
+    public static final int MAX_DAYS = 60;
+    /**
+     * In the score order, each kilometer of distance weighs as much as this many minutes of waiting.
+     */
+    static final double MINUTES_PER_KM = 30.0;
+
+    private final PublishedSlotRepository publishedSlotRepository;
+    private final AvailabilityTemplateService availabilityTemplateService;
+
+    /**
+     * How the earliest slots are ranked.
+     */
+    public enum Order {
+        /** earliest first, ties by distance */
+        TIME,
+        /** minutes until the slot plus {@link #MINUTES_PER_KM} for each kilometer of distance */
+        SCORE;
+
+        public static Order parse(String value) {
+            try {
+                return Order.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new LocationException("order must be 'time' or 'score'");
+            }
+        }
+    }
+
+    private record Candidate(SlotKey key, int availableSpots, BloodBankSpatialIndex.Match bloodBank) {
+    }
+
+    private static final Comparator<Candidate> TIE_ORDER = Comparator
+            .comparingDouble((Candidate c) -> c.bloodBank().distanceKm())
+            .thenComparing(c -> c.key().bloodBankId())
+            .thenComparing(c -> c.key().date())
+            .thenComparing(c -> c.key().time());
+
+    /**
+     * @param bloodBanks the blood banks to search, with their distance
+     * @param limit      the maximum number of slots
+     * @param order      how the slots are ranked
+     * @param days       how many days ahead are searched, today included
+     * @return the best open slots, in the requested order
+     */
+    public List<EarliestSlotDTO> findEarliest(List<BloodBankSpatialIndex.Match> bloodBanks, int limit, Order order, int days) {
+        if (bloodBanks.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, BloodBankSpatialIndex.Match> byId = new HashMap<>();
+        bloodBanks.forEach(match -> byId.put(match.entry().id(), match));
+
+        LocalDateTime now = LocalDateTime.now(Donation.ZONE);
+        LocalDate today = now.toLocalDate();
+        LocalDate last = today.plusDays(days - 1L);
+
+        // a stored slot replaces the template one, as it already includes the template spots and the bookings.
+        // Full slots only hide their template slot, and of the open ones only the first `limit` of each
+        // blood bank are read: a later slot of the same blood bank ranks after all of them
+        Map<SlotKey, Integer> openSpots = availabilityTemplateService.expand(byId.keySet(), today, last);
+        for (PublishedSlot slot : publishedSlotRepository.findFullByBloodBankIdIn(byId.keySet(), today, last)) {
+            openSpots.remove(SlotKey.of(slot));
+        }
+        for (PublishedSlot slot : publishedSlotRepository.findEarliestOpen(byId.keySet(), now, last, limit)) {
+            openSpots.put(SlotKey.of(slot), slot.getAvailableSpots());
+        }
+
+        DistanceKernel.TopK<Candidate> best = new DistanceKernel.TopK<>(limit, TIE_ORDER);
+        for (Map.Entry<SlotKey, Integer> entry : openSpots.entrySet()) {
+            SlotKey key = entry.getKey();
+            LocalDateTime start = LocalDateTime.of(key.date(), key.time());
+            if (entry.getValue() <= 0 || !start.isAfter(now)) {
+                continue;
+            }
+
+            BloodBankSpatialIndex.Match bloodBank = byId.get(key.bloodBankId());
+            double minutes = Duration.between(now, start).toMinutes();
+            double rank = order == Order.TIME ? minutes : minutes + bloodBank.distanceKm() * MINUTES_PER_KM;
+            best.offer(new Candidate(key, entry.getValue(), bloodBank), rank);
+        }
+
+        List<EarliestSlotDTO> result = new ArrayList<>(best.size());
+        best.drainSorted((candidate, rank) -> result.add(toDTO(candidate)));
+        return result;
+    }
+
+    private static EarliestSlotDTO toDTO(Candidate candidate) {
+        BloodBankSpatialIndex.Entry bloodBank = candidate.bloodBank().entry();
+        return new EarliestSlotDTO(
+                bloodBank.id(),
+                bloodBank.name(),
+                bloodBank.address(),
+                candidate.bloodBank().distanceKm(),
+                candidate.key().date(),
+                candidate.key().time(),
+                candidate.availableSpots());
+    }
+}
@@ -0,0 +1,187 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.geolocation.GeocodeCacheStatsDTO;
+import com.projeto.aplicado.backend.model.GeocodeCacheEntry;
+import com.projeto.aplicado.backend.repository.GeocodeCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache for geocoding results.<br>
+ * The first tier is a bounded in-memory LRU map, the second one is the {@code geocode_cache}
+ * collection, so resolved addresses survive restarts. Entries expire after a configurable TTL
+ * and are looked up again on the next request. Addresses the provider does not know are cached
+ * as negative entries with a shorter TTL, so they are not looked up again on every request;
+ * requests the provider rejected are cached as negative entries for a few minutes only.
+ */
+@Service
+public class GeocodeCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(GeocodeCacheService.class);
+
+    private final GeocodeCacheRepository geocodeCacheRepository;
+    private final int maxMemoryEntries;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final Duration rejectedTtl;
+    private final Map<String, GeocodeCacheEntry> memory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public GeocodeCacheService(GeocodeCacheRepository geocodeCacheRepository,
+                               @Value("${geocoding.cache.max-entries:10000}") int maxMemoryEntries,
+                               @Value("${geocoding.cache.ttl-days:30}") long ttlDays,
+                               @Value("${geocoding.cache.negative-ttl-hours:24}") long negativeTtlHours,
+                               @Value("${geocoding.cache.rejected-ttl-minutes:10}") long rejectedTtlMinutes) {
+        this.geocodeCacheRepository = geocodeCacheRepository;
+        this.maxMemoryEntries = maxMemoryEntries;
+        this.ttl = Duration.ofDays(ttlDays);
+        this.negativeTtl = Duration.ofHours(negativeTtlHours);
+        this.rejectedTtl = Duration.ofMinutes(rejectedTtlMinutes);
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GeocodeCacheEntry> eldest) {
+                if (size() > GeocodeCacheService.this.maxMemoryEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Builds the canonical cache key of an address: no accents, lower case,
+     * punctuation and repeated spaces removed.
+     *
+     * @param address the raw address
+     * @return the normalized address
+     */
+    public static String normalize(String address) {
+        if (address == null) {
+            return "";
+        }
+
+        String normalized = Normalizer.normalize(address, Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9,]+", " ")
+                .replaceAll("\\s*,\\s*", ", ")
+                .replaceAll("\\s+", " ")
+                .trim();
+
+        return normalized.replaceAll("^(, )+|(,)+$", "").trim();
+    }
+
+    /**
+     * Looks up the result of a normalized address, first in memory and then in the database.
+     *
+     * @param key the normalized address
+     * @return the cached result (found or not found), or empty when not cached or expired
+     */
+    public Optional<GeocodeResult> get(String key) {
+        Instant now = Instant.now();
+
+        GeocodeCacheEntry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+            if (entry != null && isExpired(entry, now)) {
+                memory.remove(key);
+                entry = null;
+            }
+        }
+
+        if (entry != null) {
+            memoryHits.incrementAndGet();
+            return Optional.of(toResult(entry));
+        }
+
+        try {
+            Optional<GeocodeCacheEntry> persisted = geocodeCacheRepository.findById(key)
+                    .filter(e -> !isExpired(e, now));
+
+            if (persisted.isPresent()) {
+                persistentHits.incrementAndGet();
+                synchronized (memory) {
+                    memory.put(key, persisted.get());
+                }
+                return Optional.of(toResult(persisted.get()));
+            }
+        } catch (Exception e) {
+            logger.warn("Could not read geocode cache entry for '{}': {}", key, e.getMessage());
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Stores a lookup result in both tiers. Unavailable results are not cached.
+     *
+     * @param key    the normalized address
+     * @param result the lookup result
+     */
+    public void put(String key, GeocodeResult result) {
+        if (result.status() == GeocodeResult.Status.UNAVAILABLE) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        GeocodeCacheEntry entry = switch (result.status()) {
+            case FOUND -> new GeocodeCacheEntry(key, result.latitude(), result.longitude(), false, now, now.plus(ttl));
+            case REJECTED -> new GeocodeCacheEntry(key, 0.0, 0.0, true, now, now.plus(rejectedTtl));
+            default -> new GeocodeCacheEntry(key, 0.0, 0.0, true, now, now.plus(negativeTtl));
+        };
+
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+
+        try {
+            geocodeCacheRepository.save(entry);
+        } catch (Exception e) {
+            logger.warn("Could not persist geocode cache entry for '{}': {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the cache.
+     *
+     * @return the cache statistics
+     */
+    public GeocodeCacheStatsDTO getStats() {
+        long memory = memoryHits.get();
+        long persistent = persistentHits.get();
+        long miss = misses.get();
+        long lookups = memory + persistent + miss;
+
+        int size;
+        synchronized (this.memory) {
+            size = this.memory.size();
+        }
+
+        double hitRatio = lookups == 0 ? 0.0 : (double) (memory + persistent) / lookups;
+        return new GeocodeCacheStatsDTO(memory, persistent, miss, evictions.get(), size, maxMemoryEntries, hitRatio);
+    }
+
+    private static GeocodeResult toResult(GeocodeCacheEntry entry) {
+        return entry.isNotFound() ? GeocodeResult.notFound() : GeocodeResult.found(entry.getLatitude(), entry.getLongitude());
+    }
+
+    private static boolean isExpired(GeocodeCacheEntry entry, Instant now) {
+        return entry.getExpireAt() != null && !entry.getExpireAt().isAfter(now);
+    }
+}
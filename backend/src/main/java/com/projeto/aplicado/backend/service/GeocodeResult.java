@@ -0,0 +1,57 @@
+package com.projeto.aplicado.backend.service;
+
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.util.Optional;
+
+/**
+ * Outcome of a geocoding lookup. Replaces the {0.0, 0.0} sentinel, which is a valid point.
+ *
+ * @param status    whether the address was found, is unknown to the provider, or could not be looked up
+ * @param latitude  the latitude, only meaningful when found
+ * @param longitude the longitude, only meaningful when found
+ */
+public record GeocodeResult(Status status, double latitude, double longitude) {
+
+    public enum Status {
+        /** The provider returned coordinates. */
+        FOUND,
+        /** The provider has no result for the address. Safe to cache. */
+        NOT_FOUND,
+        /** The provider rejected the request (4xx). Cached briefly, since the rejection may not be about the address. */
+        REJECTED,
+        /** The provider failed or the circuit breaker is open. Worth trying again later. */
+        UNAVAILABLE
+    }
+
+    private static final GeocodeResult NOT_FOUND = new GeocodeResult(Status.NOT_FOUND, Double.NaN, Double.NaN);
+    private static final GeocodeResult REJECTED = new GeocodeResult(Status.REJECTED, Double.NaN, Double.NaN);
+    private static final GeocodeResult UNAVAILABLE = new GeocodeResult(Status.UNAVAILABLE, Double.NaN, Double.NaN);
+
+    public static GeocodeResult found(double latitude, double longitude) {
+        return new GeocodeResult(Status.FOUND, latitude, longitude);
+    }
+
+    public static GeocodeResult notFound() {
+        return NOT_FOUND;
+    }
+
+    public static GeocodeResult rejected() {
+        return REJECTED;
+    }
+
+    public static GeocodeResult unavailable() {
+        return UNAVAILABLE;
+    }
+
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+
+    /**
+     * @return the point (x = longitude, y = latitude), or empty when not found
+     */
+    public Optional<GeoJsonPoint> toPoint() {
+        return isFound() ? Optional.of(new GeoJsonPoint(longitude, latitude)) : Optional.empty();
+    }
+}
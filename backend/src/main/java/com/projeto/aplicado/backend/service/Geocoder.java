@@ -0,0 +1,20 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.model.Address;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.util.Optional;
+
+/**
+ * A source of coordinates for addresses.
+ */
+public interface Geocoder {
+
+    /**
+     * Geocodes an address into a GeoJSON point.
+     *
+     * @param address the address to geocode
+     * @return the point (x = longitude, y = latitude), or empty if the address could not be located
+     */
+    Optional<GeoJsonPoint> locate(Address address);
+}
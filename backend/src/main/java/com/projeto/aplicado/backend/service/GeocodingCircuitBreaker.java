@@ -0,0 +1,107 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.geolocation.GeocodingCircuitDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Circuit breaker around the remote geocoding provider.<br>
+ * After {@code geocoding.circuit.failure-threshold} consecutive failed requests the circuit opens and
+ * every lookup fails fast for {@code geocoding.circuit.open-seconds}. Then a single probe request is let
+ * through (half-open): if it succeeds the circuit closes, otherwise it opens again.
+ */
+@Component
+public class GeocodingCircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(GeocodingCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private Instant openedAt;
+    private boolean probeInFlight = false;
+
+    public GeocodingCircuitBreaker(@Value("${geocoding.circuit.failure-threshold:5}") int failureThreshold,
+                                   @Value("${geocoding.circuit.open-seconds:60}") long openSeconds) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = Duration.ofSeconds(openSeconds);
+    }
+
+    /**
+     * Checks whether a request may be sent to the provider. <br>
+     * In half-open state only one caller gets a permission, until it reports its outcome.
+     *
+     * @return true if the request may be sent
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (Instant.now().isBefore(openedAt.plus(openDuration))) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                logger.info("Geocoding circuit half-open, sending a probe request.");
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * Checks, without side effects, whether the circuit is open and still within its open period.
+     *
+     * @return true if lookups should fail fast
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && Instant.now().isBefore(openedAt.plus(openDuration));
+    }
+
+    /**
+     * Reports that the provider answered properly, even if the address was not found.
+     */
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Geocoding circuit closed.");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    /**
+     * Reports a failed request (network error, server error or throttling).
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = Instant.now();
+            logger.warn("Geocoding circuit opened after {} consecutive failures, failing fast for {} s.",
+                    consecutiveFailures, openDuration.toSeconds());
+        }
+    }
+
+    /**
+     * @return the current state of the circuit
+     */
+    public synchronized GeocodingCircuitDTO getStatus() {
+        return new GeocodingCircuitDTO(state.name(), consecutiveFailures, openedAt);
+    }
+}
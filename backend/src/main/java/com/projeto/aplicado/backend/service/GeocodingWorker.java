@@ -0,0 +1,125 @@
+package com.projeto.aplicado.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs geocoding lookups off the request threads.<br>
+ * Lookups for the same normalized address share a single in-flight future (single-flight),
+ * and every call to the remote provider must first take a permit from a token bucket,
+ * so we stay within the Nominatim usage policy (1 request per second by default).
+ */
+@Component
+public class GeocodingWorker {
+    private final ExecutorService executor;
+    private final TokenBucket tokenBucket;
+    private final Map<String, CompletableFuture<GeocodeResult>> inFlight = new ConcurrentHashMap<>();
+
+    public GeocodingWorker(@Value("${geocoding.rate-limit.per-second:1}") double permitsPerSecond,
+                           @Value("${geocoding.worker.threads:2}") int threads) {
+        this.tokenBucket = new TokenBucket(permitsPerSecond);
+        this.executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("geocoding-", 0).daemon(true).factory());
+    }
+
+    /**
+     * Schedules a lookup, or joins the one already running for the same key.
+     *
+     * @param key    the normalized address
+     * @param lookup the blocking lookup, executed on a worker thread
+     * @return a future completed with the lookup result
+     */
+    public CompletableFuture<GeocodeResult> submit(String key, Supplier<GeocodeResult> lookup) {
+        CompletableFuture<GeocodeResult> created = new CompletableFuture<>();
+        CompletableFuture<GeocodeResult> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        executor.execute(() -> {
+            try {
+                created.complete(lookup.get());
+            } catch (Throwable t) {
+                created.completeExceptionally(t);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        });
+        return created.copy();
+    }
+
+    /**
+     * Blocks the calling worker thread until the rate limit allows another remote request.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquirePermit() throws InterruptedException {
+        long waitNanos = tokenBucket.reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Holds back every following remote request for at least the given time,
+     * e.g. after a 429 with Retry-After or a server error.
+     *
+     * @param millis the delay in milliseconds
+     */
+    public void delay(long millis) {
+        tokenBucket.delay(millis);
+    }
+
+    /**
+     * @return the number of distinct addresses currently being looked up
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Token bucket with a capacity of one permit. Permits are reserved in order,
+     * so waiting callers are served fairly.
+     */
+    private static final class TokenBucket {
+        private final double permitsPerNano;
+        private double tokens = 1.0;
+        private long lastRefill = System.nanoTime();
+
+        private TokenBucket(double permitsPerSecond) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        }
+
+        synchronized long reserve() {
+            refill();
+            long waitNanos = tokens >= 1.0 ? 0L : (long) Math.ceil((1.0 - tokens) / permitsPerNano);
+            tokens -= 1.0;
+            return waitNanos;
+        }
+
+        synchronized void delay(long millis) {
+            refill();
+            double debt = TimeUnit.MILLISECONDS.toNanos(millis) * permitsPerNano;
+            tokens = Math.min(tokens, 1.0 - debt);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(1.0, tokens + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+        }
+    }
+}
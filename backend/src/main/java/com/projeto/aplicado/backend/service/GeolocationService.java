@@ -1,9 +1,12 @@
 package com.projeto.aplicado.backend.service;
 
+import com.projeto.aplicado.backend.model.Address;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
@@ -14,34 +17,149 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
-public class GeolocationService {
+public class GeolocationService implements Geocoder {
     private static final Logger logger = LoggerFactory.getLogger(GeolocationService.class);
 
     private final HttpClient httpClient;
+    private final GeocodeCacheService geocodeCacheService;
+    private final GeocodingWorker geocodingWorker;
+    private final CepCentroidGeocoder cepCentroidGeocoder;
+    private final GeocodingCircuitBreaker circuitBreaker;
+    private final boolean cepFirst;
 
     // retry configuration
     private static final int MAX_ATTEMPTS = 5;
     private static final long BASE_BACKOFF_MS = 500L; // base backoff for exponential strategy
 
-    public GeolocationService() {
+    public GeolocationService(GeocodeCacheService geocodeCacheService,
+                              GeocodingWorker geocodingWorker,
+                              CepCentroidGeocoder cepCentroidGeocoder,
+                              GeocodingCircuitBreaker circuitBreaker,
+                              @Value("${geocoding.cep.mode:fallback}") String cepMode) {
+        this.geocodeCacheService = geocodeCacheService;
+        this.geocodingWorker = geocodingWorker;
+        this.cepCentroidGeocoder = cepCentroidGeocoder;
+        this.circuitBreaker = circuitBreaker;
+        this.cepFirst = "first".equalsIgnoreCase(cepMode);
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
     }
 
+    /**
+     * Geocodes an address into a GeoJSON point, ready to be stored in the {@code location} field.<br>
+     * Depending on {@code geocoding.cep.mode}, the offline CEP centroid table is used either before
+     * the remote provider ("first") or only when the remote provider finds nothing ("fallback").
+     *
+     * @param address the address to geocode
+     * @return the point (x = longitude, y = latitude), or empty if the address is incomplete or was not found
+     */
+    @Override
+    public Optional<GeoJsonPoint> locate(Address address) {
+        return locateAsync(address).join();
+    }
+
+    /**
+     * Non-blocking version of {@link #locate(Address)}. <br>
+     * Callers that cannot wait may use {@code getNow(null)}: null means the lookup is still pending.
+     *
+     * @param address the address to geocode
+     * @return a future completed with the point, or empty if the address is incomplete or was not found
+     */
+    public CompletableFuture<Optional<GeoJsonPoint>> locateAsync(Address address) {
+        if (cepFirst) {
+            Optional<GeoJsonPoint> approximate = cepCentroidGeocoder.locate(address);
+            if (approximate.isPresent()) {
+                return CompletableFuture.completedFuture(approximate);
+            }
+        }
+
+        String query = formatAddress(address);
+        if (query == null) {
+            return CompletableFuture.completedFuture(cepFirst ? Optional.empty() : cepCentroidGeocoder.locate(address));
+        }
+
+        return getCoordinatesAsync(GeocodeCacheService.normalize(query)).thenApply(result -> {
+            if (!result.isFound()) {
+                return cepFirst ? Optional.empty() : cepCentroidGeocoder.locate(address);
+            }
+            return result.toPoint();
+        });
+    }
+
+    /**
+     * Builds the "street, city" query used to geocode an address.
+     *
+     * @param address the address
+     * @return the query string, or null if the address has no street
+     */
+    public static String formatAddress(Address address) {
+        if (address == null || address.getStreet() == null || address.getStreet().isBlank()) {
+            return null;
+        }
+        if (address.getCity() == null || address.getCity().isBlank()) {
+            return address.getStreet();
+        }
+        return address.getStreet() + ", " + address.getCity();
+    }
+
+    /**
+     * Retrieves geographical coordinates (latitude and longitude) from a given address string,
+     * blocking until the lookup finishes.
+     */
+    public GeocodeResult getCoordinatesFromAddress(String address) {
+        return getCoordinatesAsync(address).join();
+    }
+
     /**
      * Retrieves geographical coordinates (latitude and longitude) from a given address string
-     * using the Nominatim API (OpenStreetMap).
-     * If the lookup fails after retries, returns {0.0, 0.0}.
+     * without blocking the caller. <br>
+     * Results are served from the geocode cache when possible, otherwise the Nominatim API
+     * (OpenStreetMap) is queried on the geocoding worker. Found and not found results are cached,
+     * and concurrent calls for the same address share the same lookup.
+     * While the circuit breaker is open, uncached lookups complete right away as unavailable.
+     */
+    public CompletableFuture<GeocodeResult> getCoordinatesAsync(String address) {
+        String key = GeocodeCacheService.normalize(address);
+
+        Optional<GeocodeResult> cached = geocodeCacheService.get(key);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        if (circuitBreaker.isOpen()) {
+            return CompletableFuture.completedFuture(GeocodeResult.unavailable());
+        }
+
+        return geocodingWorker.submit(key, () -> {
+            GeocodeResult result = lookupRemote(address);
+            geocodeCacheService.put(key, result);
+            return result;
+        });
+    }
+
+    /**
+     * Queries the Nominatim API, retrying on rate limiting, server and network errors. <br>
+     * Runs on the geocoding worker: each attempt waits for a rate limit permit, and backoffs
+     * delay the following permits instead of sleeping. Every attempt goes through the circuit
+     * breaker, so retries stop as soon as it opens.
      */
-    public double[] getCoordinatesFromAddress(String address) {
+    private GeocodeResult lookupRemote(String address) {
         String encodedAddress = URLEncoder.encode(address, StandardCharsets.UTF_8);
         String url = "https://nominatim.openstreetmap.org/search?format=json&q=" + encodedAddress;
 
         for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                logger.warn("Geocoding circuit is open, skipping lookup for '{}'.", address);
+                return GeocodeResult.unavailable();
+            }
+
             try {
+                geocodingWorker.acquirePermit();
+
                 HttpRequest request = HttpRequest.newBuilder()
                         .uri(URI.create(url))
                         .header("User-Agent", "QuatroVidas/1.0 (suporte4vidas@gmail.com)")
@@ -56,58 +174,64 @@ public class GeolocationService {
                 // handle 200 OK
                 if (status == 200) {
                     JSONArray jsonArray = new JSONArray(response.body());
+                    circuitBreaker.recordSuccess();
 
                     if (jsonArray.isEmpty()) {
                         // no results — not transient; do not retry
                         logger.info("No coordinates found for address: {}", address);
-                        return new double[]{0.0, 0.0};
+                        return GeocodeResult.notFound();
                     }
 
                     JSONObject location = jsonArray.getJSONObject(0);
                     double lat = Double.parseDouble(location.getString("lat"));
                     double lon = Double.parseDouble(location.getString("lon"));
-                    return new double[]{lat, lon};
+                    return GeocodeResult.found(lat, lon);
                 }
 
                 // handle rate limiting (Retry-After)
                 if (status == 429) {
+                    circuitBreaker.recordFailure();
                     long waitMs = extractRetryAfterMillis(response).orElse(computeBackoffMs(attempt));
                     logger.warn("Received 429 from Nominatim. Attempt {}/{}. Waiting {} ms before retry.", attempt, MAX_ATTEMPTS, waitMs);
-                    sleepMillis(waitMs);
+                    geocodingWorker.delay(waitMs);
                     continue;
                 }
 
                 // retry on server errors (5xx)
                 if (status >= 500 && status < 600) {
+                    circuitBreaker.recordFailure();
                     long backoff = computeBackoffMs(attempt);
                     logger.warn("Server error {} from Nominatim. Attempt {}/{}. Backing off {} ms.", status, attempt, MAX_ATTEMPTS, backoff);
-                    sleepMillis(backoff);
+                    geocodingWorker.delay(backoff);
                     continue;
                 }
 
-                // other client errors (4xx except 429) or unexpected codes: do not retry
+                // other client errors (4xx except 429) or unexpected codes: do not retry now, cached only briefly
+                circuitBreaker.recordSuccess();
                 logger.error("Unexpected response status {} from Nominatim for address '{}'. Body: {}", status, address, safeBodySnippet(response.body()));
-                return new double[]{0.0, 0.0};
+                return GeocodeResult.rejected();
             } catch (InterruptedException ie) {
                 Thread.currentThread().interrupt();
+                circuitBreaker.recordFailure();
                 logger.error("Thread interrupted while getting coordinates for '{}'", address, ie);
-                return new double[]{0.0, 0.0};
+                return GeocodeResult.unavailable();
             } catch (Exception e) {
                 // network errors, parsing errors, etc. -> retry unless last attempt
+                circuitBreaker.recordFailure();
                 if (attempt == MAX_ATTEMPTS) {
                     logger.error("Failed to get coordinates for '{}' after {} attempts.", address, MAX_ATTEMPTS, e);
-                    return new double[]{0.0, 0.0};
+                    return GeocodeResult.unavailable();
                 } else {
                     long backoff = computeBackoffMs(attempt);
                     logger.warn("Error on attempt {}/{} getting coordinates for '{}': {}. Retrying after {} ms.",
                             attempt, MAX_ATTEMPTS, address, e.getMessage(), backoff);
-                    sleepMillis(backoff);
+                    geocodingWorker.delay(backoff);
                 }
             }
         }
 
-        // should not reach here, but return default just in case
-        return new double[]{0.0, 0.0};
+        // every attempt failed
+        return GeocodeResult.unavailable();
     }
 
     private static long computeBackoffMs(int attempt) {
@@ -117,14 +241,6 @@ public class GeolocationService {
         return Math.min(backoff, maxBackoff);
     }
 
-    private static void sleepMillis(long ms) {
-        try {
-            Thread.sleep(ms);
-        } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
     private static Optional<Long> extractRetryAfterMillis(HttpResponse<?> response) {
         return response.headers().firstValue("Retry-After").flatMap(value -> {
             try {
@@ -0,0 +1,155 @@
+package com.projeto.aplicado.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.aplicado.backend.exception.IdempotencyException;
+import com.projeto.aplicado.backend.model.IdempotencyRecord;
+import com.projeto.aplicado.backend.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Makes retried requests safe: the first request with an {@code Idempotency-Key} runs and its response is
+ * stored, and retries with the same key get the stored response without running the request again.<br>
+ * The key is claimed by inserting its record, so two concurrent requests with the same key never both run.
+ * A request that fails releases its key, so it can be retried. The claim is a lease: if the request neither
+ * completes nor fails before it ends (e.g. the instance crashed), a retry takes the key over and runs again.
+ */
+@Service
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lease;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.lease-seconds:30}") long leaseSeconds) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    /**
+     * Runs a request once per idempotency key.
+     *
+     * @param key          the Idempotency-Key header, or null to simply run the request
+     * @param scope        the operation, e.g. "donations.cancel"
+     * @param request      what identifies the request besides the key (body and parameters), to detect a key
+     *                     reused for another request
+     * @param responseType the type of the response body
+     * @param action       runs the request
+     * @return the response of the request, or the stored one on a retry
+     * @throws IdempotencyException if the key is invalid, reused for another request, or its first request
+     *                              is still running within its lease
+     */
+    public <T> ResponseEntity<T> execute(String key, String scope, List<?> request, Class<T> responseType,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyException(HttpStatus.BAD_REQUEST,
+                    HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String id = scope + ":" + key;
+        String requestHash = hash(request);
+        Instant now = Instant.now();
+
+        String leaseId = UUID.randomUUID().toString();
+
+        IdempotencyRecord record = new IdempotencyRecord(id, requestHash, false, 0, null, leaseId, now.plus(lease), now, now.plus(ttl));
+        try {
+            idempotencyRecordRepository.insert(record);
+        } catch (DuplicateKeyException e) {
+            if (idempotencyRecordRepository.takeOver(id, requestHash, now, leaseId, now.plus(lease)) == 0) {
+                return replay(id, requestHash, responseType);
+            }
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            idempotencyRecordRepository.deleteByIdAndLeaseId(id, leaseId);
+            throw e;
+        }
+
+        // the request already ran: a response that cannot be stored releases the key, but is still returned
+        try {
+            idempotencyRecordRepository.complete(id, leaseId, response.getStatusCode().value(), toJson(response.getBody()));
+        } catch (RuntimeException e) {
+            logger.error("Could not store the response of idempotency key {}, releasing it.", id, e);
+            try {
+                idempotencyRecordRepository.deleteByIdAndLeaseId(id, leaseId);
+            } catch (RuntimeException deleteError) {
+                logger.error("Could not release idempotency key {}, it is taken over once its lease expires.", id, deleteError);
+            }
+        }
+        return response;
+    }
+
+    private <T> ResponseEntity<T> replay(String id, String requestHash, Class<T> responseType) {
+        IdempotencyRecord stored = idempotencyRecordRepository.findById(id)
+                .orElseThrow(() -> new IdempotencyException(HttpStatus.CONFLICT, "A requisição original falhou, tente novamente"));
+
+        if (!stored.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " já utilizada em outra requisição");
+        }
+        if (!stored.isCompleted()) {
+            throw new IdempotencyException(HttpStatus.CONFLICT, "A requisição original ainda está em andamento");
+        }
+
+        try {
+            T body = stored.getResponseBody() == null ? null : objectMapper.readValue(stored.getResponseBody(), responseType);
+            return ResponseEntity.status(stored.getStatus()).header(REPLAYED_HEADER, "true").body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid stored response for idempotency key " + id, e);
+        }
+    }
+
+    String hash(List<?> request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash the request", e);
+        }
+    }
+
+    private String toJson(Object body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store the response", e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.donation.SlotHoldDTO;
+import com.projeto.aplicado.backend.model.SlotHold;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.repository.SlotHoldRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Two-phase booking: a donor reserves a spot when opening the booking form, which takes it from the
+ * {@link SlotInventory} for a short time, then confirms the hold when submitting the form.
+ * Holds that are not confirmed in time are removed in batches by a sweeper, which gives their spots back
+ * (or hands them to the waitlist).
+ */
+@Service
+public class SlotHoldService {
+    private static final Logger logger = LoggerFactory.getLogger(SlotHoldService.class);
+    private static final int MAX_ACTIVE_HOLDS_PER_USER = 3;
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    private final SlotHoldRepository slotHoldRepository;
+    private final SlotInventory slotInventory;
+    private final WaitlistService waitlistService;
+    private final Duration ttl;
+
+    public SlotHoldService(SlotHoldRepository slotHoldRepository,
+                           SlotInventory slotInventory,
+                           WaitlistService waitlistService,
+                           @Value("${slots.holds.ttl-seconds:300}") long ttlSeconds) {
+        this.slotHoldRepository = slotHoldRepository;
+        this.slotInventory = slotInventory;
+        this.waitlistService = waitlistService;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    /**
+     * Holds a spot of a slot for the user. If the user already holds a spot of the same slot,
+     * returns that hold instead of taking another spot.
+     *
+     * @param userId  the user ID
+     * @param slotKey the slot
+     * @return the hold, with its expiration instant
+     * @throws RuntimeException if the user has too many holds or the slot is full
+     */
+    public SlotHoldDTO reserve(String userId, SlotKey slotKey) {
+        Instant now = Instant.now();
+
+        Optional<SlotHold> existing = slotHoldRepository.findFirstByUserIdAndBloodBankIdAndDateAndTimeAndExpiresAtAfter(
+                userId, slotKey.bloodBankId(), slotKey.date(), slotKey.time(), now);
+        if (existing.isPresent()) {
+            return toDTO(existing.get());
+        }
+
+        if (slotHoldRepository.countByUserIdAndExpiresAtAfter(userId, now) >= MAX_ACTIVE_HOLDS_PER_USER) {
+            throw new RuntimeException("Você já possui o número máximo de reservas em andamento");
+        }
+
+        if (!slotInventory.book(slotKey)) {
+            throw new RuntimeException("Não há vagas disponíveis para este horário");
+        }
+
+        SlotHold hold = new SlotHold();
+        hold.setUserId(userId);
+        hold.setBloodBankId(slotKey.bloodBankId());
+        hold.setDate(slotKey.date());
+        hold.setTime(slotKey.time());
+        hold.setCreatedAt(now);
+        hold.setExpiresAt(now.plus(ttl));
+
+        try {
+            hold = slotHoldRepository.save(hold);
+        } catch (RuntimeException e) {
+            slotInventory.release(slotKey);
+            throw e;
+        }
+        return toDTO(hold);
+    }
+
+    /**
+     * Confirms a hold: removes it while keeping its spot taken, so it can become a donation.
+     *
+     * @param holdId  the hold ID
+     * @param userId  the user that owns the hold
+     * @param slotKey the slot the donation is booked on
+     * @throws RuntimeException if the hold does not exist, expired or is for another slot
+     */
+    public void confirm(String holdId, String userId, SlotKey slotKey) {
+        SlotHold hold = slotHoldRepository.claim(holdId, userId, Instant.now())
+                .orElseThrow(() -> new RuntimeException("Reserva expirada ou não encontrada"));
+
+        if (!hold.slotKey().equals(slotKey)) {
+            waitlistService.releaseOrPromote(hold.slotKey());
+            throw new RuntimeException("A reserva não corresponde ao horário escolhido");
+        }
+    }
+
+    /**
+     * Cancels a hold before it expires, giving its spot back.
+     *
+     * @param holdId the hold ID
+     * @param userId the user that owns the hold
+     */
+    public void cancel(String holdId, String userId) {
+        slotHoldRepository.claim(holdId, userId, Instant.now())
+                .ifPresent(hold -> waitlistService.releaseOrPromote(hold.slotKey()));
+    }
+
+    /**
+     * Removes the expired holds in batches and gives their spots back.
+     */
+    @Scheduled(fixedDelayString = "${slots.holds.sweep-interval-ms:5000}")
+    public void sweepExpired() {
+        Instant now = Instant.now();
+        int released = 0;
+        List<SlotHold> expired;
+
+        do {
+            expired = slotHoldRepository.claimExpired(now, SWEEP_BATCH_SIZE);
+            for (SlotHold hold : expired) {
+                waitlistService.releaseOrPromote(hold.slotKey());
+            }
+            released += expired.size();
+        } while (expired.size() == SWEEP_BATCH_SIZE);
+
+        if (released > 0) {
+            logger.debug("Released {} expired slot holds.", released);
+        }
+    }
+
+    private static SlotHoldDTO toDTO(SlotHold hold) {
+        return new SlotHoldDTO(hold.getId(), hold.getBloodBankId(), hold.getDate().toString(),
+                hold.getTime().toString(), hold.getExpiresAt());
+    }
+}
@@ -0,0 +1,427 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.donation.SlotBookingCountDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.repository.AvailabilitySummaryRepository;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.PublishedSlotRepository;
+import com.projeto.aplicado.backend.repository.SlotHoldRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inventory of the remaining spots of each published slot.<br>
+ * Booking and releasing a spot are decided in memory, holding only the lock of the stripe of the slot,
+ * so bookings of different slots never wait for each other and bookings of the same slot wait only for
+ * a counter update. The booked spots are written to Mongo behind, in periodic bulk writes of their
+ * current values, so a write that failed halfway is simply repeated.<br>
+ * Counters are loaded on first use, and a slot that only exists in an availability template is stored when
+ * it is first booked. At startup, before any booking is decided, the counters are rebuilt from the published
+ * slots with their booked spots set to the number of active donations and holds, which corrects bookings
+ * and releases lost before being written.<br>
+ * Every change to a slot must go through this inventory, and it assumes a single backend instance.
+ */
+@Component
+public class SlotInventory {
+    private static final Logger logger = LoggerFactory.getLogger(SlotInventory.class);
+    private static final int STRIPES = 64;
+    private static final List<Donation.DonationStatus> ACTIVE_STATUSES =
+            List.of(Donation.DonationStatus.PENDING, Donation.DonationStatus.CONFIRMED);
+
+    private final PublishedSlotRepository publishedSlotRepository;
+    private final DonationRepository donationRepository;
+    private final SlotHoldRepository slotHoldRepository;
+    private final AvailabilityTemplateService availabilityTemplateService;
+    private final AvailabilitySummaryRepository availabilitySummaryRepository;
+
+    private final Map<SlotKey, Counter> counters = new ConcurrentHashMap<>();
+    private final Set<Counter> dirty = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final CountDownLatch recovered = new CountDownLatch(1);
+
+    public SlotInventory(PublishedSlotRepository publishedSlotRepository,
+                         DonationRepository donationRepository,
+                         SlotHoldRepository slotHoldRepository,
+                         AvailabilityTemplateService availabilityTemplateService,
+                         AvailabilitySummaryRepository availabilitySummaryRepository) {
+        this.publishedSlotRepository = publishedSlotRepository;
+        this.donationRepository = donationRepository;
+        this.slotHoldRepository = slotHoldRepository;
+        this.availabilityTemplateService = availabilityTemplateService;
+        this.availabilitySummaryRepository = availabilitySummaryRepository;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Booked spots of a slot, and the change of booked spots not yet written to the availability summaries.
+     */
+    private static final class Counter {
+        private final SlotKey key;
+        private final int totalSpots;
+        private final AtomicInteger booked;
+        private final AtomicInteger unflushedBookings = new AtomicInteger();
+
+        private Counter(SlotKey key, int totalSpots, int booked) {
+            this.key = key;
+            this.totalSpots = totalSpots;
+            this.booked = new AtomicInteger(Math.max(0, booked));
+        }
+
+        private int remaining() {
+            return Math.max(0, totalSpots - booked.get());
+        }
+    }
+
+    /**
+     * Takes one spot of a slot.
+     *
+     * @param key the slot
+     * @return true if a spot was taken, false if the slot does not exist or is full
+     */
+    public boolean book(SlotKey key) {
+        awaitRecovery();
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            Counter counter = counterFor(key, true);
+            if (counter == null || counter.remaining() <= 0) {
+                return false;
+            }
+            counter.booked.incrementAndGet();
+            counter.unflushedBookings.incrementAndGet();
+            dirty.add(counter);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back one spot of a slot.
+     *
+     * @param key the slot
+     * @return true if a spot was given back, false if the slot does not exist or has no bookings
+     */
+    public boolean release(SlotKey key) {
+        awaitRecovery();
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            Counter counter = counterFor(key, false);
+            if (counter == null || counter.booked.get() <= 0) {
+                return false;
+            }
+            counter.booked.decrementAndGet();
+            counter.unflushedBookings.decrementAndGet();
+            dirty.add(counter);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param key the slot
+     * @return the remaining spots of the slot, or empty if it does not exist
+     */
+    public Optional<Integer> remaining(SlotKey key) {
+        awaitRecovery();
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            Counter counter = counterFor(key, false);
+            if (counter != null) {
+                return Optional.of(counter.remaining());
+            }
+            int templateSpots = availabilityTemplateService.spotsFor(key);
+            return templateSpots > 0 ? Optional.of(templateSpots) : Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the counters of slots changed directly in Mongo (published or removed), writing their
+     * pending bookings first. They are loaded again on next use. Runs exclusively with {@link #flush()},
+     * so a counter is never reloaded while its bookings are being written.
+     *
+     * @param keys the changed slots
+     */
+    public synchronized void invalidate(Iterable<SlotKey> keys) {
+        for (SlotKey key : keys) {
+            ReentrantLock lock = lockFor(key);
+            lock.lock();
+            try {
+                Counter counter = counters.remove(key);
+                if (counter != null && dirty.remove(counter)) {
+                    int delta = counter.unflushedBookings.getAndSet(0);
+                    try {
+                        persist(Map.of(key, counter.booked.get()), Map.of(key, delta));
+                    } catch (RuntimeException e) {
+                        // keep it, so the next flush writes it before the slot is loaded again
+                        counter.unflushedBookings.addAndGet(delta);
+                        counters.put(key, counter);
+                        dirty.add(counter);
+                        throw e;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drops the counters of every slot of a blood bank on a day.
+     *
+     * @see #invalidate(Iterable)
+     */
+    public void invalidateDate(String bloodBankId, LocalDate date) {
+        invalidate(counters.keySet().stream()
+                .filter(key -> key.bloodBankId().equals(bloodBankId) && key.date().equals(date))
+                .toList());
+    }
+
+    /**
+     * Writes the booked spots of every changed slot to Mongo in one bulk write.
+     * Slots that could not be written are kept for the next flush, which writes their values again:
+     * slots already written by the failed bulk write are not counted twice.
+     */
+    @Scheduled(fixedDelayString = "${slots.inventory.flush-interval-ms:200}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<Counter> flushed = new ArrayList<>();
+        List<Integer> flushedDeltas = new ArrayList<>();
+        Map<SlotKey, Integer> booked = new HashMap<>();
+        Map<SlotKey, Integer> deltas = new HashMap<>();
+
+        for (Iterator<Counter> it = dirty.iterator(); it.hasNext(); ) {
+            Counter counter = it.next();
+            it.remove();
+            // the change is taken before the value: a booking in between is written now and counted again next flush
+            int delta = counter.unflushedBookings.getAndSet(0);
+            flushed.add(counter);
+            flushedDeltas.add(delta);
+            booked.put(counter.key, counter.booked.get());
+            if (delta != 0) {
+                deltas.put(counter.key, delta);
+            }
+        }
+
+        try {
+            persist(booked, deltas);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < flushed.size(); i++) {
+                Counter counter = flushed.get(i);
+                counter.unflushedBookings.addAndGet(flushedDeltas.get(i));
+                dirty.add(counter);
+            }
+            logger.warn("Could not write the bookings of {} slots, retrying on next flush.", booked.size(), e);
+        }
+    }
+
+    /**
+     * Drops the counters of past days that have nothing left to write.
+     */
+    @Scheduled(fixedDelayString = "${slots.inventory.evict-interval-ms:3600000}")
+    public synchronized void evictPastDays() {
+        LocalDate today = LocalDate.now(Donation.ZONE);
+        for (SlotKey key : List.copyOf(counters.keySet())) {
+            if (!key.date().isBefore(today)) {
+                continue;
+            }
+            ReentrantLock lock = lockFor(key);
+            lock.lock();
+            try {
+                Counter counter = counters.get(key);
+                if (counter != null && !dirty.contains(counter)) {
+                    counters.remove(key);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the counters of every slot from today on, with their booked spots set to the number of active
+     * donations and holds. A slot whose stored booked spots differ lost bookings or releases that were not
+     * written before a shutdown, so it is corrected, in memory and in Mongo. <br>
+     * Runs exclusively with {@link #flush()} and {@link #invalidate(Iterable)}, and bookings wait for it to
+     * finish, so no counter is used or loaded before it is corrected. If it fails, counters are loaded from
+     * the published slots on first use, as they are stored.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void recover() {
+        try {
+            LocalDate today = LocalDate.now(Donation.ZONE);
+            Map<SlotKey, Integer> bookingCounts = countActiveDonations(today);
+            slotHoldRepository.countBySlot().forEach((key, holds) -> bookingCounts.merge(key, holds, Integer::sum));
+            int loaded = 0;
+            int corrected = 0;
+
+            try (Stream<PublishedSlot> slots = publishedSlotRepository.findByDateGreaterThanEqual(today)) {
+                for (Iterator<PublishedSlot> it = slots.iterator(); it.hasNext(); ) {
+                    PublishedSlot slot = it.next();
+                    SlotKey key = SlotKey.of(slot);
+                    int booked = bookingCounts.getOrDefault(key, 0);
+                    int drift = booked - slot.getBookedSpots();
+
+                    ReentrantLock lock = lockFor(key);
+                    lock.lock();
+                    try {
+                        if (counters.containsKey(key)) {
+                            continue;
+                        }
+                        Counter counter = new Counter(key, slot.getTotalSpots(), booked);
+                        counters.put(key, counter);
+                        if (drift != 0) {
+                            counter.unflushedBookings.set(drift);
+                            dirty.add(counter);
+                            corrected++;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    loaded++;
+                }
+            }
+
+            flush();
+            logger.info("Slot inventory rebuilt: {} slots loaded, {} slots corrected from the donations and holds.", loaded, corrected);
+        } catch (RuntimeException e) {
+            logger.error("Could not rebuild the slot inventory, slots are loaded as stored on first use.", e);
+        } finally {
+            recovered.countDown();
+        }
+    }
+
+    /**
+     * Runs an action exclusively with the writes of pending bookings, so it sees the published slots
+     * and the summaries in the same state.
+     */
+    public synchronized <T> T runExclusive(Supplier<T> action) {
+        return action.get();
+    }
+
+    /**
+     * @see #runExclusive(Supplier)
+     */
+    public synchronized void runExclusive(Runnable action) {
+        action.run();
+    }
+
+    /**
+     * Writes the booked spots to the published slots, then their changes to the summaries. A summary that could
+     * not be updated is marked stale instead, so its changes are not applied twice on retry.
+     */
+    private void persist(Map<SlotKey, Integer> bookedSpots, Map<SlotKey, Integer> bookedDeltas) {
+        if (bookedSpots.isEmpty()) {
+            return;
+        }
+        publishedSlotRepository.setBookedSpots(bookedSpots);
+        if (bookedDeltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            availabilitySummaryRepository.applyBookings(bookedDeltas);
+        } catch (RuntimeException e) {
+            logger.warn("Could not update the availability summaries, marking them stale.", e);
+            bookedDeltas.keySet().stream()
+                    .collect(Collectors.groupingBy(SlotKey::bloodBankId,
+                            Collectors.mapping(key -> YearMonth.from(key.date()), Collectors.toSet())))
+                    .forEach(availabilitySummaryRepository::markStale);
+        }
+    }
+
+    private Map<SlotKey, Integer> countActiveDonations(LocalDate from) {
+        Map<SlotKey, Integer> counts = new HashMap<>();
+        for (SlotBookingCountDTO count : donationRepository.countBySlotFrom(Donation.startOf(from), ACTIVE_STATUSES)) {
+            if (count.getBloodBankId() == null || count.getAppointmentAt() == null) {
+                logger.warn("Ignoring donations with an invalid slot: {}", count);
+                continue;
+            }
+            LocalDateTime appointment = LocalDateTime.ofInstant(count.getAppointmentAt(), Donation.ZONE);
+            SlotKey key = new SlotKey(count.getBloodBankId(), appointment.toLocalDate(), appointment.toLocalTime());
+            counts.merge(key, count.getCount(), Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the counter of a slot, loading it from Mongo on first use. The caller holds the stripe lock.
+     *
+     * @param materialize whether a slot that only exists in an availability template is stored
+     * @return the counter, or null if the slot does not exist (or is not stored, without materialize)
+     */
+    private Counter counterFor(SlotKey key, boolean materialize) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            return counter;
+        }
+
+        Optional<PublishedSlot> slot = publishedSlotRepository.findByBloodBankIdAndDateAndTime(key.bloodBankId(), key.date(), key.time());
+        if (slot.isEmpty() && materialize) {
+            int templateSpots = availabilityTemplateService.spotsFor(key);
+            if (templateSpots > 0) {
+                publishedSlotRepository.materialize(Map.of(key, templateSpots));
+                slot = publishedSlotRepository.findByBloodBankIdAndDateAndTime(key.bloodBankId(), key.date(), key.time());
+            }
+        }
+        if (slot.isEmpty()) {
+            return null;
+        }
+
+        counter = new Counter(key, slot.get().getTotalSpots(), slot.get().getBookedSpots());
+        counters.put(key, counter);
+        return counter;
+    }
+
+    /**
+     * Waits until the counters are rebuilt at startup: requests may arrive before the application is ready.
+     */
+    private void awaitRecovery() {
+        try {
+            recovered.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the slot inventory", e);
+        }
+    }
+
+    private ReentrantLock lockFor(SlotKey key) {
+        return locks[Math.floorMod(key.hashCode(), STRIPES)];
+    }
+}
@@ -14,6 +14,9 @@ import com.projeto.aplicado.backend.model.Address;
 import com.projeto.aplicado.backend.model.enums.Role;
 import com.projeto.aplicado.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -29,6 +32,7 @@ import java.util.Optional;
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
     private final AchievementService achievementService;
     private final EmailService emailService;
@@ -62,6 +66,7 @@ public class UserService {
         user.setTotalPoints(0);
         user.setRedeemedRewardsIds(null);
         user.setActiveNotifications(List.of());
+        user.setLocation(geolocationService.locate(dto.getAddress()).orElse(null));
 
         user = userRepository.save(user);
         return toResponseDTO(user);
@@ -125,14 +130,21 @@ public class UserService {
                 UserLocationDTO dto = toLocationDTO(user);
 
                 try {
-                    String address = removeAccents(user.getAddress().getStreet().toLowerCase());
-                    double[] coordinates = geolocationService.getCoordinatesFromAddress(address);
-                    dto.setLatitude(coordinates[0]);
-                    dto.setLongitude(coordinates[1]);
+                    Optional<GeoJsonPoint> location = user.getLocation() != null
+                            ? Optional.of(user.getLocation())
+                            : geolocationService.locateAsync(user.getAddress()).getNow(null);
+
+                    // not geocoded yet: answer right away, the lookup keeps running in the background.
+                    // Coordinates stay null until known, rather than a point that looks real
+                    dto.setLocationPending(location == null);
+                    if (location != null && location.isPresent()) {
+                        dto.setLatitude(location.get().getY());
+                        dto.setLongitude(location.get().getX());
+                    }
                 } catch (Exception e) {
-                    System.err.println("Error trying to get the coords: " + e.getMessage());
-                    dto.setLatitude(0.0);
-                    dto.setLongitude(0.0);
+                    // unknown for now: the next request looks it up again
+                    logger.warn("Could not locate user {}", id, e);
+                    dto.setLocationPending(true);
                 }
 
                 return dto;
@@ -223,7 +235,11 @@ public class UserService {
             throw new BadCredentialsException("Email already exists");
         }
         
+        String previousAddress = GeolocationService.formatAddress(user.getAddress());
         mapDtoToEntity(dto,user);
+        if (!Objects.equals(previousAddress, GeolocationService.formatAddress(user.getAddress()))) {
+            user.setLocation(geolocationService.locate(user.getAddress()).orElse(null));
+        }
         
         User updatedUser = userRepository.save(user);
         return toResponseDTO(updatedUser);
@@ -0,0 +1,263 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.donation.WaitlistEntryDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.NotificationBase;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.model.UserNotification;
+import com.projeto.aplicado.backend.model.WaitlistEntry;
+import com.projeto.aplicado.backend.model.users.User;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.NotificationRepository;
+import com.projeto.aplicado.backend.repository.UserRepository;
+import com.projeto.aplicado.backend.repository.WaitlistEntryRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * FIFO waitlist of each slot. A spot freed on a slot with waiting donors is handed to the first of them
+ * without going back to the {@link SlotInventory}, so nobody else can take it in between: the donation is
+ * created for that donor and they are notified.
+ */
+@Service
+@RequiredArgsConstructor
+public class WaitlistService {
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+    public static final String PROMOTED_NOTIFICATION_ID = "donation_waitlist_promoted";
+    private static final List<Donation.DonationStatus> ACTIVE_STATUSES =
+            List.of(Donation.DonationStatus.PENDING, Donation.DonationStatus.CONFIRMED);
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final DonationRepository donationRepository;
+    private final UserRepository userRepository;
+    private final NotificationRepository notificationRepository;
+    private final SlotInventory slotInventory;
+    private final DonationStatsService donationStatsService;
+
+    /**
+     * Creates the base notification sent to promoted donors, if it does not exist yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePromotedNotification() {
+        if (notificationRepository.existsById(PROMOTED_NOTIFICATION_ID)) {
+            return;
+        }
+
+        NotificationBase base = new NotificationBase(
+                PROMOTED_NOTIFICATION_ID,
+                "Vaga garantida!",
+                "Uma vaga foi liberada no horário da sua lista de espera e seu agendamento foi criado.",
+                "DONATIONS",
+                "/agendamento",
+                Map.of());
+        notificationRepository.save(base);
+    }
+
+    /**
+     * Adds the user to the waitlist of a full slot.
+     *
+     * @param userId       the user ID
+     * @param slotKey      the slot
+     * @param donationDate the date as sent by the client, kept for the donation
+     * @param slot         the slot number kept for the donation
+     * @return the entry, with its position in the waitlist
+     * @throws RuntimeException if the slot does not exist, still has spots, or the user already waits for it
+     */
+    public WaitlistEntryDTO join(String userId, SlotKey slotKey, String donationDate, Integer slot) {
+        Optional<Integer> remaining = slotInventory.remaining(slotKey);
+        if (remaining.isEmpty()) {
+            throw new RuntimeException("Horário não disponível");
+        }
+        if (remaining.get() > 0) {
+            throw new RuntimeException("Ainda há vagas disponíveis para este horário");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setUserId(userId);
+        entry.setBloodBankId(slotKey.bloodBankId());
+        entry.setDate(slotKey.date());
+        entry.setTime(slotKey.time());
+        entry.setDonationDate(donationDate);
+        entry.setSlot(slot != null ? slot : 1);
+        entry.setJoinedAt(Instant.now());
+
+        try {
+            entry = waitlistEntryRepository.save(entry);
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException("Você já está na lista de espera deste horário");
+        }
+
+        // a spot released between the check above and the save went back to the inventory,
+        // where no waiting donor would get it: hand it to the waitlist now
+        try {
+            fillFromWaitlist(slotKey);
+        } catch (RuntimeException e) {
+            logger.warn("Could not fill slot {} from its waitlist.", slotKey, e);
+        }
+        return toDTO(entry);
+    }
+
+    /**
+     * Removes an entry of the user from the waitlist.
+     *
+     * @throws RuntimeException if the entry does not exist or belongs to another user
+     */
+    public void leave(String entryId, String userId) {
+        if (waitlistEntryRepository.deleteByIdAndUserId(entryId, userId) == 0) {
+            throw new RuntimeException("Entrada da lista de espera não encontrada");
+        }
+    }
+
+    /**
+     * Frees a taken spot of a slot: hands it to the first waiting donor, or gives it back to the
+     * inventory when nobody is waiting.
+     *
+     * @param slotKey the slot
+     */
+    public void releaseOrPromote(SlotKey slotKey) {
+        boolean promoted = false;
+        try {
+            promoted = promoteNext(slotKey);
+        } finally {
+            if (!promoted) {
+                slotInventory.release(slotKey);
+            }
+        }
+    }
+
+    /**
+     * Hands the free spots of a slot to waiting donors, e.g. after more spots were published.
+     *
+     * @param slotKey the slot
+     */
+    public void fillFromWaitlist(SlotKey slotKey) {
+        while (slotInventory.book(slotKey)) {
+            boolean promoted = false;
+            try {
+                promoted = promoteNext(slotKey);
+            } finally {
+                if (!promoted) {
+                    slotInventory.release(slotKey);
+                }
+            }
+            if (!promoted) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the waitlist of every slot of a blood bank on a day, e.g. after the day was cancelled.
+     *
+     * @param bloodBankId the blood bank ID
+     * @param date        the day
+     */
+    public void purgeDate(String bloodBankId, LocalDate date) {
+        long removed = waitlistEntryRepository.deleteByBloodBankIdAndDate(bloodBankId, date);
+        if (removed > 0) {
+            logger.info("Removed {} waitlist entries of blood bank {} on {}.", removed, bloodBankId, date);
+        }
+    }
+
+    /**
+     * Removes the waitlist of slots of past days, which can no longer be booked.
+     */
+    @Scheduled(cron = "${slots.waitlist.purge-cron:0 30 0 * * *}")
+    public void purgePastDays() {
+        long removed = waitlistEntryRepository.deleteByDateBefore(LocalDate.now(Donation.ZONE));
+        if (removed > 0) {
+            logger.info("Removed {} waitlist entries of past days.", removed);
+        }
+    }
+
+    /**
+     * Creates a donation on a spot already taken for the first waiting donor that can still book it.
+     * Donors that no longer exist, have no blood type or already booked that day are dropped.
+     * If the donation cannot be saved, the entry is put back at its place in the waitlist.
+     *
+     * @return true if a donor got the spot, false if nobody is waiting
+     */
+    private boolean promoteNext(SlotKey slotKey) {
+        Optional<WaitlistEntry> next;
+        while ((next = waitlistEntryRepository.pollFirst(slotKey)).isPresent()) {
+            WaitlistEntry entry = next.get();
+
+            User user = userRepository.findUserById(entry.getUserId()).orElse(null);
+            if (user == null || user.getBloodType() == null) {
+                continue;
+            }
+            if (donationRepository.findFirstByUserIdAndAppointmentDateAndStatusIn(user.getId(), slotKey.date(), ACTIVE_STATUSES).isPresent()) {
+                continue;
+            }
+
+            Donation donation = new Donation();
+            donation.setUserId(user.getId());
+            donation.setBloodBankId(slotKey.bloodBankId());
+            donation.setDate(entry.getDonationDate());
+            donation.setHour(slotKey.time().toString());
+            donation.setAppointment(slotKey.date(), slotKey.time());
+            donation.setSlot(entry.getSlot());
+            donation.setBloodType(user.getBloodType());
+            donation.setStatus(Donation.DonationStatus.PENDING);
+            donation.setCreatedAt(LocalDateTime.now());
+            donation.setUpdatedAt(LocalDateTime.now());
+
+            try {
+                donation = donationRepository.save(donation);
+            } catch (DuplicateKeyException e) {
+                continue; // booked that day in the meantime
+            } catch (RuntimeException e) {
+                restore(entry);
+                throw e;
+            }
+            donationStatsService.recordTransition(donation, null);
+
+            // the donation is booked at this point, a failed notification does not undo it
+            try {
+                Instant now = Instant.now();
+                UserNotification un = new UserNotification(PROMOTED_NOTIFICATION_ID, false, now, now.plus(72, ChronoUnit.HOURS));
+                user.getActiveNotifications().add(un);
+                userRepository.save(user);
+            } catch (RuntimeException e) {
+                logger.warn("Could not notify user {} of waitlist promotion on slot {}.", user.getId(), slotKey, e);
+            }
+
+            logger.debug("Waitlist entry {} promoted on slot {}.", entry.getId(), slotKey);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Puts a polled entry back, with its ID and join instant, so it keeps its place in the waitlist.
+     */
+    private void restore(WaitlistEntry entry) {
+        try {
+            waitlistEntryRepository.save(entry);
+        } catch (RuntimeException e) {
+            logger.error("Could not restore waitlist entry {} of user {} on slot {}.",
+                    entry.getId(), entry.getUserId(), entry.slotKey(), e);
+        }
+    }
+
+    private WaitlistEntryDTO toDTO(WaitlistEntry entry) {
+        long ahead = waitlistEntryRepository.countByBloodBankIdAndDateAndTimeAndJoinedAtBefore(
+                entry.getBloodBankId(), entry.getDate(), entry.getTime(), entry.getJoinedAt());
+        return new WaitlistEntryDTO(entry.getId(), entry.getBloodBankId(), entry.getDate().toString(),
+                entry.getTime().toString(), ahead + 1, entry.getJoinedAt());
+    }
+}
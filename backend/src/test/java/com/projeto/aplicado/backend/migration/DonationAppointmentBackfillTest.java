@@ -0,0 +1,96 @@
+package com.projeto.aplicado.backend.migration;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.projeto.aplicado.backend.model.Donation;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DonationAppointmentBackfillTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private BulkOperations bulk;
+    @Mock
+    private IndexOperations indexOps;
+
+    @InjectMocks
+    private DonationAppointmentBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.indexOps(Donation.class)).thenReturn(indexOps);
+        when(indexOps.getIndexInfo()).thenReturn(List.of());
+    }
+
+    @Test
+    void donationsThatCannotBeFilledAreFlagged() {
+        when(mongoTemplate.find(any(Query.class), eq(Donation.class)))
+                .thenReturn(List.of(
+                        legacy("d1", "2030-01-07T00:00:00.000Z", "09:00"),
+                        legacy("d2", "not a date", "09:00"),
+                        legacy("d3", "2030-01-07T00:00:00.000Z", "10:00")))
+                .thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Donation.class)).thenReturn(bulk);
+        // d3 (second update of the bulk) is a second active donation of its user that day
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        when(bulk.execute()).thenThrow(new BulkOperationException("bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()), List.of(duplicate), null, new ServerAddress(), Set.of())));
+
+        backfill.run(null);
+
+        verify(bulk, times(2)).updateOne(any(Query.class), any(Update.class));
+        ArgumentCaptor<Query> flaggedQuery = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> flag = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(flaggedQuery.capture(), flag.capture(), eq(Donation.class));
+        assertThat(flaggedQuery.getAllValues()).extracting(query -> query.getQueryObject().get("id")).containsExactly("d2", "d3");
+        assertThat(flag.getAllValues()).allSatisfy(update ->
+                assertThat(update.getUpdateObject().get("$set", Document.class)).containsKey("appointmentBackfillError"));
+    }
+
+    @Test
+    void flaggedDonationsAreNotReadAgain() {
+        when(mongoTemplate.find(any(Query.class), eq(Donation.class))).thenReturn(List.of());
+
+        backfill.run(null);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Donation.class));
+        assertThat(query.getValue().getQueryObject()).containsKey("appointmentBackfillError");
+    }
+
+    private static Donation legacy(String id, String date, String hour) {
+        Donation donation = new Donation();
+        donation.setId(id);
+        donation.setDate(date);
+        donation.setHour(hour);
+        return donation;
+    }
+}
@@ -0,0 +1,60 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.Donation;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DonationRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private DonationRepositoryCustomImpl repository;
+
+    @Test
+    void pagedReadSkipsDonationsWithoutAppointment() {
+        DonationRepositoryCustom.Cursor after = new DonationRepositoryCustom.Cursor(Instant.parse("2030-01-07T12:00:00Z"), "d1");
+
+        repository.findBloodBankPage("bank-1", null, null, null, after, 11);
+
+        Query query = captureQuery();
+        assertThat(query.getLimit()).isEqualTo(11);
+        assertThat(filters(query)).contains(new Document("appointmentAt", new Document("$ne", null)));
+    }
+
+    @Test
+    void unpagedReadKeepsEveryDonation() {
+        repository.findBloodBankPage("bank-1", null, null, null, null, 0);
+
+        Query query = captureQuery();
+        assertThat(query.getLimit()).isZero();
+        assertThat(filters(query)).noneMatch(filter -> filter.containsKey("appointmentAt"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Document> filters(Query query) {
+        return (List<Document>) query.getQueryObject().get("$and");
+    }
+
+    private Query captureQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Donation.class));
+        return query.getValue();
+    }
+}
@@ -0,0 +1,46 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.Donation;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DonationRepositoryCustomTest {
+
+    @Test
+    void cursorRoundTrips() {
+        DonationRepositoryCustom.Cursor cursor = new DonationRepositoryCustom.Cursor(Instant.ofEpochMilli(1_893_456_000_000L), "65f0a1b2c3d4e5f6a7b8c9d0");
+
+        String encoded = cursor.encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        assertThat(DonationRepositoryCustom.Cursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    void cursorOfADonationKeepsItsPosition() {
+        Donation donation = new Donation();
+        donation.setId("d1");
+        donation.setAppointmentAt(Instant.parse("2030-01-07T12:00:00Z"));
+
+        DonationRepositoryCustom.Cursor cursor = DonationRepositoryCustom.Cursor.decode(DonationRepositoryCustom.Cursor.of(donation).encode());
+
+        assertThat(cursor.appointmentAt()).isEqualTo(donation.getAppointmentAt());
+        assertThat(cursor.id()).isEqualTo("d1");
+    }
+
+    @Test
+    void missingCursorDecodesToNull() {
+        assertThat(DonationRepositoryCustom.Cursor.decode(null)).isNull();
+        assertThat(DonationRepositoryCustom.Cursor.decode(" ")).isNull();
+    }
+
+    @Test
+    void tamperedCursorIsRejected() {
+        assertThatThrownBy(() -> DonationRepositoryCustom.Cursor.decode("not-a-cursor")).hasMessage("Cursor inválido");
+        assertThatThrownBy(() -> DonationRepositoryCustom.Cursor.decode("MTIzfA")).hasMessage("Cursor inválido"); // "123|"
+    }
+}
@@ -0,0 +1,72 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.DonationStats;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class DonationStatsRepositoryCustomImplTest {
+    private static final String BLOOD_BANK_ID = "bank-1";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private DonationStatsRepositoryCustomImpl repository;
+
+    @Test
+    void newDonationIsCountedInItsStatus() {
+        repository.applyTransition(BLOOD_BANK_ID, null, Donation.DonationStatus.PENDING, BloodType.O_POSITIVE);
+
+        assertThat(increments()).isEqualTo(new Document("version", 1).append("byStatus.PENDING", 1));
+    }
+
+    @Test
+    void completionMovesTheDonationAndCountsItsBloodType() {
+        repository.applyTransition(BLOOD_BANK_ID, Donation.DonationStatus.CONFIRMED, Donation.DonationStatus.COMPLETED, BloodType.O_POSITIVE);
+
+        assertThat(increments()).isEqualTo(new Document("version", 1)
+                .append("byStatus.CONFIRMED", -1)
+                .append("byStatus.COMPLETED", 1)
+                .append("completedByBloodType.O_POSITIVE", 1));
+    }
+
+    @Test
+    void leavingCompletedUncountsTheBloodType() {
+        repository.applyTransition(BLOOD_BANK_ID, Donation.DonationStatus.COMPLETED, Donation.DonationStatus.CANCELLED, BloodType.A_NEGATIVE);
+
+        assertThat(increments()).isEqualTo(new Document("version", 1)
+                .append("byStatus.COMPLETED", -1)
+                .append("byStatus.CANCELLED", 1)
+                .append("completedByBloodType.A_NEGATIVE", -1));
+    }
+
+    @Test
+    void sameStatusChangesNothing() {
+        repository.applyTransition(BLOOD_BANK_ID, Donation.DonationStatus.PENDING, Donation.DonationStatus.PENDING, BloodType.O_POSITIVE);
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private Document increments() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(DonationStats.class));
+        return update.getValue().getUpdateObject().get("$inc", Document.class);
+    }
+}
@@ -0,0 +1,55 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PublishedSlotRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private PublishedSlotRepositoryCustomImpl repository;
+
+    @Test
+    void findEarliestOpenKeepsTheFirstOpenSlotsOfEachBloodBank() {
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        when(mongoTemplate.aggregate(aggregation.capture(), eq(PublishedSlot.class), eq(PublishedSlot.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+        LocalDateTime now = LocalDateTime.now();
+
+        repository.findEarliestOpen(List.of("bank-1", "bank-2"), now, now.toLocalDate().plusDays(7), 3);
+
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        Document match = pipeline.get(0).get("$match", Document.class);
+        assertThat(match.get("availableSpots", Document.class)).containsEntry("$gt", 0);
+        assertThat(pipeline.get(1).get("$sort", Document.class).keySet()).containsExactly("bloodBankId", "date", "time");
+        Document firstN = pipeline.get(3).get("$group", Document.class).get("slots", Document.class).get("$firstN", Document.class);
+        assertThat(firstN).containsEntry("n", 3).containsEntry("input", "$$ROOT");
+    }
+
+    @Test
+    void findEarliestOpenWithoutBloodBanksSkipsTheQuery() {
+        assertThat(repository.findEarliestOpen(List.of(), LocalDateTime.now(), LocalDate.now(), 3)).isEmpty();
+        verifyNoInteractions(mongoTemplate);
+    }
+}
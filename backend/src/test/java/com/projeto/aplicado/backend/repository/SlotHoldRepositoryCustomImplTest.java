@@ -0,0 +1,66 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.model.SlotHold;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SlotHoldRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private SlotHoldRepositoryCustomImpl repository;
+
+    @Test
+    void claimExpiredSkipsHoldsRemovedMeanwhile() {
+        Instant now = Instant.now();
+        when(mongoTemplate.find(any(Query.class), eq(SlotHold.class))).thenReturn(List.of(withId("h1"), withId("h2")));
+        when(mongoTemplate.findAndRemove(argThat(byId("h1")), eq(SlotHold.class))).thenReturn(withId("h1"));
+        when(mongoTemplate.findAndRemove(argThat(byId("h2")), eq(SlotHold.class))).thenReturn(null);
+
+        List<SlotHold> claimed = repository.claimExpired(now, 10);
+
+        assertThat(claimed).extracting(SlotHold::getId).containsExactly("h1");
+    }
+
+    @Test
+    void claimExpiredOnlyRemovesHoldsThatAreStillExpired() {
+        Instant now = Instant.now();
+        when(mongoTemplate.find(any(Query.class), eq(SlotHold.class))).thenReturn(List.of(withId("h1")));
+        when(mongoTemplate.findAndRemove(argThat(byId("h1")), eq(SlotHold.class))).thenReturn(withId("h1"));
+
+        repository.claimExpired(now, 10);
+
+        // the removal repeats the expiry condition, so a hold can never be both confirmed and swept
+        verify(mongoTemplate).findAndRemove(
+                argThat((Query query) -> query.getQueryObject().containsKey("expiresAt")), eq(SlotHold.class));
+    }
+
+    private static ArgumentMatcher<Query> byId(String id) {
+        return query -> query != null && id.equals(query.getQueryObject().get("id"));
+    }
+
+    private static SlotHold withId(String id) {
+        SlotHold hold = new SlotHold();
+        hold.setId(id);
+        return hold;
+    }
+}
@@ -0,0 +1,52 @@
+package com.projeto.aplicado.backend.repository;
+
+import com.projeto.aplicado.backend.dto.user.UserContactDTO;
+import com.projeto.aplicado.backend.model.users.User;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private UserRepositoryCustomImpl repository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void contactsAreReadInOneProjectedQuery() {
+        when(mongoTemplate.getCollectionName(User.class)).thenReturn("users");
+
+        repository.findContactsByIdIn(Set.of("user-1", "bank-1"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(UserContactDTO.class), eq("users"));
+        Document ids = (Document) query.getValue().getQueryObject().get("id");
+        assertThat((Iterable<Object>) ids.get("$in")).containsExactlyInAnyOrder("user-1", "bank-1");
+        assertThat(query.getValue().getFieldsObject().keySet()).containsExactlyInAnyOrder("name", "phone", "email", "address");
+    }
+
+    @Test
+    void noIdsReadNothing() {
+        assertThat(repository.findContactsByIdIn(List.of())).isEmpty();
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,92 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.model.AvailabilitySlot;
+import com.projeto.aplicado.backend.model.AvailabilityTemplate;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.repository.AvailabilitySummaryRepository;
+import com.projeto.aplicado.backend.repository.AvailabilityTemplateRepository;
+import com.projeto.aplicado.backend.repository.BloodBankRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityTemplateServiceTest {
+    private static final String BLOOD_BANK_ID = "bank-1";
+    // a Monday
+    private static final LocalDate START = LocalDate.of(2030, 1, 7);
+
+    @Mock
+    private AvailabilityTemplateRepository availabilityTemplateRepository;
+    @Mock
+    private BloodBankRepository bloodBankRepository;
+    @Mock
+    private AvailabilitySummaryRepository availabilitySummaryRepository;
+
+    private AvailabilityTemplateService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AvailabilityTemplateService(availabilityTemplateRepository, bloodBankRepository, availabilitySummaryRepository);
+    }
+
+    @Test
+    void expandOnlyCoversTheRequestedDays() {
+        when(availabilityTemplateRepository.findActiveByBloodBankId(BLOOD_BANK_ID, START)).thenReturn(List.of(yearlyTemplate()));
+
+        Map<SlotKey, Integer> slots = service.expand(BLOOD_BANK_ID, START, START.plusDays(6));
+
+        // Monday to Friday, two one-hour slots a day
+        assertThat(slots).hasSize(10);
+        assertThat(slots.keySet()).allMatch(key -> !key.date().isAfter(START.plusDays(6)));
+    }
+
+    @Test
+    void excludeDateAddsTheDayInPlace() {
+        AvailabilityTemplate template = yearlyTemplate();
+        when(availabilityTemplateRepository.findActiveByBloodBankId(BLOOD_BANK_ID, START)).thenReturn(List.of(template));
+        when(availabilityTemplateRepository.addExcludedDate(template.getId(), START)).thenReturn(1L);
+
+        assertThat(service.excludeDate(BLOOD_BANK_ID, START)).isEqualTo(1);
+
+        verify(availabilityTemplateRepository, never()).save(any());
+        verify(availabilitySummaryRepository).markStale(BLOOD_BANK_ID, List.of(YearMonth.from(START)));
+    }
+
+    @Test
+    void excludeDateSkipsDaysTheTemplateDoesNotCover() {
+        LocalDate saturday = START.plusDays(5);
+        when(availabilityTemplateRepository.findActiveByBloodBankId(BLOOD_BANK_ID, saturday)).thenReturn(List.of(yearlyTemplate()));
+
+        assertThat(service.excludeDate(BLOOD_BANK_ID, saturday)).isZero();
+
+        verify(availabilityTemplateRepository, never()).addExcludedDate(any(), any());
+        verify(availabilitySummaryRepository, never()).markStale(eq(BLOOD_BANK_ID), anyList());
+    }
+
+    private static AvailabilityTemplate yearlyTemplate() {
+        AvailabilitySlot period = new AvailabilitySlot(START, START.plusDays(365), LocalTime.of(8, 0), LocalTime.of(10, 0));
+        return new AvailabilityTemplate("template-1", BLOOD_BANK_ID, period,
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), 60, 4, new HashSet<>(), Instant.now());
+    }
+}
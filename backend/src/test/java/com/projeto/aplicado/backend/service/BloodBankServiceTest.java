@@ -0,0 +1,182 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.bloodbank.AvailabilityTemplateDTO;
+import com.projeto.aplicado.backend.dto.bloodbank.BloodBankMapDTO;
+import com.projeto.aplicado.backend.dto.donation.DailyAvailabilityDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.model.users.BloodBank;
+import com.projeto.aplicado.backend.repository.AvailabilitySummaryRepository;
+import com.projeto.aplicado.backend.repository.BloodBankRepository;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.PublishedSlotRepository;
+import com.projeto.aplicado.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BloodBankServiceTest {
+    private static final String BLOOD_BANK_ID = "bank-1";
+    // beyond the default window of the ranged queries
+    private static final int FAR_DAYS = BloodBankService.DEFAULT_WINDOW_DAYS + 30;
+
+    @Mock
+    private BloodBankRepository bloodBankRepository;
+    @Mock
+    private PublishedSlotRepository publishedSlotRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private GeolocationService geolocationService;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private DonationRepository donationRepository;
+    @Mock
+    private AchievementService achievementService;
+    @Mock
+    private BloodBankSpatialIndex bloodBankSpatialIndex;
+    @Mock
+    private BloodBankLocationMetrics bloodBankLocationMetrics;
+    @Mock
+    private SlotInventory slotInventory;
+    @Mock
+    private WaitlistService waitlistService;
+    @Mock
+    private AvailabilityTemplateService availabilityTemplateService;
+    @Mock
+    private AvailabilitySummaryRepository availabilitySummaryRepository;
+    @Mock
+    private EarliestSlotService earliestSlotService;
+
+    private BloodBankService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BloodBankService(bloodBankRepository, publishedSlotRepository, userRepository, geolocationService,
+                passwordEncoder, donationRepository, achievementService, bloodBankSpatialIndex, bloodBankLocationMetrics,
+                slotInventory, waitlistService, availabilityTemplateService, availabilitySummaryRepository,
+                earliestSlotService);
+    }
+
+    @Test
+    void withoutRangeEveryStoredSlotIsListed() {
+        LocalDate today = LocalDate.now(Donation.ZONE);
+        List<PublishedSlot> stored = List.of(
+                slot(today.minusDays(10)),
+                slot(today.plusDays(FAR_DAYS)));
+        when(bloodBankRepository.existsBloodBankById(BLOOD_BANK_ID)).thenReturn(true);
+        when(publishedSlotRepository.findByBloodBankId(BLOOD_BANK_ID)).thenReturn(stored);
+        when(availabilityTemplateService.withTemplateSlots(eq(BLOOD_BANK_ID), eq(stored), eq(today),
+                eq(today.plusDays(AvailabilityTemplateService.MAX_TEMPLATE_DAYS)))).thenReturn(stored);
+
+        List<DailyAvailabilityDTO> dates = service.getAvailableDonationDatesWithSpots(BLOOD_BANK_ID, null, null);
+
+        assertThat(dates).extracting(DailyAvailabilityDTO::getDate)
+                .containsExactly(today.minusDays(10), today.plusDays(FAR_DAYS));
+        verify(publishedSlotRepository, never()).findByBloodBankIdAndDateRange(any(), any(), any());
+    }
+
+    @Test
+    void withOnlyTheFirstDayTheDefaultWindowApplies() {
+        LocalDate from = LocalDate.of(2030, 1, 7);
+        LocalDate to = from.plusDays(BloodBankService.DEFAULT_WINDOW_DAYS);
+        when(bloodBankRepository.existsBloodBankById(BLOOD_BANK_ID)).thenReturn(true);
+        when(publishedSlotRepository.findByBloodBankIdAndDateRange(BLOOD_BANK_ID, from, to)).thenReturn(List.of());
+        when(availabilityTemplateService.withTemplateSlots(eq(BLOOD_BANK_ID), anyList(), eq(from), eq(to)))
+                .thenReturn(List.of());
+
+        assertThat(service.getAvailableDonationDatesWithSpots(BLOOD_BANK_ID, from, null)).isEmpty();
+        verify(publishedSlotRepository, never()).findByBloodBankId(any());
+    }
+
+    @Test
+    void newTemplateAddsItsSpotsToTheSlotsStoredBeforeIt() {
+        LocalDate today = LocalDate.now(Donation.ZONE);
+        AvailabilityTemplateDTO created = new AvailabilityTemplateDTO();
+        created.setId("template-1");
+        created.setStartDate(today.minusDays(5));
+        created.setEndDate(today.plusDays(10));
+        PublishedSlot covered = slot(today.plusDays(1));
+        PublishedSlot otherTime = new PublishedSlot(null, BLOOD_BANK_ID, today.plusDays(2), LocalTime.of(15, 0), 5, 0, 5);
+        SlotKey coveredKey = SlotKey.of(covered);
+
+        when(availabilityTemplateService.create(BLOOD_BANK_ID, created)).thenReturn(created);
+        when(availabilityTemplateService.expand(BLOOD_BANK_ID, created, today, today.plusDays(10)))
+                .thenReturn(Map.of(coveredKey, 3, new SlotKey(BLOOD_BANK_ID, today.plusDays(2), LocalTime.of(9, 0)), 3));
+        when(publishedSlotRepository.findByBloodBankIdAndDateRange(BLOOD_BANK_ID, today, today.plusDays(10)))
+                .thenReturn(List.of(covered, otherTime));
+
+        service.createAvailabilityTemplate(BLOOD_BANK_ID, created);
+
+        // only stored slots are topped up, template-only slots are expanded when read
+        verify(publishedSlotRepository).addTotalSpots(Map.of(coveredKey, 3));
+        verify(slotInventory).invalidate(Set.of(coveredKey));
+        verify(waitlistService).fillFromWaitlist(coveredKey);
+    }
+
+    @Test
+    void deletedTemplateMarksTheSummariesStaleExclusivelyWithTheirRebuilds() {
+        AtomicBoolean exclusive = new AtomicBoolean();
+        doAnswer(invocation -> {
+            exclusive.set(true);
+            try {
+                invocation.<Runnable>getArgument(0).run();
+            } finally {
+                exclusive.set(false);
+            }
+            return null;
+        }).when(slotInventory).runExclusive(any(Runnable.class));
+        doAnswer(invocation -> {
+            assertThat(exclusive).isTrue();
+            return null;
+        }).when(availabilitySummaryRepository).markAllStale(BLOOD_BANK_ID);
+
+        service.deleteAvailabilityTemplate(BLOOD_BANK_ID, "template-1");
+
+        verify(availabilityTemplateService).delete(BLOOD_BANK_ID, "template-1");
+        verify(availabilitySummaryRepository).markAllStale(BLOOD_BANK_ID);
+    }
+
+    @Test
+    void failedLocationLookupLeavesTheBankPendingWithoutCoordinates() {
+        BloodBank bloodBank = new BloodBank();
+        bloodBank.setId(BLOOD_BANK_ID);
+        bloodBank.setName("Hemocentro");
+        when(bloodBankRepository.findAllBloodBanks()).thenReturn(List.of(bloodBank));
+        when(geolocationService.locate(any())).thenThrow(new IllegalStateException("geocoder unavailable"));
+
+        List<BloodBankMapDTO> banks = service.getAllWithLocation();
+
+        assertThat(banks).singleElement().satisfies(bank -> {
+            assertThat(bank.isLocationPending()).isTrue();
+            assertThat(bank.getLatitude()).isNull();
+            assertThat(bank.getLongitude()).isNull();
+        });
+    }
+
+    private static PublishedSlot slot(LocalDate date) {
+        return new PublishedSlot(null, BLOOD_BANK_ID, date, LocalTime.of(9, 0), 5, 0, 5);
+    }
+}
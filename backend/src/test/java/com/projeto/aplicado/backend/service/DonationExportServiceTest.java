@@ -0,0 +1,147 @@
+package com.projeto.aplicado.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.aplicado.backend.dto.donation.DonationExportRowDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.repository.BloodBankRepository;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DonationExportServiceTest {
+    private static final String BLOOD_BANK_ID = "bank-1";
+    private static final String CSV_HEADER = "id,userId,donorName,donorEmail,donorPhone,date,hour,appointmentAt,"
+            + "slot,bloodType,status,notes,cancellationReason,createdAt,updatedAt";
+
+    @Mock
+    private DonationRepository donationRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private BloodBankRepository bloodBankRepository;
+
+    private DonationExportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DonationExportService(donationRepository, userRepository, bloodBankRepository,
+                new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void csvQuotesFieldsWithSeparatorsQuotesAndLineBreaks() throws Exception {
+        DonationExportRowDTO row = new DonationExportRowDTO();
+        row.setId("d1");
+        row.setDonorName("Silva, Ana");
+        row.setNotes("disse \"ok\"");
+        row.setCancellationReason("linha 1\nlinha 2");
+
+        String csv = write(DonationExportService.Format.CSV, row);
+
+        assertThat(csv).isEqualTo(CSV_HEADER + "\n"
+                + "d1,,\"Silva, Ana\",,,,,,,,,\"disse \"\"ok\"\"\",\"linha 1\nlinha 2\",,\n");
+    }
+
+    @Test
+    void csvQuotesCarriageReturnsAndLeavesPlainFieldsAsIs() throws Exception {
+        DonationExportRowDTO row = new DonationExportRowDTO();
+        row.setId("d1");
+        row.setUserId("u1");
+        row.setNotes("a\rb");
+        row.setSlot(3);
+
+        String csv = write(DonationExportService.Format.CSV, row);
+
+        assertThat(csv).isEqualTo(CSV_HEADER + "\n" + "d1,u1,,,,,,,3,,,\"a\rb\",,,\n");
+    }
+
+    @Test
+    void csvPrefixesFieldsASpreadsheetWouldReadAsFormulas() throws Exception {
+        DonationExportRowDTO row = new DonationExportRowDTO();
+        row.setId("d1");
+        row.setDonorName("=HYPERLINK(\"http://x\")");
+        row.setDonorEmail("@SUM(A1)");
+        row.setDonorPhone("+5511999999999");
+        row.setNotes("-1+1");
+        row.setCancellationReason("sem = no início");
+
+        String csv = write(DonationExportService.Format.CSV, row);
+
+        assertThat(csv).isEqualTo(CSV_HEADER + "\n"
+                + "d1,,\"'=HYPERLINK(\"\"http://x\"\")\",'@SUM(A1),'+5511999999999,,,,,,,'-1+1,sem = no início,,\n");
+    }
+
+    @Test
+    void csvWritesOnlyTheHeaderWhenThereAreNoRows() throws Exception {
+        assertThat(write(DonationExportService.Format.CSV)).isEqualTo(CSV_HEADER + "\n");
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        DonationExportRowDTO first = new DonationExportRowDTO();
+        first.setId("d1");
+        first.setNotes("linha 1\nlinha 2");
+        DonationExportRowDTO second = new DonationExportRowDTO();
+        second.setId("d2");
+
+        String[] lines = write(DonationExportService.Format.NDJSON, first, second).split("\n", -1);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("{\"id\":\"d1\"").contains("\"notes\":\"linha 1\\nlinha 2\"");
+        assertThat(lines[1]).startsWith("{\"id\":\"d2\"");
+        assertThat(lines[2]).isEmpty();
+    }
+
+    @Test
+    void writeHistoryRethrowsAMidStreamFailureAndClosesTheCursor() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Donation donation = new Donation();
+        donation.setId("d1");
+        Stream<Donation> donations = Stream.of(donation, donation)
+                .<Donation>map(d -> {
+                    throw new DataAccessResourceFailureException("cursor lost");
+                })
+                .onClose(() -> closed.set(true));
+        when(donationRepository.streamBloodBankHistory(BLOOD_BANK_ID, null, null)).thenReturn(donations);
+
+        DonationExportService.HistoryExport export = new DonationExportService.HistoryExport(BLOOD_BANK_ID, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> service.writeHistory(export, DonationExportService.Format.CSV, true, out))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void prepareHistoryRejectsAnUnknownBloodBankWithoutOpeningTheCursor() {
+        when(bloodBankRepository.existsBloodBankById(BLOOD_BANK_ID)).thenReturn(false);
+
+        assertThatThrownBy(() -> service.prepareHistory(BLOOD_BANK_ID, null, null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Banco de sangue não encontrado");
+        verify(donationRepository, never()).streamBloodBankHistory(BLOOD_BANK_ID, null, null);
+    }
+
+    private String write(DonationExportService.Format format, DonationExportRowDTO... rows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.write(Stream.of(rows), format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,236 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.donation.DonationDTO;
+import com.projeto.aplicado.backend.dto.donation.DonationPageDTO;
+import com.projeto.aplicado.backend.dto.user.UserContactDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.users.User;
+import com.projeto.aplicado.backend.repository.BloodBankRepository;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.DonationRepositoryCustom;
+import com.projeto.aplicado.backend.repository.PublishedSlotRepository;
+import com.projeto.aplicado.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DonationServiceTest {
+    private static final String BLOOD_BANK_ID = "bank-1";
+    private static final Instant FIRST = Instant.parse("2030-01-07T12:00:00Z");
+
+    @Mock
+    private DonationRepository donationRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private BloodBankRepository bloodBankRepository;
+    @Mock
+    private PublishedSlotRepository publishedSlotRepository;
+    @Mock
+    private SlotInventory slotInventory;
+    @Mock
+    private SlotHoldService slotHoldService;
+    @Mock
+    private WaitlistService waitlistService;
+    @Mock
+    private AchievementService achievementService;
+    @Mock
+    private DonationStatsService donationStatsService;
+
+    private DonationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DonationService(donationRepository, userRepository, bloodBankRepository, publishedSlotRepository,
+                slotInventory, slotHoldService, waitlistService, achievementService, donationStatsService);
+    }
+
+    @Test
+    void withoutLimitNorCursorEveryDonationIsReturned() {
+        when(donationRepository.findBloodBankPage(eq(BLOOD_BANK_ID), isNull(), isNull(), any(), isNull(), eq(0)))
+                .thenReturn(donations(0, 250));
+
+        DonationPageDTO page = service.getBloodBankDonations(BLOOD_BANK_ID, null, null, null, null, null, null);
+
+        assertThat(page.getDonations()).hasSize(250);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void fullPageReturnsTheCursorOfItsLastDonation() {
+        when(donationRepository.findBloodBankPage(eq(BLOOD_BANK_ID), isNull(), isNull(), any(), isNull(), eq(3)))
+                .thenReturn(donations(0, 3));
+
+        DonationPageDTO page = service.getBloodBankDonations(BLOOD_BANK_ID, null, null, null, null, 2, null);
+
+        assertThat(page.getDonations()).extracting("id").containsExactly("d0", "d1");
+        DonationRepositoryCustom.Cursor next = DonationRepositoryCustom.Cursor.decode(page.getNextCursor());
+        assertThat(next).isEqualTo(new DonationRepositoryCustom.Cursor(FIRST.plusSeconds(1), "d1"));
+    }
+
+    @Test
+    void nextPageResumesAfterTheCursorAndEndsWithoutOne() {
+        DonationRepositoryCustom.Cursor after = new DonationRepositoryCustom.Cursor(FIRST.plusSeconds(1), "d1");
+        when(donationRepository.findBloodBankPage(eq(BLOOD_BANK_ID), isNull(), isNull(), any(), eq(after), eq(101)))
+                .thenReturn(donations(2, 1));
+
+        // only the cursor is sent: the default page size applies
+        DonationPageDTO page = service.getBloodBankDonations(BLOOD_BANK_ID, null, null, null, null, null, after.encode());
+
+        assertThat(page.getDonations()).extracting("id").containsExactly("d2");
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void limitOutOfRangeIsRejected() {
+        assertThatThrownBy(() -> service.getBloodBankDonations(BLOOD_BANK_ID, null, null, null, null, 0, null))
+                .hasMessage("O limite deve estar entre 1 e " + DonationService.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    void donorsAndBloodBanksAreReadOnceForAllDonations() {
+        List<Donation> donations = List.of(
+                donationOf("d0", "user-1", BLOOD_BANK_ID),
+                donationOf("d1", "user-1", BLOOD_BANK_ID),
+                donationOf("d2", "user-gone", BLOOD_BANK_ID),
+                donationOf("d3", "user-2", "bank-gone"));
+        when(donationRepository.findBloodBankPage(eq(BLOOD_BANK_ID), isNull(), isNull(), any(), isNull(), eq(0)))
+                .thenReturn(donations);
+        when(userRepository.findContactsByIdIn(Set.of("user-1", "user-2", "user-gone", BLOOD_BANK_ID, "bank-gone")))
+                .thenReturn(List.of(
+                        contact("user-1", "Ana"),
+                        contact("user-2", "Bruno"),
+                        contact(BLOOD_BANK_ID, "Hemocentro")));
+
+        List<DonationDTO> mapped = service.getBloodBankDonations(BLOOD_BANK_ID, null, null, null, null, null, null).getDonations();
+
+        // one query for every donor and blood bank, however many donations reference them
+        verify(userRepository).findContactsByIdIn(any());
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(bloodBankRepository);
+
+        assertThat(mapped).extracting(DonationDTO::getUserName).containsExactly("Ana", "Ana", null, "Bruno");
+        assertThat(mapped).extracting(DonationDTO::getBloodBankName).containsExactly("Hemocentro", "Hemocentro", "Hemocentro", null);
+        assertThat(mapped.get(2).getUserEmail()).isNull();
+        assertThat(mapped.get(3).getBloodBankAddress()).isNull();
+    }
+
+    @Test
+    void cancelReleasesTheSpotWhenItsWriteMatched() {
+        Donation donation = donation(Donation.DonationStatus.CONFIRMED);
+        when(donationRepository.findByIdAndUserId("d1", "user-1")).thenReturn(Optional.of(donation));
+        when(donationRepository.transitionStatus(eq("d1"), any(), eq(Donation.DonationStatus.CANCELLED), any()))
+                .thenReturn(Optional.of(donation(Donation.DonationStatus.CONFIRMED)));
+        when(userRepository.findUserById("user-1")).thenReturn(Optional.of(new User()));
+
+        DonationDTO cancelled = service.cancelDonation("d1", "user-1", "viagem");
+
+        assertThat(cancelled.getStatus()).isEqualTo(Donation.DonationStatus.CANCELLED);
+        verify(waitlistService).releaseOrPromote(donation.slotKey());
+        verify(donationStatsService).recordTransition(any(), eq(Donation.DonationStatus.CONFIRMED));
+    }
+
+    @Test
+    void cancelLosingARaceDoesNotReleaseTheSpotAgain() {
+        when(donationRepository.findByIdAndUserId("d1", "user-1"))
+                .thenReturn(Optional.of(donation(Donation.DonationStatus.PENDING)));
+        // a concurrent cancel changed the donation between the read and the write
+        when(donationRepository.transitionStatus(eq("d1"), any(), eq(Donation.DonationStatus.CANCELLED), any()))
+                .thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.cancelDonation("d1", "user-1", "viagem"))
+                .isInstanceOf(RuntimeException.class);
+        verify(waitlistService, never()).releaseOrPromote(any());
+        verify(donationStatsService, never()).recordTransition(any(), any());
+    }
+
+    @Test
+    void cancelledDonationCannotBeConfirmedNorCompleted() {
+        when(donationRepository.findByIdAndBloodBankId("d1", BLOOD_BANK_ID))
+                .thenReturn(Optional.of(donation(Donation.DonationStatus.CANCELLED)));
+
+        assertThatThrownBy(() -> service.confirmDonation("d1", BLOOD_BANK_ID))
+                .hasMessage("Não é possível confirmar um agendamento cancelado");
+        assertThatThrownBy(() -> service.completeDonation("d1", BLOOD_BANK_ID, null))
+                .hasMessage("Não é possível completar um agendamento cancelado");
+        verify(donationRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void transitionsOnlyStartFromActiveDonations() {
+        when(donationRepository.findByIdAndBloodBankId("d1", BLOOD_BANK_ID))
+                .thenReturn(Optional.of(donation(Donation.DonationStatus.PENDING)));
+        when(donationRepository.transitionStatus(eq("d1"), any(), eq(Donation.DonationStatus.CONFIRMED), any()))
+                .thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.confirmDonation("d1", BLOOD_BANK_ID)).isInstanceOf(RuntimeException.class);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Donation.DonationStatus>> from = ArgumentCaptor.forClass(Collection.class);
+        verify(donationRepository).transitionStatus(eq("d1"), from.capture(), eq(Donation.DonationStatus.CONFIRMED), any());
+        assertThat(from.getValue()).containsExactlyInAnyOrder(Donation.DonationStatus.PENDING, Donation.DonationStatus.CONFIRMED);
+    }
+
+    private static Donation donationOf(String id, String userId, String bloodBankId) {
+        Donation donation = new Donation();
+        donation.setId(id);
+        donation.setUserId(userId);
+        donation.setBloodBankId(bloodBankId);
+        return donation;
+    }
+
+    private static UserContactDTO contact(String id, String name) {
+        UserContactDTO contact = new UserContactDTO();
+        contact.setId(id);
+        contact.setName(name);
+        contact.setEmail(id + "@example.com");
+        return contact;
+    }
+
+    private static Donation donation(Donation.DonationStatus status) {
+        Donation donation = new Donation();
+        donation.setId("d1");
+        donation.setUserId("user-1");
+        donation.setBloodBankId(BLOOD_BANK_ID);
+        donation.setAppointmentDate(LocalDate.of(2030, 1, 7));
+        donation.setAppointmentTime(LocalTime.of(9, 0));
+        donation.setStatus(status);
+        return donation;
+    }
+
+    private static List<Donation> donations(int first, int count) {
+        List<Donation> donations = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            Donation donation = new Donation();
+            donation.setId("d" + i);
+            donation.setBloodBankId(BLOOD_BANK_ID);
+            donation.setAppointmentAt(FIRST.plusSeconds(i));
+            donations.add(donation);
+        }
+        return donations;
+    }
+}
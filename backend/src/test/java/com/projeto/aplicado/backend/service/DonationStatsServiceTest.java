@@ -0,0 +1,141 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.donation.DonationCountDTO;
+import com.projeto.aplicado.backend.dto.donation.DonationStatsDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.DonationStats;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.DonationStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DonationStatsServiceTest {
+    private static final String BLOOD_BANK_ID = "bank-1";
+
+    @Mock
+    private DonationStatsRepository donationStatsRepository;
+    @Mock
+    private DonationRepository donationRepository;
+
+    private DonationStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DonationStatsService(donationStatsRepository, donationRepository);
+    }
+
+    @Test
+    void transitionUpdatesTheCountersOfTheBank() {
+        service.recordTransition(donation(Donation.DonationStatus.COMPLETED), Donation.DonationStatus.CONFIRMED);
+
+        verify(donationStatsRepository).applyTransition(BLOOD_BANK_ID, Donation.DonationStatus.CONFIRMED,
+                Donation.DonationStatus.COMPLETED, BloodType.O_POSITIVE);
+        verify(donationStatsRepository, never()).markStale(any());
+    }
+
+    @Test
+    void failedTransitionMarksTheCountersStale() {
+        doThrow(new DataAccessResourceFailureException("down")).when(donationStatsRepository)
+                .applyTransition(BLOOD_BANK_ID, null, Donation.DonationStatus.PENDING, BloodType.O_POSITIVE);
+
+        service.recordTransition(donation(Donation.DonationStatus.PENDING), null);
+
+        verify(donationStatsRepository).markStale(BLOOD_BANK_ID);
+    }
+
+    @Test
+    void failedStaleMarkIsLeftToTheReconciliation() {
+        doThrow(new DataAccessResourceFailureException("down")).when(donationStatsRepository)
+                .applyTransition(BLOOD_BANK_ID, null, Donation.DonationStatus.PENDING, BloodType.O_POSITIVE);
+        doThrow(new DataAccessResourceFailureException("down")).when(donationStatsRepository).markStale(BLOOD_BANK_ID);
+
+        // does not throw: the donation was already saved
+        service.recordTransition(donation(Donation.DonationStatus.PENDING), null);
+    }
+
+    @Test
+    void freshCountersAreReadAsStored() {
+        when(donationStatsRepository.findById(BLOOD_BANK_ID))
+                .thenReturn(Optional.of(stats(false, 4, Map.of("PENDING", 2, "COMPLETED", 3, "CANCELLED", 0), Map.of("O_POSITIVE", 3))));
+
+        DonationStatsDTO dto = service.getStats(BLOOD_BANK_ID);
+
+        assertThat(dto.getTotalDonations()).isEqualTo(5);
+        assertThat(dto.getCompletedDonations()).isEqualTo(3);
+        assertThat(dto.getByStatus()).doesNotContainKey("CANCELLED");
+        assertThat(dto.getByBloodType()).containsExactly(Map.entry("O+", 3));
+        verifyNoInteractions(donationRepository);
+    }
+
+    @Test
+    void missingCountersAreRebuiltFromTheDonations() {
+        when(donationStatsRepository.findById(BLOOD_BANK_ID)).thenReturn(Optional.empty());
+        givenCounted();
+        when(donationStatsRepository.replace(eq(BLOOD_BANK_ID), anyMap(), anyMap(), isNull()))
+                .thenAnswer(invocation -> new DonationStats(BLOOD_BANK_ID, invocation.getArgument(1), invocation.getArgument(2), false, 1, Instant.now()));
+
+        DonationStatsDTO dto = service.getStats(BLOOD_BANK_ID);
+
+        assertThat(dto.getByStatus()).containsOnly(Map.entry("PENDING", 1), Map.entry("COMPLETED", 2));
+        assertThat(dto.getByBloodType()).containsOnly(Map.entry("A-", 2));
+    }
+
+    @Test
+    void staleCountersChangedWhileCountingAreCountedAgain() {
+        when(donationStatsRepository.findById(BLOOD_BANK_ID))
+                .thenReturn(Optional.of(stats(true, 7, Map.of("PENDING", 9), Map.of())))
+                .thenReturn(Optional.of(stats(false, 8, Map.of("PENDING", 9), Map.of())));
+        givenCounted();
+        // a transition bumped the version to 8 during the first count
+        when(donationStatsRepository.replace(eq(BLOOD_BANK_ID), anyMap(), anyMap(), eq(7L))).thenReturn(null);
+        when(donationStatsRepository.replace(eq(BLOOD_BANK_ID), anyMap(), anyMap(), eq(8L)))
+                .thenAnswer(invocation -> new DonationStats(BLOOD_BANK_ID, invocation.getArgument(1), invocation.getArgument(2), false, 9, Instant.now()));
+
+        DonationStatsDTO dto = service.getStats(BLOOD_BANK_ID);
+
+        verify(donationRepository, times(2)).countByStatusAndBloodType(BLOOD_BANK_ID);
+        assertThat(dto.getTotalDonations()).isEqualTo(3);
+    }
+
+    private void givenCounted() {
+        when(donationRepository.countByStatusAndBloodType(BLOOD_BANK_ID)).thenReturn(List.of(
+                new DonationCountDTO(Donation.DonationStatus.PENDING, BloodType.A_NEGATIVE, 1),
+                new DonationCountDTO(Donation.DonationStatus.COMPLETED, BloodType.A_NEGATIVE, 2)));
+    }
+
+    private static Donation donation(Donation.DonationStatus status) {
+        Donation donation = new Donation();
+        donation.setId("d1");
+        donation.setBloodBankId(BLOOD_BANK_ID);
+        donation.setBloodType(BloodType.O_POSITIVE);
+        donation.setStatus(status);
+        return donation;
+    }
+
+    private static DonationStats stats(boolean stale, long version, Map<String, Integer> byStatus, Map<String, Integer> byBloodType) {
+        return new DonationStats(BLOOD_BANK_ID, byStatus, byBloodType, stale, version, Instant.now());
+    }
+}
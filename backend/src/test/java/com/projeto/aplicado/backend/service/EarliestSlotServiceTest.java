@@ -0,0 +1,88 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.bloodbank.EarliestSlotDTO;
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.repository.PublishedSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EarliestSlotServiceTest {
+    private static final String BLOOD_BANK_ID = "bank-1";
+    private static final LocalDate TOMORROW = LocalDate.now().plusDays(1);
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+
+    @Mock
+    private PublishedSlotRepository publishedSlotRepository;
+    @Mock
+    private AvailabilityTemplateService availabilityTemplateService;
+
+    private EarliestSlotService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new EarliestSlotService(publishedSlotRepository, availabilityTemplateService);
+    }
+
+    @Test
+    void fullStoredSlotHidesItsTemplateSlot() {
+        givenTemplateSlots(Map.of(key(NINE), 4, key(TEN), 4));
+        when(publishedSlotRepository.findFullByBloodBankIdIn(anyCollection(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(List.of(slot(NINE, 0)));
+        when(publishedSlotRepository.findEarliestOpen(anyCollection(), any(LocalDateTime.class), any(LocalDate.class), eq(5)))
+                .thenReturn(List.of());
+
+        List<EarliestSlotDTO> slots = service.findEarliest(List.of(match()), 5, EarliestSlotService.Order.TIME, 7);
+
+        assertThat(slots).extracting(EarliestSlotDTO::getTime).containsExactly(TEN);
+    }
+
+    @Test
+    void openStoredSlotReplacesItsTemplateSpots() {
+        givenTemplateSlots(Map.of(key(NINE), 4));
+        when(publishedSlotRepository.findFullByBloodBankIdIn(anyCollection(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(List.of());
+        when(publishedSlotRepository.findEarliestOpen(anyCollection(), any(LocalDateTime.class), any(LocalDate.class), eq(5)))
+                .thenReturn(List.of(slot(NINE, 1)));
+
+        List<EarliestSlotDTO> slots = service.findEarliest(List.of(match()), 5, EarliestSlotService.Order.TIME, 7);
+
+        assertThat(slots).singleElement().satisfies(slot -> assertThat(slot.getAvailableSpots()).isEqualTo(1));
+    }
+
+    private void givenTemplateSlots(Map<SlotKey, Integer> slots) {
+        when(availabilityTemplateService.expand(anyCollection(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(new HashMap<>(slots));
+    }
+
+    private static SlotKey key(LocalTime time) {
+        return new SlotKey(BLOOD_BANK_ID, TOMORROW, time);
+    }
+
+    private static PublishedSlot slot(LocalTime time, int availableSpots) {
+        return new PublishedSlot(null, BLOOD_BANK_ID, TOMORROW, time, 0, 0, availableSpots);
+    }
+
+    private static BloodBankSpatialIndex.Match match() {
+        BloodBankSpatialIndex.Entry entry = new BloodBankSpatialIndex.Entry(BLOOD_BANK_ID, "Hemocentro", null, null, -23.5, -46.6);
+        return new BloodBankSpatialIndex.Match(entry, 2.0, 0.0);
+    }
+}
@@ -0,0 +1,164 @@
+package com.projeto.aplicado.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projeto.aplicado.backend.exception.IdempotencyException;
+import com.projeto.aplicado.backend.model.IdempotencyRecord;
+import com.projeto.aplicado.backend.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    private static final String KEY = "key-1";
+    private static final String SCOPE = "donations.cancel:d1";
+    private static final String ID = SCOPE + ":" + KEY;
+    private static final List<Object> REQUEST = List.of("d1");
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger runs = new AtomicInteger();
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(idempotencyRecordRepository, objectMapper, 24, 30);
+    }
+
+    @Test
+    void firstRequestRunsAndStoresItsResponse() {
+        ResponseEntity<Map> response = execute(REQUEST);
+
+        assertThat(response.getBody()).containsEntry("status", "CANCELLED");
+        assertThat(runs).hasValue(1);
+        ArgumentCaptor<IdempotencyRecord> inserted = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).insert(inserted.capture());
+        verify(idempotencyRecordRepository).complete(ID, inserted.getValue().getLeaseId(), 200, "{\"status\":\"CANCELLED\"}");
+    }
+
+    @Test
+    void retryReplaysTheStoredResponseWithoutRunningAgain() {
+        givenStored(true, Instant.now().plusSeconds(30), REQUEST);
+
+        ResponseEntity<Map> response = execute(REQUEST);
+
+        assertThat(runs).hasValue(0);
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(response.getBody()).containsEntry("status", "CANCELLED");
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejected() {
+        givenStored(true, Instant.now().plusSeconds(30), List.of("d2"));
+
+        assertThatThrownBy(() -> execute(REQUEST))
+                .isInstanceOfSatisfying(IdempotencyException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void retryWhileTheFirstRequestHoldsItsLeaseConflicts() {
+        givenStored(false, Instant.now().plusSeconds(30), REQUEST);
+
+        assertThatThrownBy(() -> execute(REQUEST))
+                .isInstanceOfSatisfying(IdempotencyException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void retryAfterTheLeaseExpiredTakesTheKeyOver() {
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(idempotencyRecordRepository.takeOver(eq(ID), anyString(), any(Instant.class), anyString(), any(Instant.class)))
+                .thenReturn(1L);
+
+        ResponseEntity<Map> response = execute(REQUEST);
+
+        assertThat(runs).hasValue(1);
+        assertThat(response.getBody()).containsEntry("status", "CANCELLED");
+        ArgumentCaptor<String> leaseId = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyRecordRepository).takeOver(eq(ID), anyString(), any(Instant.class), leaseId.capture(), any(Instant.class));
+        verify(idempotencyRecordRepository).complete(eq(ID), eq(leaseId.getValue()), eq(200), anyString());
+    }
+
+    @Test
+    void failedRequestReleasesTheKey() {
+        assertThatThrownBy(() -> service.execute(KEY, SCOPE, REQUEST, Map.class, () -> {
+            throw new RuntimeException("Doação não encontrada");
+        })).hasMessage("Doação não encontrada");
+
+        ArgumentCaptor<IdempotencyRecord> inserted = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).insert(inserted.capture());
+        verify(idempotencyRecordRepository).deleteByIdAndLeaseId(ID, inserted.getValue().getLeaseId());
+        verify(idempotencyRecordRepository, never()).complete(anyString(), anyString(), anyInt(), any());
+    }
+
+    @Test
+    void responseThatCannotBeStoredIsStillReturnedAndReleasesTheKey() {
+        when(idempotencyRecordRepository.complete(eq(ID), anyString(), eq(200), anyString()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        ResponseEntity<Map> response = execute(REQUEST);
+
+        assertThat(runs).hasValue(1);
+        assertThat(response.getBody()).containsEntry("status", "CANCELLED");
+        verify(idempotencyRecordRepository).deleteByIdAndLeaseId(eq(ID), anyString());
+    }
+
+    @Test
+    void requestWithoutKeyJustRuns() {
+        ResponseEntity<Map> response = service.execute(null, SCOPE, REQUEST, Map.class, this::cancel);
+
+        assertThat(response.getBody()).containsEntry("status", "CANCELLED");
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    private ResponseEntity<Map> execute(List<?> request) {
+        return service.execute(KEY, SCOPE, request, Map.class, this::cancel);
+    }
+
+    private ResponseEntity<Map> cancel() {
+        runs.incrementAndGet();
+        return ResponseEntity.ok(Map.of("status", "CANCELLED"));
+    }
+
+    /**
+     * A record already stored for the key by an earlier request, whose lease cannot be taken over.
+     */
+    private void givenStored(boolean completed, Instant leaseUntil, List<?> request) {
+        when(idempotencyRecordRepository.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(idempotencyRecordRepository.takeOver(eq(ID), anyString(), any(Instant.class), anyString(), any(Instant.class)))
+                .thenReturn(0L);
+        IdempotencyRecord stored = new IdempotencyRecord(ID, service.hash(request), completed, completed ? 200 : 0,
+                completed ? "{\"status\":\"CANCELLED\"}" : null, "lease-0", leaseUntil, Instant.now(), Instant.now().plusSeconds(3600));
+        when(idempotencyRecordRepository.findById(ID)).thenReturn(Optional.of(stored));
+    }
+}
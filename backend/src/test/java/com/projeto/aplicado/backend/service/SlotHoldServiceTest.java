@@ -0,0 +1,98 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.SlotHold;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.repository.SlotHoldRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SlotHoldServiceTest {
+    private static final String USER_ID = "user-1";
+    private static final SlotKey KEY = new SlotKey("bank-1", LocalDate.now(Donation.ZONE).plusDays(1), LocalTime.of(9, 0));
+
+    @Mock
+    private SlotHoldRepository slotHoldRepository;
+    @Mock
+    private SlotInventory slotInventory;
+    @Mock
+    private WaitlistService waitlistService;
+
+    private SlotHoldService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SlotHoldService(slotHoldRepository, slotInventory, waitlistService, 300);
+    }
+
+    @Test
+    void sweepGivesBackTheSpotOfEachExpiredHold() {
+        when(slotHoldRepository.claimExpired(any(Instant.class), anyInt()))
+                .thenReturn(List.of(hold("h1"), hold("h2")));
+
+        service.sweepExpired();
+
+        verify(waitlistService, times(2)).releaseOrPromote(KEY);
+    }
+
+    @Test
+    void sweepKeepsClaimingWhileBatchesAreFull() {
+        List<SlotHold> fullBatch = Collections.nCopies(500, hold("h"));
+        when(slotHoldRepository.claimExpired(any(Instant.class), eq(500)))
+                .thenReturn(fullBatch)
+                .thenReturn(List.of(hold("last")));
+
+        service.sweepExpired();
+
+        verify(slotHoldRepository, times(2)).claimExpired(any(Instant.class), eq(500));
+        verify(waitlistService, times(501)).releaseOrPromote(KEY);
+    }
+
+    @Test
+    void expiredHoldCannotBeConfirmed() {
+        when(slotHoldRepository.claim(eq("h1"), eq(USER_ID), any(Instant.class))).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.confirm("h1", USER_ID, KEY))
+                .hasMessage("Reserva expirada ou não encontrada");
+        verify(waitlistService, never()).releaseOrPromote(any());
+    }
+
+    @Test
+    void reserveGivesTheSpotBackWhenTheHoldIsNotSaved() {
+        when(slotHoldRepository.findFirstByUserIdAndBloodBankIdAndDateAndTimeAndExpiresAtAfter(
+                eq(USER_ID), eq(KEY.bloodBankId()), eq(KEY.date()), eq(KEY.time()), any(Instant.class)))
+                .thenReturn(Optional.empty());
+        when(slotHoldRepository.countByUserIdAndExpiresAtAfter(eq(USER_ID), any(Instant.class))).thenReturn(0L);
+        when(slotInventory.book(KEY)).thenReturn(true);
+        when(slotHoldRepository.save(any(SlotHold.class))).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThatThrownBy(() -> service.reserve(USER_ID, KEY)).isInstanceOf(DataAccessResourceFailureException.class);
+        verify(slotInventory).release(KEY);
+    }
+
+    private static SlotHold hold(String id) {
+        Instant createdAt = Instant.now().minusSeconds(600);
+        return new SlotHold(id, USER_ID, KEY.bloodBankId(), KEY.date(), KEY.time(), createdAt, createdAt.plusSeconds(300));
+    }
+}
@@ -0,0 +1,179 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.donation.SlotBookingCountDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.PublishedSlot;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.repository.AvailabilitySummaryRepository;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.PublishedSlotRepository;
+import com.projeto.aplicado.backend.repository.SlotHoldRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SlotInventoryTest {
+    private static final String BLOOD_BANK_ID = "bank-1";
+    private static final LocalDate DATE = LocalDate.now(Donation.ZONE).plusDays(1);
+    private static final LocalTime TIME = LocalTime.of(9, 0);
+    private static final SlotKey KEY = new SlotKey(BLOOD_BANK_ID, DATE, TIME);
+
+    @Mock
+    private PublishedSlotRepository publishedSlotRepository;
+    @Mock
+    private DonationRepository donationRepository;
+    @Mock
+    private SlotHoldRepository slotHoldRepository;
+    @Mock
+    private AvailabilityTemplateService availabilityTemplateService;
+    @Mock
+    private AvailabilitySummaryRepository availabilitySummaryRepository;
+
+    private SlotInventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new SlotInventory(publishedSlotRepository, donationRepository, slotHoldRepository,
+                availabilityTemplateService, availabilitySummaryRepository);
+    }
+
+    @Test
+    void recoverLowersBookedSpotsWhenReleasesWereLost() {
+        givenStored(slot(5, 3));
+        givenActiveDonations(1);
+        givenHolds(0);
+
+        inventory.recover();
+
+        verify(publishedSlotRepository).setBookedSpots(Map.of(KEY, 1));
+        verify(availabilitySummaryRepository).applyBookings(Map.of(KEY, -2));
+        assertThat(inventory.remaining(KEY)).contains(4);
+    }
+
+    @Test
+    void recoverRaisesBookedSpotsWhenBookingsWereLost() {
+        givenStored(slot(5, 0));
+        givenActiveDonations(2);
+        givenHolds(1);
+
+        inventory.recover();
+
+        verify(publishedSlotRepository).setBookedSpots(Map.of(KEY, 3));
+        verify(availabilitySummaryRepository).applyBookings(Map.of(KEY, 3));
+        assertThat(inventory.remaining(KEY)).contains(2);
+    }
+
+    @Test
+    void recoverWritesNothingWhenCountsMatch() {
+        givenStored(slot(5, 2));
+        givenActiveDonations(2);
+        givenHolds(0);
+
+        inventory.recover();
+
+        verify(publishedSlotRepository, never()).setBookedSpots(anyMap());
+        assertThat(inventory.remaining(KEY)).contains(3);
+    }
+
+    @Test
+    void flushRetriesTheBookedSpotsWithoutCountingThemTwice() {
+        givenStored(slot(5, 0));
+        givenActiveDonations(0);
+        givenHolds(0);
+        inventory.recover();
+
+        doThrow(new DataAccessResourceFailureException("bulk write failed"))
+                .doNothing()
+                .when(publishedSlotRepository).setBookedSpots(anyMap());
+
+        assertThat(inventory.book(KEY)).isTrue();
+        assertThat(inventory.book(KEY)).isTrue();
+        inventory.flush();
+
+        assertThat(inventory.book(KEY)).isTrue();
+        inventory.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<SlotKey, Integer>> written = ArgumentCaptor.forClass(Map.class);
+        verify(publishedSlotRepository, times(2)).setBookedSpots(written.capture());
+        assertThat(written.getAllValues()).containsExactly(Map.of(KEY, 2), Map.of(KEY, 3));
+        // the summaries are only changed once the slots are written
+        verify(availabilitySummaryRepository).applyBookings(Map.of(KEY, 3));
+    }
+
+    @Test
+    void bookingStopsAtTotalSpotsAndReleaseAtZero() {
+        givenStored(slot(2, 0));
+        givenActiveDonations(0);
+        givenHolds(0);
+        inventory.recover();
+
+        assertThat(inventory.book(KEY)).isTrue();
+        assertThat(inventory.book(KEY)).isTrue();
+        assertThat(inventory.book(KEY)).isFalse();
+
+        assertThat(inventory.release(KEY)).isTrue();
+        assertThat(inventory.release(KEY)).isTrue();
+        assertThat(inventory.release(KEY)).isFalse();
+        assertThat(inventory.remaining(KEY)).contains(2);
+    }
+
+    @Test
+    void bookingsWaitForTheRecovery() throws Exception {
+        givenStored(slot(5, 0));
+        givenActiveDonations(5);
+        givenHolds(0);
+
+        CompletableFuture<Boolean> booking = CompletableFuture.supplyAsync(() -> inventory.book(KEY));
+        Thread.sleep(100);
+        assertThat(booking).isNotDone();
+
+        inventory.recover();
+
+        // the slot is full once the donations are counted, so the early booking is refused
+        assertThat(booking.get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    private void givenStored(PublishedSlot slot) {
+        when(publishedSlotRepository.findByDateGreaterThanEqual(any(LocalDate.class))).thenReturn(Stream.of(slot));
+    }
+
+    private void givenActiveDonations(int count) {
+        List<SlotBookingCountDTO> counts = count == 0
+                ? List.of()
+                : List.of(new SlotBookingCountDTO(BLOOD_BANK_ID, Donation.appointmentAt(DATE, TIME), count));
+        when(donationRepository.countBySlotFrom(any(Instant.class), anyList())).thenReturn(counts);
+    }
+
+    private void givenHolds(int count) {
+        when(slotHoldRepository.countBySlot()).thenReturn(count == 0 ? Map.of() : Map.of(KEY, count));
+    }
+
+    private static PublishedSlot slot(int totalSpots, int bookedSpots) {
+        return new PublishedSlot(null, BLOOD_BANK_ID, DATE, TIME, totalSpots, bookedSpots, totalSpots - bookedSpots);
+    }
+}
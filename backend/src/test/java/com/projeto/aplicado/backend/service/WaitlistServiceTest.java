@@ -0,0 +1,152 @@
+package com.projeto.aplicado.backend.service;
+
+import com.projeto.aplicado.backend.dto.donation.WaitlistEntryDTO;
+import com.projeto.aplicado.backend.model.Donation;
+import com.projeto.aplicado.backend.model.SlotKey;
+import com.projeto.aplicado.backend.model.WaitlistEntry;
+import com.projeto.aplicado.backend.model.enums.BloodType;
+import com.projeto.aplicado.backend.model.users.User;
+import com.projeto.aplicado.backend.repository.DonationRepository;
+import com.projeto.aplicado.backend.repository.NotificationRepository;
+import com.projeto.aplicado.backend.repository.UserRepository;
+import com.projeto.aplicado.backend.repository.WaitlistEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WaitlistServiceTest {
+    private static final String USER_ID = "user-1";
+    private static final SlotKey KEY = new SlotKey("bank-1", LocalDate.now(Donation.ZONE).plusDays(1), LocalTime.of(9, 0));
+
+    @Mock
+    private WaitlistEntryRepository waitlistEntryRepository;
+    @Mock
+    private DonationRepository donationRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private NotificationRepository notificationRepository;
+    @Mock
+    private SlotInventory slotInventory;
+    @Mock
+    private DonationStatsService donationStatsService;
+
+    private WaitlistService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new WaitlistService(waitlistEntryRepository, donationRepository, userRepository,
+                notificationRepository, slotInventory, donationStatsService);
+    }
+
+    @Test
+    void releasedSpotGoesBackToTheInventoryWhenNobodyWaits() {
+        when(waitlistEntryRepository.pollFirst(KEY)).thenReturn(Optional.empty());
+
+        service.releaseOrPromote(KEY);
+
+        verify(slotInventory).release(KEY);
+    }
+
+    @Test
+    void releasedSpotIsHandedToTheFirstWaitingDonor() {
+        WaitlistEntry entry = entry();
+        User user = donor();
+        when(waitlistEntryRepository.pollFirst(KEY)).thenReturn(Optional.of(entry));
+        when(userRepository.findUserById(USER_ID)).thenReturn(Optional.of(user));
+        when(donationRepository.findFirstByUserIdAndAppointmentDateAndStatusIn(eq(USER_ID), eq(KEY.date()), anyList()))
+                .thenReturn(Optional.empty());
+        when(donationRepository.save(any(Donation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.releaseOrPromote(KEY);
+
+        verify(slotInventory, never()).release(KEY);
+        verify(donationStatsService).recordTransition(any(Donation.class), eq(null));
+        assertThat(user.getActiveNotifications()).hasSize(1);
+    }
+
+    @Test
+    void failedPromotionRestoresTheEntryAndReleasesTheSpot() {
+        WaitlistEntry entry = entry();
+        when(waitlistEntryRepository.pollFirst(KEY)).thenReturn(Optional.of(entry));
+        when(userRepository.findUserById(USER_ID)).thenReturn(Optional.of(donor()));
+        when(donationRepository.findFirstByUserIdAndAppointmentDateAndStatusIn(eq(USER_ID), eq(KEY.date()), anyList()))
+                .thenReturn(Optional.empty());
+        when(donationRepository.save(any(Donation.class))).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThatThrownBy(() -> service.releaseOrPromote(KEY)).isInstanceOf(DataAccessResourceFailureException.class);
+
+        // same ID and join instant, so the donor keeps their place
+        verify(waitlistEntryRepository).save(entry);
+        verify(slotInventory).release(KEY);
+        verify(donationStatsService, never()).recordTransition(any(), any());
+    }
+
+    @Test
+    void joiningHandsASpotReleasedMeanwhileToTheWaitlist() {
+        WaitlistEntry saved = entry();
+        when(slotInventory.remaining(KEY)).thenReturn(Optional.of(0));
+        when(waitlistEntryRepository.save(any(WaitlistEntry.class))).thenReturn(saved);
+        // a spot was released after the check: the fill books it and promotes the new entry
+        when(slotInventory.book(KEY)).thenReturn(true, false);
+        when(waitlistEntryRepository.pollFirst(KEY)).thenReturn(Optional.of(saved));
+        when(userRepository.findUserById(USER_ID)).thenReturn(Optional.of(donor()));
+        when(donationRepository.findFirstByUserIdAndAppointmentDateAndStatusIn(eq(USER_ID), eq(KEY.date()), anyList()))
+                .thenReturn(Optional.empty());
+        when(donationRepository.save(any(Donation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        WaitlistEntryDTO dto = service.join(USER_ID, KEY, KEY.date().toString(), 1);
+
+        assertThat(dto.getId()).isEqualTo(saved.getId());
+        verify(donationRepository).save(any(Donation.class));
+        verify(slotInventory, never()).release(KEY);
+    }
+
+    @Test
+    void joiningASlotWithSpotsIsRefused() {
+        when(slotInventory.remaining(KEY)).thenReturn(Optional.of(2));
+
+        assertThatThrownBy(() -> service.join(USER_ID, KEY, KEY.date().toString(), 1))
+                .hasMessage("Ainda há vagas disponíveis para este horário");
+        verify(waitlistEntryRepository, never()).save(any());
+    }
+
+    @Test
+    void purgeRemovesEntriesBeforeToday() {
+        when(waitlistEntryRepository.deleteByDateBefore(LocalDate.now(Donation.ZONE))).thenReturn(3L);
+
+        service.purgePastDays();
+
+        verify(waitlistEntryRepository).deleteByDateBefore(LocalDate.now(Donation.ZONE));
+    }
+
+    private static WaitlistEntry entry() {
+        return new WaitlistEntry("entry-1", USER_ID, KEY.bloodBankId(), KEY.date(), KEY.time(),
+                KEY.date().toString(), 1, Instant.now().minusSeconds(60));
+    }
+
+    private static User donor() {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setBloodType(BloodType.O_POSITIVE);
+        return user;
+    }
+}
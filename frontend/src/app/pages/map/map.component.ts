@@ -46,6 +46,7 @@ export class MapComponent implements OnInit, OnDestroy, AfterViewInit {
   private destroy$ = new Subject<void>();
 
   userLocation: Location | null = null;
+  userLocationLoaded = false;
   locations: Location[] = [];
   selectedLocation: Location | null = null;
   isLoadingLocations = true;
@@ -83,8 +84,13 @@ export class MapComponent implements OnInit, OnDestroy, AfterViewInit {
   private fetchUserLocation(): void {
     this.mapService.getUserLocation(this.userId).pipe(takeUntil(this.destroy$)).subscribe({
       next: (location) => {
-        this.userLocation = location;
-        if (this.locations.length > 0 && this.userLocation) {
+        // an address still being looked up comes without coordinates: the map centers on the banks instead
+        this.userLocation = location.latitude != null && location.longitude != null ? location : null;
+        this.userLocationLoaded = true;
+        if (this.userLocation) {
+          this.sortLocationsByDistance();
+        }
+        if (this.locations.length > 0) {
           this.tryInitMap();
         }
       },
@@ -98,13 +104,14 @@ export class MapComponent implements OnInit, OnDestroy, AfterViewInit {
   private fetchLocations(): void {
     this.locationsSub = this.mapService.getLocations().subscribe({
       next: (locations) => {
-        this.locations = locations;
+        // banks whose location is still being looked up come without coordinates
+        this.locations = locations.filter((loc) => loc.latitude != null && loc.longitude != null);
         this.isLoadingLocations = false;
 
         if (this.userLocation) {
           this.sortLocationsByDistance();
         }
-        if (this.locations.length > 0 && this.userLocation) {
+        if (this.locations.length > 0 && this.userLocationLoaded) {
           this.tryInitMap();
         }
       },
@@ -118,12 +125,13 @@ export class MapComponent implements OnInit, OnDestroy, AfterViewInit {
    * Initialize map only after both user location and location list are available.
    */
   private tryInitMap(): void {
-    if (!this.userLocation || this.locations.length === 0 || this.map) {
+    if (!this.userLocationLoaded || this.locations.length === 0 || this.map) {
       return;
     }
 
+    const center = this.userLocation ?? this.locations[0];
     this.map = L.map('map', {
-      center: [this.userLocation.latitude, this.userLocation.longitude] as L.LatLngExpression,
+      center: [center.latitude, center.longitude] as L.LatLngExpression,
       zoom: MAP_ZOOM,
       minZoom: MAP_MIN_ZOOM,
       maxZoom: MAP_MAX_ZOOM,